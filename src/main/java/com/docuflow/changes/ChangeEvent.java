@@ -0,0 +1,60 @@
+package com.docuflow.changes;
+
+import com.docuflow.repositories.DocumentMutation;
+
+import java.time.Instant;
+
+/**
+ * Cambio publicado en el feed, con su número de secuencia.
+ *
+ * Solo lleva metadatos: quien necesite el documento lo pide por ID.
+ */
+public class ChangeEvent {
+
+    private final long sequence;
+    private final DocumentMutation.Type type;
+    private final Long documentId;
+    private final String documentType;
+    private final long version;
+    private final Instant timestamp;
+
+    public ChangeEvent(long sequence, DocumentMutation.Type type, Long documentId,
+                       String documentType, long version, Instant timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.documentId = documentId;
+        this.documentType = documentType;
+        this.version = version;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public DocumentMutation.Type getType() {
+        return type;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Tipo del documento; null en DELETE
+     */
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    /**
+     * Versión resultante; 0 en DELETE
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,123 @@
+package com.docuflow.changes;
+
+import com.docuflow.models.Document;
+import com.docuflow.repositories.DocumentMutation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Anillo acotado con los últimos cambios del repositorio.
+ *
+ * Cada cambio recibe la siguiente secuencia (empieza en 1) y ocupa la
+ * casilla {@code secuencia & mask}. Los escritores no se bloquean entre sí:
+ * reservan la secuencia con un incremento atómico y publican la casilla.
+ * Un lector que encuentra en la casilla una secuencia menor que la pedida
+ * sabe que aún no se ha publicado; si la encuentra mayor, el anillo ya dio
+ * la vuelta y necesita resincronizar.
+ *
+ * Las secuencias empiezan de nuevo en cada arranque: quien guarde una para
+ * reanudar debe guardarla junto con la época del feed, que cambia también.
+ */
+public class ChangeFeed {
+
+    // Distinta en cada arranque (positiva: "<época>-<secuencia>" se separa por el guion)
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int capacity;
+    private final int mask;
+
+    // Última secuencia reservada
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public ChangeFeed(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = this.capacity - 1;
+        this.ring = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * Publica un cambio ya instalado en el repositorio: quien lea la
+     * secuencia ve ese estado (o uno posterior) al consultar el documento.
+     * Dos escrituras simultáneas sobre el mismo documento pueden publicarse
+     * en orden distinto al aplicado; la última secuencia siempre llega
+     * después de ambas.
+     */
+    public long append(DocumentMutation.Type type, Long documentId, Document document) {
+        long sequence = lastSequence.incrementAndGet();
+        ChangeEvent event = new ChangeEvent(
+                sequence,
+                type,
+                documentId,
+                document != null ? document.getType() : null,
+                document != null ? document.getVersion() : 0,
+                Instant.now());
+
+        int slot = (int) (sequence & mask);
+        ChangeEvent current = ring.get(slot);
+        // Un escritor muy retrasado no pisa una vuelta más reciente
+        while ((current == null || current.getSequence() < sequence)
+                && !ring.compareAndSet(slot, current, event)) {
+            current = ring.get(slot);
+        }
+        return sequence;
+    }
+
+    /**
+     * Lee como máximo {@code max} cambios a partir de la secuencia {@code from}
+     * (incluida). Se detiene en el primer hueco aún no publicado.
+     */
+    public ChangeRead read(long from, int max) {
+        long last = lastSequence.get();
+        long oldest = Math.max(1, last - capacity + 1);
+        if (from < oldest || from > last + 1) {
+            return new ChangeRead(List.of(), true, last);
+        }
+
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(max, last - from + 1));
+        for (long sequence = from; sequence <= last && events.size() < max; sequence++) {
+            ChangeEvent event = ring.get((int) (sequence & mask));
+            if (event == null || event.getSequence() < sequence) {
+                break; // reservada pero sin publicar todavía
+            }
+            if (event.getSequence() > sequence) {
+                return new ChangeRead(List.of(), true, last);
+            }
+            events.add(event);
+        }
+        return new ChangeRead(events, false, last);
+    }
+
+    /**
+     * true si se puede leer desde {@code from} sin resincronizar
+     */
+    public boolean isAvailable(long from) {
+        long last = lastSequence.get();
+        return from >= Math.max(1, last - capacity + 1) && from <= last + 1;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * Secuencia más antigua que todavía se puede leer
+     */
+    public long getOldestSequence() {
+        long last = lastSequence.get();
+        return Math.max(1, last - capacity + 1);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
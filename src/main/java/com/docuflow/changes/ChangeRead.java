@@ -0,0 +1,38 @@
+package com.docuflow.changes;
+
+import java.util.List;
+
+/**
+ * Resultado de leer el feed desde una secuencia
+ */
+public class ChangeRead {
+
+    private final List<ChangeEvent> events;
+    private final boolean resyncRequired;
+    private final long lastSequence;
+
+    ChangeRead(List<ChangeEvent> events, boolean resyncRequired, long lastSequence) {
+        this.events = events;
+        this.resyncRequired = resyncRequired;
+        this.lastSequence = lastSequence;
+    }
+
+    public List<ChangeEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * La secuencia pedida ya no está en el anillo (o nunca existió): el
+     * cliente debe recargar el estado completo y reanudar desde {@link #getLastSequence()}
+     */
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+
+    /**
+     * Última secuencia publicada en el momento de la lectura
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
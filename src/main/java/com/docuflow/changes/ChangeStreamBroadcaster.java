@@ -0,0 +1,267 @@
+package com.docuflow.changes;
+
+import com.docuflow.config.ChangeStreamProperties;
+import com.docuflow.repositories.DocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte el feed de cambios a los suscriptores SSE.
+ *
+ * Las conexiones son asíncronas (SseEmitter): ningún hilo queda asociado a
+ * un suscriptor. Unos pocos hilos repartidores recorren periódicamente sus
+ * suscriptores y envían a cada uno lo que le falta desde su cursor; si el
+ * suscriptor se quedó fuera del anillo recibe un evento "resync" y se cierra
+ * la conexión.
+ *
+ * El id de cada evento es "<época>-<secuencia>": las secuencias vuelven a
+ * empezar al reiniciar (o son de otra instancia), así que un Last-Event-ID
+ * de otra época también recibe "resync" en lugar de reanudar en una
+ * posición que no tiene nada que ver.
+ *
+ * La escritura en el socket bloquea, así que cada envío se hace en un hilo
+ * virtual propio y el repartidor nunca espera a un cliente lento: mientras
+ * su envío anterior siga en curso lo salta, y si supera el plazo
+ * (send-timeout-ms) lo desconecta. Al reconectar con Last-Event-ID reanuda
+ * donde lo dejó o recibe "resync" si ya salió del anillo.
+ */
+@Component
+public class ChangeStreamBroadcaster {
+
+    public static final String CHANGE_EVENT = "change";
+    public static final String RESYNC_EVENT = "resync";
+
+    private final ChangeFeed feed;
+    private final ChangeStreamProperties properties;
+    private final List<Set<Subscriber>> partitions;
+    private final AtomicInteger nextPartition = new AtomicInteger();
+
+    private ScheduledExecutorService dispatchers;
+    private ExecutorService senders;
+
+    public ChangeStreamBroadcaster(DocumentRepository repository, ChangeStreamProperties properties) {
+        this.feed = repository.getChangeFeed();
+        this.properties = properties;
+        int count = Math.max(1, properties.getDispatcherThreads());
+        this.partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            partitions.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-stream-send-", 0).factory());
+        dispatchers = Executors.newScheduledThreadPool(partitions.size(), r -> {
+            Thread thread = new Thread(r, "change-stream-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Set<Subscriber> partition : partitions) {
+            dispatchers.scheduleWithFixedDelay(() -> dispatch(partition),
+                    properties.getPollIntervalMs(), properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dispatchers != null) {
+            dispatchers.shutdownNow();
+        }
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        for (Set<Subscriber> partition : partitions) {
+            partition.forEach(subscriber -> subscriber.emitter.complete());
+            partition.clear();
+        }
+    }
+
+    /**
+     * Abre una suscripción. Sin {@code lastEventId} solo se reciben los
+     * cambios posteriores; con él se reanuda justo después de ese evento, o
+     * se envía "resync" si es de otra época del feed.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return register(new SseEmitter(properties.getEmitterTimeoutMs()), lastEventId);
+    }
+
+    SseEmitter register(SseEmitter emitter, String lastEventId) {
+        long next = feed.getLastSequence() + 1;
+        String staleReason = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            String value = lastEventId.trim();
+            int separator = value.indexOf('-');
+            try {
+                if (separator < 0) {
+                    Long.parseLong(value);
+                    staleReason = "Last-Event-ID " + value + " has no change feed epoch";
+                } else {
+                    long epoch = Long.parseLong(value.substring(0, separator));
+                    long sequence = Long.parseLong(value.substring(separator + 1));
+                    if (epoch != feed.getEpoch()) {
+                        staleReason = "Last-Event-ID " + value + " belongs to another run of the change feed";
+                    } else if (sequence < 0) {
+                        throw new NumberFormatException();
+                    } else {
+                        next = sequence + 1;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Last-Event-ID must be <epoch>-<sequence>: " + lastEventId);
+            }
+        }
+        // Con staleReason next = 0 nunca está al día: el primer envío es el "resync"
+        Subscriber subscriber = new Subscriber(emitter, staleReason != null ? 0 : next, staleReason);
+
+        Set<Subscriber> partition = partitions.get(Math.floorMod(nextPartition.getAndIncrement(), partitions.size()));
+        emitter.onCompletion(() -> partition.remove(subscriber));
+        emitter.onTimeout(() -> partition.remove(subscriber));
+        emitter.onError(error -> partition.remove(subscriber));
+        partition.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        int total = 0;
+        for (Set<Subscriber> partition : partitions) {
+            total += partition.size();
+        }
+        return total;
+    }
+
+    // =====================================================
+    // REPARTO
+    // =====================================================
+
+    private void dispatch(Set<Subscriber> partition) {
+        long now = System.currentTimeMillis();
+        long last = feed.getLastSequence();
+        for (Subscriber subscriber : partition) {
+            Future<?> previous = subscriber.inFlight;
+            if (previous != null && !previous.isDone()) {
+                // Sigue escribiendo lo anterior: no se le espera, y si pasa del plazo se le corta
+                if (now - subscriber.sendStartedAt >= properties.getSendTimeoutMs()) {
+                    partition.remove(subscriber);
+                    previous.cancel(true);
+                    subscriber.emitter.completeWithError(new TimeoutException(
+                            "Subscriber did not accept events within " + properties.getSendTimeoutMs() + " ms"));
+                }
+                continue;
+            }
+            // Distinto de last + 1: hay cambios pendientes o una secuencia fuera del anillo
+            boolean pending = subscriber.next != last + 1;
+            if (pending || now - subscriber.lastWriteAt >= properties.getHeartbeatIntervalMs()) {
+                subscriber.sendStartedAt = now;
+                subscriber.inFlight = senders.submit(() -> deliver(partition, subscriber, pending));
+            }
+        }
+    }
+
+    /**
+     * Envío a un suscriptor, en su propio hilo virtual
+     */
+    private void deliver(Set<Subscriber> partition, Subscriber subscriber, boolean pending) {
+        try {
+            if (pending && !send(subscriber)) {
+                partition.remove(subscriber);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - subscriber.lastWriteAt >= properties.getHeartbeatIntervalMs()) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                subscriber.lastWriteAt = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emitter ya cerrado
+            partition.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Envía lo pendiente; false si el suscriptor tuvo que resincronizar
+     */
+    private boolean send(Subscriber subscriber) throws IOException {
+        if (subscriber.staleReason != null) {
+            resync(subscriber, subscriber.staleReason, feed.getLastSequence());
+            return false;
+        }
+        ChangeRead read = feed.read(subscriber.next, properties.getMaxEventsPerPass());
+        if (read.isResyncRequired()) {
+            resync(subscriber, "Requested sequence " + subscriber.next + " is no longer available",
+                    read.getLastSequence());
+            return false;
+        }
+        for (ChangeEvent event : read.getEvents()) {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name(CHANGE_EVENT)
+                    .id(eventId(event.getSequence()))
+                    .data(event, MediaType.APPLICATION_JSON));
+            subscriber.next = event.getSequence() + 1;
+        }
+        if (!read.getEvents().isEmpty()) {
+            subscriber.lastWriteAt = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    /**
+     * Evento "resync" con la posición actual y fin de la conexión
+     */
+    private void resync(Subscriber subscriber, String reason, long lastSequence) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+                .name(RESYNC_EVENT)
+                .id(eventId(lastSequence))
+                .data(Map.of(
+                        "reason", reason,
+                        "oldestSequence", feed.getOldestSequence(),
+                        "lastSequence", lastSequence), MediaType.APPLICATION_JSON));
+        subscriber.emitter.complete();
+    }
+
+    private String eventId(long sequence) {
+        return feed.getEpoch() + "-" + sequence;
+    }
+
+    /**
+     * Estado de un suscriptor; lo toca un solo envío a la vez (el siguiente
+     * no se lanza hasta que termina el anterior)
+     */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+
+        // Motivo para resincronizar nada más conectar (Last-Event-ID de otra época)
+        final String staleReason;
+        volatile long next;
+        volatile long lastWriteAt = System.currentTimeMillis();
+
+        // Envío en curso y cuándo empezó (solo los toca el repartidor)
+        Future<?> inFlight;
+        long sendStartedAt;
+
+        Subscriber(SseEmitter emitter, long next, String staleReason) {
+            this.emitter = emitter;
+            this.next = next;
+            this.staleReason = staleReason;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.docuflow.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración del stream de cambios por SSE (docuflow.changes.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docuflow.changes")
+public class ChangeStreamProperties {
+
+    // Hilos que reparten los cambios (cada suscriptor pertenece a uno)
+    private int dispatcherThreads = 2;
+
+    // Cada cuánto se comprueba si hay cambios nuevos
+    private long pollIntervalMs = 50;
+
+    // Cambios enviados como máximo a un suscriptor en cada pasada
+    private int maxEventsPerPass = 256;
+
+    // Comentario de keep-alive para detectar conexiones muertas
+    private long heartbeatIntervalMs = 15_000;
+
+    // Tiempo máximo de un envío a un suscriptor; pasado el plazo se le
+    // desconecta y reanuda al reconectar con Last-Event-ID
+    private long sendTimeoutMs = 5_000;
+
+    // Vida máxima de una conexión; el cliente reconecta con Last-Event-ID
+    private long emitterTimeoutMs = 30 * 60 * 1000;
+}
@@ -0,0 +1,57 @@
+package com.docuflow.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración de las exportaciones (docuflow.export.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docuflow.export")
+public class ExportProperties {
+
+    // Caché de exportaciones ya generadas (id, versión, formato)
+    private boolean cacheEnabled = true;
+
+    // Tamaño máximo de la caché; al superarlo se descartan las menos usadas
+    private long cacheMaxBytes = 64L * 1024 * 1024;
+
+    private int cacheMaxEntries = 10_000;
+
+    // Las exportaciones más grandes no se guardan (se generan siempre)
+    private int cacheMaxEntryBytes = 1024 * 1024;
+
+    // Comprime una sola vez (gzip) las exportaciones de texto cacheadas o del spool
+    private boolean compressionEnabled = true;
+
+    // Guarda también una copia deflate en la caché para los clientes que la prefieran
+    private boolean compressionDeflate = false;
+
+    // Nivel de compresión (1-9): se paga una vez, no en cada petición
+    private int compressionLevel = 6;
+
+    // Por debajo de este tamaño no compensa comprimir
+    private int compressionMinBytes = 256;
+
+    // Trabajos de exportación que se generan a la vez (hilos virtuales)
+    private int workers = 4;
+
+    // Trabajos en espera; con la cola llena se responde 503
+    private int queueCapacity = 256;
+
+    // Directorio donde se dejan los ficheros exportados para descargarlos
+    private String spoolDirectory = "data/exports";
+
+    // Tiempo que se conservan un trabajo terminado y su fichero
+    private long spoolTtlMs = 60 * 60 * 1000;
+
+    private long cleanupIntervalMs = 60_000;
+
+    // Hilos que generan los documentos de una exportación masiva (0 = núcleos)
+    private int bulkParallelism = 0;
+
+    // Documentos generados por delante del que se está escribiendo en el ZIP
+    private int bulkWindow = 64;
+}
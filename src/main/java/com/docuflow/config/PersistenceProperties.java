@@ -0,0 +1,31 @@
+package com.docuflow.config;
+
+import com.docuflow.persistence.FsyncPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración del modo persistente del repositorio (docuflow.persistence.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docuflow.persistence")
+public class PersistenceProperties {
+
+    private boolean enabled = false;
+
+    private String directory = "data";
+
+    private FsyncPolicy fsync = FsyncPolicy.GROUP;
+
+    // Solo para FsyncPolicy.INTERVAL
+    private long fsyncIntervalMs = 100;
+
+    private long segmentSizeBytes = 64L * 1024 * 1024;
+
+    private long snapshotIntervalMs = 5 * 60 * 1000;
+
+    // Snapshot anticipado si el log crece más de estas entradas
+    private long snapshotEveryEntries = 1_000_000;
+}
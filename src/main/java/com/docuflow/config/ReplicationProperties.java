@@ -0,0 +1,37 @@
+package com.docuflow.config;
+
+import com.docuflow.replication.ReplicationRole;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración de la replicación líder / réplica (docuflow.replication.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docuflow.replication")
+public class ReplicationProperties {
+
+    // NONE | LEADER | FOLLOWER
+    private ReplicationRole role = ReplicationRole.NONE;
+
+    // Dónde escucha el líder (0 = puerto libre cualquiera)
+    private String bindAddress = "0.0.0.0";
+    private int port = 7400;
+
+    // Líder al que se conecta la réplica
+    private String leaderHost = "localhost";
+    private int leaderPort = 7400;
+
+    // Espera del líder cuando no hay cambios nuevos
+    private long pollIntervalMs = 20;
+
+    // Latido del líder; la réplica da la conexión por perdida tras cinco sin recibir nada
+    private long heartbeatIntervalMs = 1000;
+
+    private long reconnectDelayMs = 1000;
+
+    // Cambios enviados por ráfaga antes de vaciar el buffer del socket
+    private int maxBatch = 512;
+}
@@ -0,0 +1,55 @@
+package com.docuflow.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración del repositorio en memoria (docuflow.repository.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docuflow.repository")
+public class RepositoryProperties {
+
+    // Número de particiones (se redondea a potencia de dos)
+    private int shards = 16;
+
+    // IDs que reserva de una vez cada asignador por hilo
+    private int idBlockSize = 1024;
+
+    // Mantiene versiones para lecturas con instantánea (MVCC)
+    private boolean snapshotReads = false;
+
+    // Guarda contenido, encabezado y pie fuera del heap
+    private boolean offHeapBodies = false;
+
+    // Tamaño de cada bloque de memoria directa (potencia de dos)
+    private int offHeapChunkBytes = 64 * 1024 * 1024;
+
+    // Comparte los cuerpos idénticos (hash SHA-256 + contador de referencias)
+    private boolean dedupBodies = false;
+
+    // Cuerpos en niveles caliente / templado (comprimido) / frío (disco)
+    private boolean tieredBodies = false;
+
+    // Presupuesto de memoria de los niveles caliente y templado
+    private long tierHotBudgetBytes = 64L * 1024 * 1024;
+    private long tierWarmBudgetBytes = 256L * 1024 * 1024;
+
+    // Directorio y tamaño de los segmentos del nivel frío
+    private String tierColdDirectory = "data/cold";
+    private long tierSegmentSizeBytes = 64L * 1024 * 1024;
+
+    // Motor de almacenamiento duradero: "memory" (sin persistencia) o "h2"
+    private String engine = "memory";
+
+    // Conexión del motor H2 embebido en modo fichero
+    private String h2Url = "jdbc:h2:file:./data/h2/docuflow";
+    private String h2Username = "sa";
+    private String h2Password = "";
+    private int h2PoolSize = 4;
+
+    // Cambios que conserva el feed de /changes (se redondea a potencia de dos)
+    private int changeFeedCapacity = 65536;
+}
@@ -1,17 +1,46 @@
 package com.docuflow.controllers;
 
 import com.docuflow.dto.request.*;
+import com.docuflow.dto.response.BatchCreateResponse;
+import com.docuflow.dto.response.DocumentListResponse;
 import com.docuflow.dto.response.DocumentResponse;
 import com.docuflow.dto.response.ExportResponse;
+import com.docuflow.dto.response.SearchResponse;
 import com.docuflow.dto.response.TemplateResponse;
 import com.docuflow.dto.mapper.DocumentDTOMapper;
 import com.docuflow.models.*;
+import com.docuflow.repositories.DocumentQuery;
+import com.docuflow.repositories.DocumentSlice;
+import com.docuflow.repositories.DocumentStats;
+import com.docuflow.repositories.QueryPlan;
+import com.docuflow.exports.CachedExport;
+import com.docuflow.exports.ExportCacheUsage;
+import com.docuflow.exports.ExportEncoding;
+import com.docuflow.exports.ExportJob;
+import com.docuflow.replication.ReplicationStatus;
+import com.docuflow.search.SearchResult;
+import com.docuflow.services.DocumentBatchResult;
 import com.docuflow.services.DocumentService;
+import com.docuflow.storage.DedupUsage;
+import com.docuflow.storage.OffHeapUsage;
+import com.docuflow.storage.TierUsage;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +58,9 @@ public class DocumentController {
     private final DocumentService documentService;
     private final DocumentDTOMapper documentMapper;
 
+    // Tamaño de página cuando solo se envía el cursor
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     public DocumentController(DocumentService documentService, DocumentDTOMapper documentMapper) {
         this.documentService = documentService;
         this.documentMapper = documentMapper;
@@ -59,6 +91,21 @@ public class DocumentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * POST /api/documents/simple/batch
+     * Body: [{"type":"INVOICE", ...}, ...]
+     * 201 si se crearon todos; 207 con el detalle por elemento si alguno falló
+     */
+    @PostMapping("/simple/batch")
+    public ResponseEntity<BatchCreateResponse> createSimpleDocuments(
+            @RequestBody List<CreateSimpleDocumentRequest> requests) {
+
+        DocumentBatchResult result = documentService.createSimpleDocuments(requests);
+
+        HttpStatus status = result.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(documentMapper.toBatchCreateResponse(result));
+    }
+
     // ============================================================
     // 🔨 BUILDER PATTERN - Crear documento complejo
     // ============================================================
@@ -114,52 +161,262 @@ public class DocumentController {
     /**
      * ✅ CORRECTO: Usa Abstract Factory para formatos
      * POST /api/documents/export
+     * Exporta contenido puntual sin guardarlo en el repositorio. Encola la
+     * exportación y responde 202 con el trabajo; el estado se consulta en
+     * statusUrl y el fichero se descarga en downloadUrl. Para documentos
+     * existentes: GET /api/documents/{id}/export?format=
      */
     @PostMapping("/export")
     public ResponseEntity<ExportResponse> exportDocument(
             @Valid @RequestBody ExportDocumentRequest request) {
         
-        // Crear documento temporal para exportar
-        Document document = documentService.createSimpleDocument(
-            request.getDocumentType(),
-            request.getDocumentName(),
-            "System",
-            request.getContent()
+        Document document = buildEphemeralDocument(request);
+        
+        // Abstract Factory exporta al formato solicitado, en segundo plano
+        ExportJob job = documentService.submitExport(document, request.getFormatType(), request.getDocumentName());
+        
+        ExportResponse response = new ExportResponse(
+            job.getId(),
+            job.getFileName(),
+            job.getFormat(),
+            ExportController.statusUrl(job),
+            ExportController.downloadUrl(job)
         );
         
-        // Abstract Factory exporta al formato solicitado
-        String exported = documentService.exportDocument(document, request.getFormatType());
+        return ResponseEntity.accepted()
+                .location(URI.create(ExportController.statusUrl(job)))
+                .body(response);
+    }
+
+    /**
+     * POST /api/documents/export/render
+     * Igual que /export pero responde directamente con el fichero, en streaming
+     */
+    @PostMapping("/export/render")
+    public ResponseEntity<StreamingResponseBody> renderExport(
+            @Valid @RequestBody ExportDocumentRequest request) {
+        
+        Document document = buildEphemeralDocument(request);
+        DocumentFormat documentFormat = documentService.resolveFormat(request.getFormatType(), document);
+        
+        StreamingResponseBody body = out -> documentService.exportDocument(document, documentFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(documentFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(request.getDocumentName() + "." + documentFormat.getFileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * POST /api/documents/export/bulk
+     * Body: {"ids":[1,2,3], "formatType":"PDF"} o {"type":"INVOICE", "formatType":"PDF"}
+     * ZIP en streaming con una entrada por documento, en el orden pedido
+     */
+    @PostMapping("/export/bulk")
+    public ResponseEntity<StreamingResponseBody> bulkExport(
+            @Valid @RequestBody BulkExportRequest request) {
+        
+        List<Document> documents = documentService.findDocumentsForExport(request.getIds(), request.getType());
+        DocumentFormat documentFormat = resolveBulkFormat(request, documents);
+        
+        StreamingResponseBody body = out -> documentService.exportArchive(documents, documentFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(documentService.archiveName(documentFormat))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * POST /api/documents/export/bulk/async
+     * Igual que /export/bulk, pero como trabajo: 202 con el estado y la descarga
+     */
+    @PostMapping("/export/bulk/async")
+    public ResponseEntity<ExportResponse> bulkExportAsync(
+            @Valid @RequestBody BulkExportRequest request) {
+        
+        List<Document> documents = documentService.findDocumentsForExport(request.getIds(), request.getType());
+        ExportJob job = documentService.submitArchiveExport(documents, resolveBulkFormat(request, documents));
         
         ExportResponse response = new ExportResponse(
-            request.getDocumentName() + "." + request.getFormatType().toLowerCase(),
-            request.getFormatType(),
-            "/downloads/" + document.getId()
+            job.getId(),
+            job.getFileName(),
+            job.getFormat(),
+            ExportController.statusUrl(job),
+            ExportController.downloadUrl(job)
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.accepted()
+                .location(URI.create(ExportController.statusUrl(job)))
+                .body(response);
+    }
+
+    /**
+     * GET /api/documents/export/spreadsheet?type=INVOICE
+     * Libro XLSX con una fila por documento (sin type: todos), en streaming
+     */
+    @GetMapping("/export/spreadsheet")
+    public ResponseEntity<StreamingResponseBody> exportSpreadsheet(
+            @RequestParam(required = false) String type) {
+        
+        ExcelFormat excel = documentService.resolveSpreadsheetFormat(type);
+        String fileName = "documents" + (type != null ? "-" + type.trim().toLowerCase() : "") + ".xlsx";
+        StreamingResponseBody body = out -> documentService.exportSpreadsheet(excel, type, out);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(excel.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * GET /api/documents/{id}/export?format=PDF
+     * Descarga la exportación de un documento existente como respuesta
+     * chunked: se escribe mientras se genera, sin construirla en memoria.
+     * Con If-None-Match / If-Modified-Since vigentes responde 304 sin exportar.
+     * Si ya está en caché comprimida y el cliente acepta gzip (o deflate) se
+     * envían esos bytes con Content-Encoding y ETag "<versión>-<ext>-gzip"
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> streamExport(
+            @PathVariable Long id,
+            @RequestParam String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest,
+            HttpServletResponse servletResponse) {
+        
+        Document document = documentService.getDocumentById(id);
+        DocumentFormat documentFormat = documentService.resolveFormat(format, document);
+        CachedExport cached = documentService.findCachedExport(document, documentFormat);
+        ExportEncoding encoding = cached != null ? cached.encodingFor(acceptEncoding) : null;
+
+        // La representación depende de Accept-Encoding, también en el 304
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String variant = documentFormat.getFileExtension() + (encoding != null ? "-" + encoding.token() : "");
+        if (notModified(webRequest, document.getETag(variant), document.getModifiedAt())) {
+            return null;
+        }
+        
+        StreamingResponseBody body = cached != null
+                ? out -> documentService.writeCachedExport(cached, encoding, out)
+                : out -> documentService.exportDocument(document, documentFormat, out);
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(documentFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("document-" + id + "." + documentFormat.getFileExtension())
+                        .build()
+                        .toString());
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        }
+        return response.body(body);
     }
 
     // ============================================================
     // 📖 CRUD - Operaciones básicas
     // ============================================================
 
+    /**
+     * GET /api/documents                      -> lista completa (compatibilidad)
+     * GET /api/documents?limit=50&after=...   -> página con cursor opaco
+     */
     @GetMapping
-    public ResponseEntity<List<DocumentResponse>> getAllDocuments() {
-        List<Document> documents = documentService.getAllDocuments();
-        
-        List<DocumentResponse> responses = documents.stream()
-                .map(doc -> documentMapper.toDocumentResponse(
+    public ResponseEntity<?> getAllDocuments(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
+        if (limit != null || after != null) {
+            DocumentSlice slice = documentService.getDocumentsPage(
+                documentMapper.decodeCursor(after),
+                limit != null ? limit : DEFAULT_PAGE_SIZE
+            );
+            return ResponseEntity.ok(documentMapper.toDocumentListResponse(slice));
+        }
+
+        List<DocumentResponse> responses = documentService.mapAllDocuments(
+                doc -> documentMapper.toDocumentResponse(
                     doc, 
                     documentMapper.determinePatternUsed(doc)
-                ))
-                .collect(Collectors.toList());
+                ));
         
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * GET /api/documents/search?q=factura OR recibo&limit=10
+     * Términos separados por espacios = AND, "OR" entre grupos, "frases" entre comillas
+     */
+    @GetMapping("/search")
+    public ResponseEntity<SearchResponse> searchDocuments(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
+        SearchResult result = documentService.searchDocuments(q, limit);
+        return ResponseEntity.ok(documentMapper.toSearchResponse(q, result, documentService::findDocument));
+    }
+
+    /**
+     * GET /api/documents/query?type=INVOICE&author=Ana&titlePrefix=fac&createdFrom=2025-01-01T00:00:00
+     * Predicados combinables (AND); responde paginado y con el plan elegido en X-Query-Plan
+     */
+    @GetMapping("/query")
+    public ResponseEntity<DocumentListResponse> queryDocuments(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
+        DocumentQuery query = DocumentQuery.builder()
+                .type(type)
+                .author(author)
+                .titlePrefix(titlePrefix)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+
+        QueryPlan plan = documentService.planQuery(query);
+        DocumentSlice slice = documentService.queryDocuments(query, plan, documentMapper.decodeCursor(after), limit);
+
+        return ResponseEntity.ok()
+                .header("X-Query-Plan", plan.toString())
+                .body(documentMapper.toDocumentListResponse(slice));
+    }
+
+    /**
+     * GET /api/documents/{id}
+     * ETag de la versión y Last-Modified; 304 sin mapear si el cliente ya lo tiene
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<DocumentResponse> getDocumentById(@PathVariable Long id) {
+    public ResponseEntity<DocumentResponse> getDocumentById(@PathVariable Long id, WebRequest webRequest) {
         Document document = documentService.getDocumentById(id);
+        if (notModified(webRequest, document.getETag(), document.getModifiedAt())) {
+            return null;
+        }
         
         DocumentResponse response = documentMapper.toDocumentResponse(
             document,
@@ -169,20 +426,27 @@ public class DocumentController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * PUT /api/documents/{id}
+     * Header opcional If-Match: "3" (o el ETag) -> 409 si la versión actual no es la 3
+     */
     @PutMapping("/{id}")
     public ResponseEntity<DocumentResponse> updateDocument(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateDocumentRequest request) {
         
         request.setId(id);
-        Document updated = documentService.updateDocument(request);
+        Document updated = documentService.updateDocument(request, parseIfMatch(ifMatch));
         
         DocumentResponse response = documentMapper.toDocumentResponse(
             updated,
             "Document Updated"
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(updated.getETag())
+                .body(response);
     }
 
     @DeleteMapping("/{id}")
@@ -192,15 +456,30 @@ public class DocumentController {
     }
 
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<DocumentResponse>> getDocumentsByType(@PathVariable String type) {
-        List<Document> documents = documentService.getDocumentsByType(type);
-        
-        List<DocumentResponse> responses = documents.stream()
-                .map(doc -> documentMapper.toDocumentResponse(
+    public ResponseEntity<?> getDocumentsByType(
+            @PathVariable String type,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
+        if (limit != null || after != null) {
+            DocumentSlice slice = documentService.getDocumentsByTypePage(
+                type,
+                documentMapper.decodeCursor(after),
+                limit != null ? limit : DEFAULT_PAGE_SIZE
+            );
+            return ResponseEntity.ok(documentMapper.toDocumentListResponse(slice));
+        }
+
+        List<DocumentResponse> responses = documentService.mapDocumentsByType(
+                type,
+                doc -> documentMapper.toDocumentResponse(
                     doc,
                     documentMapper.determinePatternUsed(doc)
-                ))
-                .collect(Collectors.toList());
+                ));
         
         return ResponseEntity.ok(responses);
     }
@@ -231,8 +510,153 @@ public class DocumentController {
     // ============================================================
 
     @GetMapping("/count")
-    public ResponseEntity<Long> countDocuments() {
+    public ResponseEntity<Long> countDocuments(WebRequest webRequest) {
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
         long count = documentService.countDocuments();
         return ResponseEntity.ok(count);
     }
-}
\ No newline at end of file
+
+    /**
+     * Totales por tipo, autor y patrón y bytes de contenido, sin recorrer los documentos
+     * GET /api/documents/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<DocumentStats> getStats(WebRequest webRequest) {
+        if (notModified(webRequest, documentService.getListETag(), null)) {
+            return null;
+        }
+        return ResponseEntity.ok(documentService.getStats());
+    }
+
+    /**
+     * Uso de memoria off-heap de los cuerpos (204 si el modo está desactivado)
+     */
+    @GetMapping("/storage/off-heap")
+    public ResponseEntity<OffHeapUsage> getOffHeapUsage() {
+        OffHeapUsage usage = documentService.getOffHeapUsage();
+        return usage != null ? ResponseEntity.ok(usage) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Tamaño, aciertos y latencia de promoción por nivel (204 si el modo está desactivado)
+     */
+    @GetMapping("/storage/tiers")
+    public ResponseEntity<TierUsage> getTierUsage() {
+        TierUsage usage = documentService.getTierUsage();
+        return usage != null ? ResponseEntity.ok(usage) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Ratio de deduplicación y bytes ahorrados (204 si el modo está desactivado)
+     */
+    @GetMapping("/storage/dedup")
+    public ResponseEntity<DedupUsage> getDedupUsage() {
+        DedupUsage usage = documentService.getDedupUsage();
+        return usage != null ? ResponseEntity.ok(usage) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Aciertos, fallos y descartes de la caché de exportaciones (204 si está desactivada)
+     * GET /api/documents/export-cache
+     */
+    @GetMapping("/export-cache")
+    public ResponseEntity<ExportCacheUsage> getExportCacheUsage() {
+        ExportCacheUsage usage = documentService.getExportCacheUsage();
+        return usage != null ? ResponseEntity.ok(usage) : ResponseEntity.noContent().build();
+    }
+
+    // ============================================================
+    // 📡 CAMBIOS (SSE)
+    // ============================================================
+
+    /**
+     * GET /api/documents/changes
+     * Eventos "change" con id = "<época>-<secuencia>". Para reanudar se envía
+     * Last-Event-ID; si esa secuencia ya no está disponible (o es de otro
+     * arranque) llega un evento "resync" y el cliente debe recargar la lista
+     * antes de reconectar.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return documentService.subscribeToChanges(lastEventId);
+    }
+
+    /**
+     * Papel, secuencias y retraso de la replicación (204 si está desactivada)
+     * GET /api/documents/replication
+     */
+    @GetMapping("/replication")
+    public ResponseEntity<ReplicationStatus> getReplicationStatus() {
+        ReplicationStatus status = documentService.getReplicationStatus();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.noContent().build();
+    }
+
+    // ============================================================
+    // 🔧 AUXILIARES
+    // ============================================================
+
+    // Documento efímero (no se guarda) con el contenido de la petición
+    private Document buildEphemeralDocument(ExportDocumentRequest request) {
+        return documentService.buildSimpleDocument(
+            request.getDocumentType(),
+            request.getDocumentName(),
+            "System",
+            request.getContent()
+        );
+    }
+
+    private DocumentFormat resolveBulkFormat(BulkExportRequest request, List<Document> documents) {
+        return documentService.resolveFormat(
+                request.getFormatType(), documents.isEmpty() ? null : documents.get(0));
+    }
+
+    /**
+     * If-Match: "3" | "<arranque>-3" | lista separada por comas | * ->
+     * versiones aceptadas (null = cualquiera). La comparación es fuerte
+     * (RFC 9110): un ETag débil W/"3" no coincide nunca, y tampoco uno de
+     * otro arranque, porque sin almacenamiento duradero las versiones
+     * vuelven a empezar. Si ninguno puede coincidir la lista queda vacía y
+     * la actualización da conflicto.
+     */
+    private List<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String part : ifMatch.split(",")) {
+            String tag = part.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.startsWith("W/")) {
+                continue;
+            }
+            String value = tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")
+                    ? tag.substring(1, tag.length() - 1)
+                    : tag;
+            try {
+                int separator = value.indexOf('-');
+                if (separator < 0) {
+                    versions.add(Long.parseLong(value));
+                } else if (Long.parseLong(value.substring(0, separator)) == documentService.getETagEpoch()) {
+                    versions.add(Long.parseLong(value.substring(separator + 1)));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Petición condicional (If-None-Match / If-Modified-Since): true si el
+     * cliente ya tiene la representación y se ha respondido 304; si no, deja
+     * ETag y Last-Modified en la respuesta. Va antes de mapear o serializar.
+     */
+    private static boolean notModified(WebRequest webRequest, String eTag, Instant modifiedAt) {
+        return webRequest.checkNotModified(eTag, modifiedAt != null ? modifiedAt.toEpochMilli() : -1);
+    }
+}
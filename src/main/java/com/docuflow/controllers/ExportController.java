@@ -0,0 +1,111 @@
+package com.docuflow.controllers;
+
+import com.docuflow.dto.response.ExportJobResponse;
+import com.docuflow.exports.ExportEncoding;
+import com.docuflow.exports.ExportJob;
+import com.docuflow.exports.ExportJobStatus;
+import com.docuflow.services.DocumentService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+
+/**
+ * Controlador REST de los trabajos de exportación asíncronos
+ */
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final DocumentService documentService;
+
+    public ExportController(DocumentService documentService) {
+        this.documentService = documentService;
+    }
+
+    /**
+     * GET /api/exports/{jobId}
+     * Estado y progreso del trabajo (404 si no existe o ya caducó)
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ExportJobResponse> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(toResponse(documentService.getExportJob(jobId)));
+    }
+
+    /**
+     * GET /api/exports/{jobId}/download
+     * Fichero generado; 409 con el estado mientras el trabajo no ha terminado.
+     * Si se guardó comprimido se envía tal cual (Content-Encoding) a quien lo
+     * acepte y se descomprime al vuelo para el resto
+     */
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> download(
+            @PathVariable String jobId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        ExportJob job = documentService.getExportJob(jobId);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(toResponse(job));
+        }
+
+        ExportEncoding stored = job.getEncoding();
+        ExportEncoding encoding = stored != null ? ExportEncoding.negotiate(acceptEncoding, Set.of(stored)) : null;
+        Resource file = stored != null && encoding == null
+                ? new InputStreamResource(stored.decompressing(Files.newInputStream(job.getFile())))
+                : new FileSystemResource(job.getFile());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.getFileName())
+                        .build()
+                        .toString());
+        if (stored != null) {
+            response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        }
+        return response.body(file);
+    }
+
+    // ============================================================
+    // 🔧 AUXILIARES
+    // ============================================================
+
+    static String statusUrl(ExportJob job) {
+        return "/api/exports/" + job.getId();
+    }
+
+    static String downloadUrl(ExportJob job) {
+        return statusUrl(job) + "/download";
+    }
+
+    private static ExportJobResponse toResponse(ExportJob job) {
+        return new ExportJobResponse(
+                job.getId(),
+                job.getStatus().name(),
+                job.getProgress(),
+                job.getCompletedItems(),
+                job.getTotalItems(),
+                job.getBytesWritten(),
+                job.getStoredBytes(),
+                job.getEncoding() != null ? job.getEncoding().token() : null,
+                job.getFileName(),
+                job.getFormat(),
+                job.getCreatedAt(),
+                job.getFinishedAt(),
+                job.getError(),
+                job.getStatus() == ExportJobStatus.COMPLETED ? downloadUrl(job) : null
+        );
+    }
+}
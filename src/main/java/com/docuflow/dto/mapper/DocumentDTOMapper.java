@@ -1,10 +1,23 @@
 package com.docuflow.dto.mapper;
 
+import com.docuflow.dto.response.BatchCreateResponse;
+import com.docuflow.dto.response.DocumentListResponse;
 import com.docuflow.dto.response.DocumentResponse;
+import com.docuflow.dto.response.SearchResponse;
 import com.docuflow.dto.response.TemplateResponse;
 import com.docuflow.models.*;
+import com.docuflow.repositories.DocumentSlice;
+import com.docuflow.search.SearchHit;
+import com.docuflow.search.SearchResult;
+import com.docuflow.services.DocumentBatchResult;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * ✅ CORRECTO: Ahora es un @Component
  */
@@ -20,7 +33,8 @@ public class DocumentDTOMapper {
                 document.getAuthor(),
                 document.getType(),
                 document.getContent(),
-                patternUsed
+                patternUsed,
+                document.getVersion()
         );
     }
 
@@ -33,7 +47,8 @@ public class DocumentDTOMapper {
                 document.getAuthor(),
                 document.getType(),
                 document.generateDocument(), // Contenido generado
-                patternUsed
+                patternUsed,
+                document.getVersion()
         );
     }
 
@@ -46,7 +61,8 @@ public class DocumentDTOMapper {
                 template.getAuthor(),
                 "TEMPLATE",
                 template.getContent(),
-                patternUsed
+                patternUsed,
+                template.getVersion()
         );
     }
 
@@ -62,16 +78,84 @@ public class DocumentDTOMapper {
         );
     }
 
-    public String determinePatternUsed(Document document) {
-        if (document instanceof DocumentTemplate) {
-            return "Prototype Pattern";
-        } else if (document instanceof ComplexDocument) {
-            return "Builder Pattern";
-        } else if (document instanceof Contract ||
-                   document instanceof Report ||
-                   document instanceof Invoice) {
-            return "Factory Pattern";
+    public BatchCreateResponse toBatchCreateResponse(DocumentBatchResult result) {
+        List<BatchCreateResponse.Item> items = new ArrayList<>(result.getItems().size());
+        for (DocumentBatchResult.Item item : result.getItems()) {
+            items.add(item.isSuccess()
+                    ? new BatchCreateResponse.Item(item.getIndex(), "CREATED", item.getDocument().getId(), null)
+                    : new BatchCreateResponse.Item(item.getIndex(), "FAILED", null, item.getErrors()));
+        }
+        return new BatchCreateResponse(result.getCreated(), result.getFailed(), items);
+    }
+
+    public DocumentListResponse.DocumentSummary toDocumentSummary(Document document) {
+        if (document == null) return null;
+
+        return new DocumentListResponse.DocumentSummary(
+                document.getId(),
+                document.getType(),
+                document.getTitle(),
+                document.getCreatedAt()
+        );
+    }
+
+    public DocumentListResponse toDocumentListResponse(DocumentSlice slice) {
+        List<DocumentListResponse.DocumentSummary> summaries = new ArrayList<>(slice.getDocuments().size());
+        for (Document document : slice.getDocuments()) {
+            summaries.add(toDocumentSummary(document));
         }
-        return "Unknown Pattern";
+
+        DocumentListResponse response = new DocumentListResponse(summaries, null);
+        response.setHasMore(slice.hasMore());
+        response.setNextCursor(slice.hasMore() ? encodeCursor(slice.getLastId()) : null);
+        return response;
+    }
+
+    /**
+     * Resultados de búsqueda; los documentos borrados entre la consulta y
+     * la lectura se omiten
+     */
+    public SearchResponse toSearchResponse(String query, SearchResult result, Function<Long, Document> lookup) {
+        List<SearchResponse.Hit> hits = new ArrayList<>(result.getHits().size());
+        for (SearchHit hit : result.getHits()) {
+            Document document = lookup.apply(hit.getDocumentId());
+            if (document != null) {
+                hits.add(new SearchResponse.Hit(
+                        document.getId(),
+                        document.getTitle(),
+                        document.getAuthor(),
+                        document.getType(),
+                        hit.getScore()
+                ));
+            }
+        }
+        return new SearchResponse(query, result.getTotalMatches(), hits);
+    }
+
+    // 🔹 Cursor opaco: el cliente no debe depender de que contenga un ID
+    public String encodeCursor(Long lastId) {
+        if (lastId == null) return null;
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("id:" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith("id:")) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(decoded.substring(3));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException también es IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String determinePatternUsed(Document document) {
+        return Document.creationPatternOf(document);
     }
 }
@@ -0,0 +1,27 @@
+package com.docuflow.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO para exportar varios documentos en un único ZIP:
+ * por lista de IDs o por tipo (uno de los dos).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkExportRequest {
+
+    private List<Long> ids; // 🔹 En el orden en que se quieren en el ZIP
+
+    private String type; // 🔹 Alternativa a ids: todos los de ese tipo, por ID
+
+    @NotBlank
+    @Pattern(regexp = "PDF|WORD|EXCEL", message = "Format type must be one of PDF, WORD or EXCEL")
+    private String formatType;
+}
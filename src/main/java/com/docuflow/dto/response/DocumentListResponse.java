@@ -11,6 +11,8 @@ public class DocumentListResponse {
     private List<DocumentSummary> documents;
     private int totalCount;
     private String message;
+    private String nextCursor;
+    private boolean hasMore;
 
     // Constructors
     public DocumentListResponse() {}
@@ -43,6 +45,22 @@ public class DocumentListResponse {
         this.message = message;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
     // Clase interna para resúmenes de documentos
     public static class DocumentSummary {
         private Long id;
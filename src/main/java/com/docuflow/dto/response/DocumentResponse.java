@@ -14,4 +14,5 @@ public class DocumentResponse {
     private String type;      // ✅ lo usa el mapper (getType)
     private String content;
     private String patternUsed; // ✅ lo usa el mapper (setPatternUsed)
+    private long version;       // ✅ para If-Match en las actualizaciones
 }
@@ -0,0 +1,27 @@
+package com.docuflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+    private String jobId;
+    private String status; // QUEUED | RUNNING | COMPLETED | FAILED
+    private double progress;
+    private long completedItems;
+    private long totalItems;
+    private long bytesWritten;
+    private long storedBytes; // 🔹 Tamaño en el spool (comprimido si encoding != null)
+    private String encoding;
+    private String fileName;
+    private String format;
+    private Instant createdAt;
+    private Instant finishedAt;
+    private String error;
+    private String downloadUrl; // 🔹 Solo cuando status = COMPLETED
+}
@@ -8,7 +8,9 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 public class ExportResponse {
+    private String jobId;
     private String fileName;
     private String format;
-    private String downloadUrl;
+    private String statusUrl;   // 🔹 Estado y progreso del trabajo
+    private String downloadUrl; // 🔹 Disponible cuando el trabajo termina
 }
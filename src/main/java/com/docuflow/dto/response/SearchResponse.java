@@ -0,0 +1,27 @@
+package com.docuflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    private String query;
+    private int totalMatches;
+    private List<Hit> hits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private Long id;
+        private String title;
+        private String author;
+        private String type;
+        private double score;
+    }
+}
@@ -0,0 +1,32 @@
+package com.docuflow.exceptions;
+
+/**
+ * Excepción lanzada cuando la versión esperada (If-Match) no coincide con
+ * la versión actual del documento
+ */
+public class DocumentVersionConflictException extends RuntimeException {
+    
+    private final Long documentId;
+    private final long expectedVersion;
+    private final long currentVersion;
+    
+    public DocumentVersionConflictException(Long documentId, long expectedVersion, long currentVersion) {
+        super("Version conflict for document " + documentId
+                + ": expected version " + expectedVersion + " but current is " + currentVersion);
+        this.documentId = documentId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+    
+    public Long getDocumentId() {
+        return documentId;
+    }
+    
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+    
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
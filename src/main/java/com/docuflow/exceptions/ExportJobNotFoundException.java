@@ -0,0 +1,18 @@
+package com.docuflow.exceptions;
+
+/**
+ * Excepción lanzada cuando no existe el trabajo de exportación (o ya caducó)
+ */
+public class ExportJobNotFoundException extends RuntimeException {
+
+    private final String jobId;
+
+    public ExportJobNotFoundException(String jobId) {
+        super("Export job not found: " + jobId);
+        this.jobId = jobId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.docuflow.exceptions;
+
+/**
+ * Excepción lanzada cuando la cola de trabajos de exportación está llena
+ */
+public class ExportQueueFullException extends RuntimeException {
+
+    public ExportQueueFullException(int capacity) {
+        super("Export queue is full (" + capacity + " pending jobs), retry later");
+    }
+}
@@ -55,6 +55,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    /**
+     * Maneja DocumentVersionConflictException (If-Match no coincide)
+     */
+    @ExceptionHandler(DocumentVersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflict(
+            DocumentVersionConflictException ex,
+            WebRequest request) {
+        
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage()
+        );
+        error.setPath(request.getDescription(false).replace("uri=", ""));
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    /**
+     * Maneja ReadOnlyReplicaException (escritura enviada a una réplica)
+     */
+    @ExceptionHandler(ReadOnlyReplicaException.class)
+    public ResponseEntity<ErrorResponse> handleReadOnlyReplica(
+            ReadOnlyReplicaException ex,
+            WebRequest request) {
+        
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Read-only replica",
+                ex.getMessage()
+        );
+        error.setPath(request.getDescription(false).replace("uri=", ""));
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
     /**
      * Maneja ExportException
      */
@@ -73,6 +109,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
     
+    /**
+     * Maneja ExportJobNotFoundException (trabajo inexistente o caducado)
+     */
+    @ExceptionHandler(ExportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleExportJobNotFound(
+            ExportJobNotFoundException ex,
+            WebRequest request) {
+        
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Not Found",
+                ex.getMessage()
+        );
+        error.setPath(request.getDescription(false).replace("uri=", ""));
+        
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
+    /**
+     * Maneja ExportQueueFullException (demasiadas exportaciones pendientes)
+     */
+    @ExceptionHandler(ExportQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleExportQueueFull(
+            ExportQueueFullException ex,
+            WebRequest request) {
+        
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage()
+        );
+        error.setPath(request.getDescription(false).replace("uri=", ""));
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+    
     /**
      * Maneja errores de validación (@Valid)
      */
@@ -0,0 +1,15 @@
+package com.docuflow.exceptions;
+
+/**
+ * Excepción lanzada cuando falla la escritura o lectura del almacenamiento en disco
+ */
+public class PersistenceException extends RuntimeException {
+    
+    public PersistenceException(String message) {
+        super(message);
+    }
+    
+    public PersistenceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.docuflow.exceptions;
+
+/**
+ * Excepción lanzada cuando se intenta escribir en una réplica de solo lectura
+ */
+public class ReadOnlyReplicaException extends RuntimeException {
+
+    public ReadOnlyReplicaException() {
+        super("This instance is a read-only replica; send writes to the leader");
+    }
+}
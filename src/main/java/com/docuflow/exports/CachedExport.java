@@ -0,0 +1,93 @@
+package com.docuflow.exports;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exportación guardada en la caché.
+ *
+ * Si la compresión compensa se guarda solo comprimida (gzip y, si está
+ * activado, también deflate) y se descomprime para los clientes que no la
+ * aceptan; si no, se guarda tal cual. Junto a cada codificación se anota
+ * lo que costó comprimirla, que es lo que se ahorra cada vez que se sirve.
+ */
+public final class CachedExport {
+
+    private final byte[] identity;
+    private final Map<ExportEncoding, byte[]> encoded;
+    private final Map<ExportEncoding, Long> compressionNanos;
+    private final int length;
+    private final long storedBytes;
+
+    private CachedExport(byte[] identity, Map<ExportEncoding, byte[]> encoded,
+                         Map<ExportEncoding, Long> compressionNanos, int length) {
+        this.identity = identity;
+        this.encoded = encoded;
+        this.compressionNanos = compressionNanos;
+        this.length = length;
+        long stored = identity != null ? identity.length : 0;
+        for (byte[] bytes : encoded.values()) {
+            stored += bytes.length;
+        }
+        this.storedBytes = stored;
+    }
+
+    static CachedExport uncompressed(byte[] content) {
+        return new CachedExport(content, Map.of(), Map.of(), content.length);
+    }
+
+    /**
+     * Comprime una sola vez en cada codificación; si gzip no reduce el
+     * tamaño se guarda sin comprimir
+     */
+    static CachedExport compress(byte[] content, Set<ExportEncoding> encodings, int level) {
+        Map<ExportEncoding, byte[]> encoded = new EnumMap<>(ExportEncoding.class);
+        Map<ExportEncoding, Long> nanos = new EnumMap<>(ExportEncoding.class);
+        for (ExportEncoding encoding : encodings) {
+            long start = System.nanoTime();
+            byte[] compressed = encoding.compress(content, level);
+            nanos.put(encoding, System.nanoTime() - start);
+            if (encoding == ExportEncoding.GZIP && compressed.length >= content.length) {
+                return uncompressed(content);
+            }
+            encoded.put(encoding, compressed);
+        }
+        return new CachedExport(null, encoded, nanos, content.length);
+    }
+
+    /**
+     * Codificación con la que servir a este cliente; null = sin comprimir
+     */
+    public ExportEncoding encodingFor(String acceptEncoding) {
+        return encoded.isEmpty() ? null : ExportEncoding.negotiate(acceptEncoding, encoded.keySet());
+    }
+
+    public boolean isCompressed() {
+        return identity == null;
+    }
+
+    // Bytes en la codificación indicada (null = sin comprimir, solo si se guardó así)
+    byte[] bytes(ExportEncoding encoding) {
+        return encoding == null ? identity : encoded.get(encoding);
+    }
+
+    // Tiempo que costó comprimir en esa codificación
+    long compressionNanos(ExportEncoding encoding) {
+        return compressionNanos.getOrDefault(encoding, 0L);
+    }
+
+    long totalCompressionNanos() {
+        long total = 0;
+        for (long nanos : compressionNanos.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    // Tamaño sin comprimir
+    public int getLength() { return length; }
+
+    // Bytes que ocupa en la caché (todas las codificaciones)
+    public long getStoredBytes() { return storedBytes; }
+}
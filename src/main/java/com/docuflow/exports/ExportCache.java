@@ -0,0 +1,350 @@
+package com.docuflow.exports;
+
+import com.docuflow.config.ExportProperties;
+import com.docuflow.models.Document;
+import com.docuflow.models.DocumentFormat;
+import com.docuflow.repositories.DocumentMutation;
+import com.docuflow.repositories.DocumentMutationListener;
+import com.docuflow.repositories.DocumentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de exportaciones ya generadas, por (id, versión, formato).
+ *
+ * Guarda los bytes de la exportación en streaming (la que se descarga) y
+ * los sirve tal cual mientras el documento no cambie. La vista de texto de
+ * {@link DocumentFormat#export(Document)} no se cachea: para formatos
+ * binarios como EXCEL no coincide con la descarga. Se descartan las
+ * entradas menos usadas al superar el
+ * tamaño o el número máximo, y las de un documento al actualizarlo o
+ * borrarlo (se registra como observador del repositorio). Una exportación
+ * que termina después de la actualización queda con la versión vieja en la
+ * clave: nunca se sirve y la sustituye la siguiente versión que se guarde.
+ *
+ * Los documentos sin id (exportaciones efímeras) no se cachean.
+ *
+ * Las exportaciones de texto se comprimen una sola vez al guardarlas
+ * ({@link CachedExport}): a los clientes que aceptan gzip (o deflate) se
+ * les envían esos bytes directamente y solo se descomprime para los que no.
+ */
+@Component
+public class ExportCache implements DocumentMutationListener, SmartInitializingSingleton {
+
+    private record Key(long id, long version, String format) {
+    }
+
+    private final DocumentRepository repository;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxEntries;
+    private final int maxEntryBytes;
+    private final boolean compression;
+    private final Set<ExportEncoding> encodings;
+    private final int compressionLevel;
+    private final int compressionMinBytes;
+
+    // Orden de acceso (LRU); todo el estado se protege con el monitor de
+    // entries, salvo quitar un id de keysById: así una escritura sobre un
+    // documento sin exportaciones en caché no toma el monitor
+    private final LinkedHashMap<Key, CachedExport> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, Set<Key>> keysById = new ConcurrentHashMap<>();
+    private long bytes;
+    private long rawBytes;
+    private long compressedEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder decompressedResponses = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder savedCompressionNanos = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    public ExportCache(DocumentRepository repository, ExportProperties properties) {
+        this.repository = repository;
+        this.enabled = properties.isCacheEnabled();
+        this.maxBytes = properties.getCacheMaxBytes();
+        this.maxEntries = properties.getCacheMaxEntries();
+        this.maxEntryBytes = properties.getCacheMaxEntryBytes();
+        this.compression = properties.isCompressionEnabled();
+        this.encodings = properties.isCompressionDeflate()
+                ? EnumSet.of(ExportEncoding.GZIP, ExportEncoding.DEFLATE)
+                : EnumSet.of(ExportEncoding.GZIP);
+        this.compressionLevel = properties.getCompressionLevel();
+        this.compressionMinBytes = properties.getCompressionMinBytes();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            repository.addMutationListener(this);
+        }
+    }
+
+    @Override
+    public void onMutation(DocumentMutation mutation) {
+        invalidate(mutation.getDocumentId());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // =====================================================
+    // EXPORTACIÓN
+    // =====================================================
+
+    /**
+     * Exportación en streaming: si no está en caché se genera en {@code out}
+     * y a la vez se copia, hasta el tamaño máximo por entrada; las más
+     * grandes siguen saliendo en streaming sin guardarse
+     */
+    public void export(Document document, DocumentFormat format, OutputStream out) throws IOException {
+        if (!cacheable(document)) {
+            format.export(document, out);
+            return;
+        }
+        Key key = keyOf(document, format);
+        CachedExport cached = get(key);
+        if (cached != null) {
+            write(cached, null, out);
+            return;
+        }
+        misses.increment();
+        CapturingOutputStream capture = new CapturingOutputStream(out, maxEntryBytes);
+        format.export(document, capture);
+        capture.flush();
+        byte[] captured = capture.captured();
+        if (captured != null) {
+            put(key, encode(captured, format.getContentType()));
+        }
+    }
+
+    /**
+     * Exportación ya guardada del documento, sin generarla; null si no está.
+     * Permite elegir Content-Encoding y ETag antes de escribir la respuesta.
+     */
+    public CachedExport lookup(Document document, DocumentFormat format) {
+        return cacheable(document) ? get(keyOf(document, format)) : null;
+    }
+
+    /**
+     * Escribe una exportación de la caché en la codificación negociada
+     * (null = sin comprimir, descomprimiendo si solo se guardó comprimida)
+     */
+    public void write(CachedExport cached, ExportEncoding encoding, OutputStream out) throws IOException {
+        hits.increment();
+        if (encoding != null) {
+            out.write(cached.bytes(encoding));
+            compressedResponses.increment();
+            savedCompressionNanos.add(cached.compressionNanos(encoding));
+            return;
+        }
+        if (!cached.isCompressed()) {
+            out.write(cached.bytes(null));
+            return;
+        }
+        long start = System.nanoTime();
+        try (InputStream in = ExportEncoding.GZIP.decompressing(
+                new ByteArrayInputStream(cached.bytes(ExportEncoding.GZIP)))) {
+            in.transferTo(out);
+        }
+        decompressedResponses.increment();
+        decompressionNanos.add(System.nanoTime() - start);
+    }
+
+    // =====================================================
+    // ENTRADAS
+    // =====================================================
+
+    /**
+     * Descarta todas las exportaciones del documento. Se llama en cada
+     * escritura: el id se quita sin bloqueo y el monitor solo se toma si
+     * había algo en caché. Un put que ya tenía el conjunto lo rellena con el
+     * monitor tomado, así que sus claves se borran igualmente aquí.
+     */
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        Set<Key> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        synchronized (entries) {
+            for (Key key : keys) {
+                CachedExport removed = entries.remove(key);
+                if (removed != null) {
+                    release(removed);
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            keysById.clear();
+            bytes = 0;
+            rawBytes = 0;
+            compressedEntries = 0;
+        }
+    }
+
+    public ExportCacheUsage usage() {
+        synchronized (entries) {
+            return new ExportCacheUsage(
+                    entries.size(), bytes, maxBytes,
+                    hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(),
+                    compressedEntries, rawBytes,
+                    compressedResponses.sum(), decompressedResponses.sum(),
+                    compressionNanos.sum(), savedCompressionNanos.sum(), decompressionNanos.sum());
+        }
+    }
+
+    /**
+     * Los aciertos se cuentan al escribir ({@link #write}) y los fallos al
+     * generar: una consulta que acaba en 304 no cuenta
+     */
+    private CachedExport get(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Comprime fuera del monitor: es lo caro y solo se hace una vez por entrada
+     */
+    private CachedExport encode(byte[] content, String contentType) {
+        if (!compression || content.length < compressionMinBytes || !ExportEncoding.isCompressible(contentType)) {
+            return CachedExport.uncompressed(content);
+        }
+        CachedExport cached = CachedExport.compress(content, encodings, compressionLevel);
+        compressionNanos.add(cached.totalCompressionNanos());
+        return cached;
+    }
+
+    private void put(Key key, CachedExport value) {
+        synchronized (entries) {
+            Set<Key> siblings = keysById.computeIfAbsent(key.id(), id -> new HashSet<>());
+            // Sólo convive la versión más reciente de cada documento
+            Iterator<Key> it = siblings.iterator();
+            while (it.hasNext()) {
+                Key sibling = it.next();
+                if (sibling.version() > key.version()) {
+                    return;
+                }
+                if (sibling.version() < key.version()) {
+                    it.remove();
+                    CachedExport removed = entries.remove(sibling);
+                    if (removed != null) {
+                        release(removed);
+                        invalidations.increment();
+                    }
+                }
+            }
+            CachedExport previous = entries.put(key, value);
+            if (previous != null) {
+                release(previous);
+            }
+            siblings.add(key);
+            bytes += value.getStoredBytes();
+            rawBytes += value.getLength();
+            if (value.isCompressed()) {
+                compressedEntries++;
+            }
+            evictIfNeeded();
+        }
+    }
+
+    // Descuenta una entrada que sale de la caché (con el monitor tomado)
+    private void release(CachedExport removed) {
+        bytes -= removed.getStoredBytes();
+        rawBytes -= removed.getLength();
+        if (removed.isCompressed()) {
+            compressedEntries--;
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, CachedExport>> it = entries.entrySet().iterator();
+        while ((bytes > maxBytes || entries.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<Key, CachedExport> eldest = it.next();
+            it.remove();
+            release(eldest.getValue());
+            Set<Key> siblings = keysById.get(eldest.getKey().id());
+            if (siblings != null && siblings.remove(eldest.getKey()) && siblings.isEmpty()) {
+                keysById.remove(eldest.getKey().id(), siblings);
+            }
+            evictions.increment();
+        }
+    }
+
+    private boolean cacheable(Document document) {
+        return enabled && document.getId() != null;
+    }
+
+    private static Key keyOf(Document document, DocumentFormat format) {
+        return new Key(document.getId(), document.getVersion(), format.getFormatType());
+    }
+
+    /**
+     * Reenvía lo escrito a la salida y guarda una copia mientras no pase del límite
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + len > limit) {
+                copy = null; // demasiado grande para la caché
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        byte[] captured() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+    }
+}
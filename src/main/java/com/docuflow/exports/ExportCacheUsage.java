@@ -0,0 +1,96 @@
+package com.docuflow.exports;
+
+/**
+ * Ocupación y efectividad de la caché de exportaciones
+ */
+public class ExportCacheUsage {
+
+    private final long entries;
+    private final long bytes;
+    private final long maxBytes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final long compressedEntries;
+    private final long uncompressedBytes;
+    private final long compressedResponses;
+    private final long decompressedResponses;
+    private final long compressionNanos;
+    private final long savedCompressionNanos;
+    private final long decompressionNanos;
+
+    public ExportCacheUsage(long entries, long bytes, long maxBytes,
+                            long hits, long misses, long evictions, long invalidations,
+                            long compressedEntries, long uncompressedBytes,
+                            long compressedResponses, long decompressedResponses,
+                            long compressionNanos, long savedCompressionNanos, long decompressionNanos) {
+        this.entries = entries;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.compressedEntries = compressedEntries;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedResponses = compressedResponses;
+        this.decompressedResponses = decompressedResponses;
+        this.compressionNanos = compressionNanos;
+        this.savedCompressionNanos = savedCompressionNanos;
+        this.decompressionNanos = decompressionNanos;
+    }
+
+    public long getEntries() { return entries; }
+
+    // Bytes de las exportaciones guardadas (ya comprimidas)
+    public long getBytes() { return bytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    // Entradas descartadas por tamaño o número (LRU)
+    public long getEvictions() { return evictions; }
+
+    // Entradas eliminadas porque el documento cambió o se borró
+    public long getInvalidations() { return invalidations; }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    // Entradas guardadas comprimidas
+    public long getCompressedEntries() { return compressedEntries; }
+
+    // Tamaño de las mismas exportaciones sin comprimir
+    public long getUncompressedBytes() { return uncompressedBytes; }
+
+    // Bytes sin comprimir por cada byte guardado (1.0 = sin ganancia)
+    public double getCompressionRatio() {
+        return bytes == 0 ? 0.0 : (double) uncompressedBytes / bytes;
+    }
+
+    // Aciertos servidos tal cual comprimidos (Content-Encoding)
+    public long getCompressedResponses() { return compressedResponses; }
+
+    // Aciertos que hubo que descomprimir porque el cliente no acepta gzip
+    public long getDecompressedResponses() { return decompressedResponses; }
+
+    // CPU gastada comprimiendo, una vez por entrada
+    public double getCompressionMillis() { return compressionNanos / 1_000_000.0; }
+
+    // CPU que habría costado comprimir cada respuesta comprimida al servirla
+    public double getSavedCompressionMillis() { return savedCompressionNanos / 1_000_000.0; }
+
+    // CPU gastada descomprimiendo para clientes sin gzip
+    public double getDecompressionMillis() { return decompressionNanos / 1_000_000.0; }
+
+    // Ahorro neto frente a comprimir en cada petición
+    public double getNetSavedMillis() {
+        return (savedCompressionNanos - compressionNanos - decompressionNanos) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,150 @@
+package com.docuflow.exports;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codificaciones HTTP (Content-Encoding) con las que se guardan las
+ * exportaciones ya comprimidas. Ambas están en el JDK; "deflate" es el
+ * formato zlib que espera HTTP.
+ */
+public enum ExportEncoding {
+
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ExportEncoding(String token) {
+        this.token = token;
+    }
+
+    // Valor de Content-Encoding
+    public String token() {
+        return token;
+    }
+
+    /**
+     * Comprime los datos completos con el nivel indicado
+     */
+    public byte[] compress(byte[] data, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = compressing(buffer, level)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Flujo que comprime lo escrito hacia {@code out}; al cerrarlo se cierra
+     * {@code out} y se libera el compresor nativo
+     */
+    public OutputStream compressing(OutputStream out, int level) throws IOException {
+        if (this == GZIP) {
+            return new GZIPOutputStream(out, 8192) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+        Deflater deflater = new Deflater(level);
+        return new DeflaterOutputStream(out, deflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Flujo que descomprime lo leído de {@code in}
+     */
+    public InputStream decompressing(InputStream in) throws IOException {
+        return this == GZIP ? new GZIPInputStream(in, 8192) : new InflaterInputStream(in);
+    }
+
+    /**
+     * Solo se comprimen los formatos de texto; XLSX o ZIP ya van comprimidos
+     */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.startsWith("application/json");
+    }
+
+    /**
+     * Codificación preferida por el cliente (Accept-Encoding) entre las
+     * disponibles; null si prefiere la respuesta sin comprimir. A igual
+     * calidad gana el orden de la enumeración.
+     */
+    public static ExportEncoding negotiate(String acceptEncoding, Set<ExportEncoding> available) {
+        if (acceptEncoding == null || acceptEncoding.isBlank() || available.isEmpty()) {
+            return null;
+        }
+        double wildcard = -1;
+        double identity = -1;
+        double[] quality = new double[values().length];
+        Arrays.fill(quality, -1);
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("*")) {
+                wildcard = q;
+            } else if (coding.equals("identity")) {
+                identity = q;
+            } else {
+                for (ExportEncoding encoding : values()) {
+                    if (encoding.token.equals(coding) || (encoding == GZIP && coding.equals("x-gzip"))) {
+                        quality[encoding.ordinal()] = q;
+                    }
+                }
+            }
+        }
+
+        // Sin mención explícita, identity es aceptable salvo que "*" lo excluya
+        if (identity < 0) {
+            identity = wildcard == 0 ? 0 : 1;
+        }
+        ExportEncoding best = null;
+        double bestQuality = 0;
+        for (ExportEncoding encoding : values()) {
+            double q = quality[encoding.ordinal()] >= 0 ? quality[encoding.ordinal()] : wildcard;
+            if (available.contains(encoding) && q > bestQuality) {
+                best = encoding;
+                bestQuality = q;
+            }
+        }
+        return best != null && bestQuality >= identity ? best : null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.docuflow.exports;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trabajo de exportación en segundo plano.
+ *
+ * Lo actualiza un único hilo trabajador y lo consultan las peticiones de
+ * estado, de ahí los campos volátiles. El progreso se mide en elementos
+ * (documentos) terminados sobre el total.
+ */
+public class ExportJob {
+
+    private final String id;
+    private final String fileName;
+    private final String format;
+    private final String contentType;
+    private final long totalItems;
+    private final ExportEncoding encoding;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicLong completedItems = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Path file;
+    private volatile long storedBytes;
+
+    ExportJob(String id, String fileName, String format, String contentType, long totalItems,
+              ExportEncoding encoding) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.contentType = contentType;
+        this.totalItems = totalItems;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Marca un elemento más como exportado
+     */
+    public void advance() {
+        completedItems.incrementAndGet();
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = ExportJobStatus.RUNNING;
+    }
+
+    void complete(Path file, long storedBytes) {
+        this.file = file;
+        this.storedBytes = storedBytes;
+        finishedAt = Instant.now();
+        status = ExportJobStatus.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = ExportJobStatus.FAILED;
+    }
+
+    void addBytes(long count) {
+        bytesWritten.addAndGet(count);
+    }
+
+    public boolean isFinished() {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED;
+    }
+
+    public String getId() { return id; }
+
+    // Nombre sugerido para la descarga
+    public String getFileName() { return fileName; }
+
+    public String getFormat() { return format; }
+
+    public String getContentType() { return contentType; }
+
+    public ExportJobStatus getStatus() { return status; }
+
+    public long getTotalItems() { return totalItems; }
+
+    public long getCompletedItems() { return completedItems.get(); }
+
+    // Bytes de la exportación sin comprimir
+    public long getBytesWritten() { return bytesWritten.get(); }
+
+    // Codificación del fichero del spool; null = sin comprimir
+    public ExportEncoding getEncoding() { return encoding; }
+
+    // Tamaño del fichero en el spool (solo en COMPLETED)
+    public long getStoredBytes() { return storedBytes; }
+
+    // Fracción terminada, de 0.0 a 1.0
+    public double getProgress() {
+        if (status == ExportJobStatus.COMPLETED) {
+            return 1.0;
+        }
+        return totalItems == 0 ? 0.0 : Math.min(1.0, (double) completedItems.get() / totalItems);
+    }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    // Motivo del fallo (solo en FAILED)
+    public String getError() { return error; }
+
+    // Fichero del spool con el resultado (solo en COMPLETED)
+    public Path getFile() { return file; }
+}
@@ -0,0 +1,203 @@
+package com.docuflow.exports;
+
+import com.docuflow.config.ExportProperties;
+import com.docuflow.exceptions.ExportJobNotFoundException;
+import com.docuflow.exceptions.ExportQueueFullException;
+import com.docuflow.exceptions.PersistenceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecuta las exportaciones en segundo plano y guarda el resultado en un
+ * directorio de spool.
+ *
+ * Un número fijo de trabajadores (hilos virtuales) consume una cola acotada:
+ * las exportaciones pesadas no ocupan los hilos de Tomcat y, si la cola se
+ * llena, se rechazan en vez de acumularse. Cada trabajo escribe en un
+ * fichero temporal que se renombra al terminar, de modo que una descarga
+ * nunca ve un fichero a medias. Los trabajos terminados y sus ficheros se
+ * eliminan pasado el TTL.
+ *
+ * Las exportaciones de texto se guardan ya comprimidas con gzip: la
+ * descarga las envía tal cual y solo descomprime si el cliente no lo acepta.
+ */
+@Component
+public class ExportJobManager {
+
+    private static final String FILE_SUFFIX = ".export";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final ExportProperties properties;
+    private final Path spool;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService cleaner;
+
+    public ExportJobManager(ExportProperties properties) {
+        this.properties = properties;
+        this.spool = Paths.get(properties.getSpoolDirectory());
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(spool);
+            // Ficheros de una ejecución anterior: sus trabajos ya no existen
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spool,
+                    "*{" + FILE_SUFFIX + "," + PARTIAL_SUFFIX + "}")) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("Cannot prepare export spool " + spool, e);
+        }
+
+        int threads = Math.max(1, properties.getWorkers());
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                Thread.ofVirtual().name("export-worker-", 0).factory());
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "export-spool-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::expire,
+                properties.getCleanupIntervalMs(), properties.getCleanupIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    // =====================================================
+    // TRABAJOS
+    // =====================================================
+
+    /**
+     * Encola un trabajo y devuelve enseguida su estado inicial (QUEUED)
+     *
+     * @param totalItems elementos que la tarea irá marcando con advance()
+     */
+    public ExportJob submit(String fileName, String format, String contentType, long totalItems, ExportTask task) {
+        ExportEncoding encoding = properties.isCompressionEnabled() && ExportEncoding.isCompressible(contentType)
+                ? ExportEncoding.GZIP
+                : null;
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), fileName, format, contentType, totalItems, encoding);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ExportQueueFullException(properties.getQueueCapacity());
+        }
+        return job;
+    }
+
+    public ExportJob get(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ExportJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Elimina los trabajos terminados hace más del TTL y sus ficheros
+     */
+    public void expire() {
+        Instant limit = Instant.now().minusMillis(properties.getSpoolTtlMs());
+        for (ExportJob job : jobs.values()) {
+            if (job.isFinished() && job.getFinishedAt().isBefore(limit)) {
+                jobs.remove(job.getId());
+                deleteQuietly(job.getFile());
+            }
+        }
+    }
+
+    private void run(ExportJob job, ExportTask task) {
+        job.start();
+        Path partial = spool.resolve(job.getId() + PARTIAL_SUFFIX);
+        try {
+            // El fichero se cierra aunque falle al abrir el compresor; cerrarlo dos veces no hace nada.
+            // Se cuentan los bytes sin comprimir: son los que ve el cliente
+            try (OutputStream spooled = new BufferedOutputStream(Files.newOutputStream(partial), 64 * 1024);
+                 OutputStream out = new CountingOutputStream(job.getEncoding() != null
+                         ? job.getEncoding().compressing(spooled, properties.getCompressionLevel())
+                         : spooled, job)) {
+                task.write(out, job);
+            }
+            Path file = spool.resolve(job.getId() + FILE_SUFFIX);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            job.complete(file, Files.size(file));
+        } catch (Exception e) {
+            deleteQuietly(partial);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // se reintenta al arrancar
+        }
+    }
+
+    /**
+     * Cuenta los bytes escritos para el estado del trabajo
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final ExportJob job;
+
+        CountingOutputStream(OutputStream out, ExportJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addBytes(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.addBytes(len);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.docuflow.exports;
+
+/**
+ * Estado de un trabajo de exportación
+ */
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,14 @@
+package com.docuflow.exports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Genera el contenido de un trabajo de exportación. Escribe en {@code out}
+ * (el fichero del spool) e informa del avance con {@link ExportJob#advance()}.
+ */
+@FunctionalInterface
+public interface ExportTask {
+
+    void write(OutputStream out, ExportJob job) throws IOException;
+}
@@ -0,0 +1,321 @@
+package com.docuflow.exports;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escritor de XLSX (SpreadsheetML comprimido) de una sola hoja, en streaming.
+ *
+ * Cada fila se escribe en la hoja comprimida en cuanto se termina: no se
+ * guarda ninguna fila en memoria. Los textos cortos y repetidos (tipo,
+ * autor, cabecera) van a la tabla de cadenas compartidas, que se escribe al final;
+ * la tabla tiene un tamaño máximo y, una vez llena, el resto de textos se
+ * escriben en línea en la propia celda, de modo que la memoria no crece con
+ * el número de filas.
+ */
+public final class XlsxSheetWriter {
+
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    // Límite de caracteres de una celda en Excel
+    private static final int MAX_CELL_LENGTH = 32_767;
+    private static final int MAX_SHARED_LENGTH = 256;
+    private static final int MAX_SHARED_STRINGS = 65_536;
+
+    private static final int HEADER_STYLE = 1;
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private final String[] columns;
+    private final Map<String, Integer> sharedStrings = new HashMap<>();
+    private long sharedReferences;
+    private int rows;
+    private int column = -1;
+
+    /**
+     * Abre el libro y escribe la fila de cabecera; {@code out} no se cierra
+     */
+    public XlsxSheetWriter(OutputStream out, String sheetName, List<String> header) throws IOException {
+        // Se termina con finish(), nunca con close(): la salida es del llamador
+        this.zip = new ZipOutputStream(out);
+        this.columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnName(i);
+        }
+
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        writeEntry("xl/workbook.xml", WORKBOOK.replace("{sheet}", escape(sheetName)));
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+        writeEntry("xl/styles.xml", STYLES);
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<sheetData>");
+
+        startRow();
+        for (String title : header) {
+            writeString(title, true, HEADER_STYLE);
+        }
+        endRow();
+    }
+
+    // =====================================================
+    // FILAS
+    // =====================================================
+
+    public void startRow() throws IOException {
+        if (column >= 0) {
+            throw new IllegalStateException("Previous row not finished");
+        }
+        rows++;
+        column = 0;
+        sheet.write("<row r=\"");
+        sheet.write(Integer.toString(rows));
+        sheet.write("\">");
+    }
+
+    /**
+     * Texto corto y repetitivo: se guarda una vez en la tabla compartida
+     */
+    public void sharedCell(String value) throws IOException {
+        writeString(value, true, 0);
+    }
+
+    /**
+     * Texto propio de la fila (título, contenido, números de factura...): va en la celda
+     */
+    public void textCell(String value) throws IOException {
+        writeString(value, false, 0);
+    }
+
+    public void numberCell(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            emptyCell();
+            return;
+        }
+        openCell(null, 0);
+        sheet.write("<v>");
+        sheet.write(value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value)
+                : Double.toString(value));
+        sheet.write("</v></c>");
+    }
+
+    public void numberCell(long value) throws IOException {
+        openCell(null, 0);
+        sheet.write("<v>");
+        sheet.write(Long.toString(value));
+        sheet.write("</v></c>");
+    }
+
+    public void emptyCell() {
+        nextColumn();
+    }
+
+    public void endRow() throws IOException {
+        sheet.write("</row>");
+        column = -1;
+    }
+
+    /**
+     * Filas escritas, incluida la cabecera
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Cierra la hoja y escribe la tabla de cadenas compartidas
+     */
+    public void finish() throws IOException {
+        if (column >= 0) {
+            endRow();
+        }
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+
+        zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+        Writer strings = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        strings.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"");
+        strings.write(Long.toString(sharedReferences));
+        strings.write("\" uniqueCount=\"");
+        strings.write(Integer.toString(sharedStrings.size()));
+        strings.write("\">");
+        String[] ordered = new String[sharedStrings.size()];
+        sharedStrings.forEach((value, index) -> ordered[index] = value);
+        for (String value : ordered) {
+            strings.write("<si><t xml:space=\"preserve\">");
+            strings.write(escape(value));
+            strings.write("</t></si>");
+        }
+        strings.write("</sst>");
+        strings.flush();
+        zip.closeEntry();
+
+        zip.finish();
+        zip.flush();
+    }
+
+    // =====================================================
+    // AUXILIARES
+    // =====================================================
+
+    private void writeString(String value, boolean shareable, int style) throws IOException {
+        if (value == null) {
+            emptyCell();
+            return;
+        }
+        if (value.length() > MAX_CELL_LENGTH) {
+            // Se corta en un límite de code point: nunca medio par suplente
+            int end = Character.isHighSurrogate(value.charAt(MAX_CELL_LENGTH - 1))
+                    ? MAX_CELL_LENGTH - 1
+                    : MAX_CELL_LENGTH;
+            value = value.substring(0, end);
+        }
+
+        Integer index = null;
+        if (shareable && value.length() <= MAX_SHARED_LENGTH) {
+            index = sharedStrings.get(value);
+            if (index == null && sharedStrings.size() < MAX_SHARED_STRINGS) {
+                index = sharedStrings.size();
+                sharedStrings.put(value, index);
+            }
+        }
+
+        if (index != null) {
+            sharedReferences++;
+            openCell("s", style);
+            sheet.write("<v>");
+            sheet.write(Integer.toString(index));
+            sheet.write("</v></c>");
+        } else {
+            openCell("inlineStr", style);
+            sheet.write("<is><t xml:space=\"preserve\">");
+            sheet.write(escape(value));
+            sheet.write("</t></is></c>");
+        }
+    }
+
+    private void openCell(String type, int style) throws IOException {
+        sheet.write("<c r=\"");
+        sheet.write(columns[nextColumn()]);
+        sheet.write(Integer.toString(rows));
+        if (type != null) {
+            sheet.write("\" t=\"");
+            sheet.write(type);
+        }
+        if (style != 0) {
+            sheet.write("\" s=\"");
+            sheet.write(Integer.toString(style));
+        }
+        sheet.write("\">");
+    }
+
+    private int nextColumn() {
+        if (column < 0) {
+            throw new IllegalStateException("No row started");
+        }
+        if (column >= columns.length) {
+            throw new IllegalStateException("Row has more cells than the header");
+        }
+        return column++;
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // A, B, ..., Z, AA, AB...
+    static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    // Escapa XML y quita los caracteres de control que XML 1.0 no admite
+    static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\t', '\n', '\r' -> null;
+                default -> c < 0x20 || c == 0xFFFE || c == 0xFFFF ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                escaped.append(replacement != null ? replacement : String.valueOf(c));
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+            <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+            <Override PartName="/xl/styles.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml"/>\
+            <Override PartName="/xl/sharedStrings.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml"/>\
+            </Types>""";
+
+    private static final String ROOT_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+            </Relationships>""";
+
+    private static final String WORKBOOK = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+            xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+            <sheets><sheet name="{sheet}" sheetId="1" r:id="rId1"/></sheets>\
+            </workbook>""";
+
+    private static final String WORKBOOK_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>\
+            <Relationship Id="rId2" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles" Target="styles.xml"/>\
+            <Relationship Id="rId3" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings" Target="sharedStrings.xml"/>\
+            </Relationships>""";
+
+    // Estilo 0 normal y 1 negrita (cabecera)
+    private static final String STYLES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+            <fonts count="2"><font><sz val="11"/><name val="Calibri"/></font>\
+            <font><b/><sz val="11"/><name val="Calibri"/></font></fonts>\
+            <fills count="2"><fill><patternFill patternType="none"/></fill>\
+            <fill><patternFill patternType="gray125"/></fill></fills>\
+            <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>\
+            <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>\
+            <cellXfs count="2"><xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>\
+            <xf numFmtId="0" fontId="1" fillId="0" borderId="0" xfId="0" applyFont="1"/></cellXfs>\
+            </styleSheet>""";
+}
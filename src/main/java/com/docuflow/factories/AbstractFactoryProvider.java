@@ -1,14 +1,19 @@
 // AbstractFactoryProvider.java - ABSTRACT FACTORY PATTERN
 package com.docuflow.factories;
 
+import com.docuflow.models.DocumentFormat;
 import org.springframework.stereotype.Component;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class AbstractFactoryProvider {
     
     private final Map<String, DocumentFormatFactory> factories;
     
+    // 🔹 Los formatos no guardan estado: una instancia por tipo sirve para todas las exportaciones
+    private final Map<String, DocumentFormat> formats = new ConcurrentHashMap<>();
+    
     public AbstractFactoryProvider(Map<String, DocumentFormatFactory> factories) {
         this.factories = factories;
     }
@@ -23,4 +28,11 @@ public class AbstractFactoryProvider {
         
         return factory;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Formato compartido del tipo pedido (se crea con su factory la primera vez)
+     */
+    public DocumentFormat getFormat(String formatType) {
+        return formats.computeIfAbsent(formatType.toLowerCase(), type -> getFactory(type).createFormat());
+    }
+}
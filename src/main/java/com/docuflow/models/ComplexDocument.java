@@ -1,5 +1,8 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+
+import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,8 +14,20 @@ import lombok.Setter;
 @Setter
 public class ComplexDocument extends Document {
 
-    private String header;
-    private String footer;
+    // 🔹 Maqueta compilada una vez para todos los documentos complejos
+    private static final RenderPlan<ComplexDocument> PLAN = RenderPlan.builder(ComplexDocument.class)
+            .literal("=== Documento Complejo ===\nTítulo: ").text(Document::getTitle)
+            .literal("\nAutor: ").text(Document::getAuthor)
+            .literal("\nTipo: ").text(Document::getType)
+            .literal("\nEncabezado: ").textOr(Document::getHeader, "N/A")
+            .literal("\nContenido: ").text(Document::getContent)
+            .literal("\n\n")
+            .list(ComplexDocument::getSections, "Secciones:\n", " - ", "\n")
+            .literal("\nPie de página: ").textOr(Document::getFooter, "N/A")
+            .literal("\n")
+            .build();
+
+    // 🔹 header y footer se heredan de Document
     private List<String> sections;
 
     // 🔹 Constructor vacío
@@ -24,32 +39,22 @@ public class ComplexDocument extends Document {
     public ComplexDocument(Long id, String title, String author, String content, String type,
                            String header, String footer, List<String> sections) {
         super(id, title, author, content, type);
-        this.header = header;
-        this.footer = footer;
+        setHeader(header);
+        setFooter(footer);
         this.sections = sections;
     }
 
-    // 🔹 Implementación obligatoria del método abstracto
+    // 🔹 La lista de secciones no se comparte con la copia
     @Override
-    public String generateDocument() {
-        StringBuilder builder = new StringBuilder();
-        builder.append("=== Documento Complejo ===\n");
-        builder.append("Título: ").append(getTitle()).append("\n");
-        builder.append("Autor: ").append(getAuthor()).append("\n");
-        builder.append("Tipo: ").append(getType()).append("\n");
-        builder.append("Encabezado: ").append(header != null ? header : "N/A").append("\n");
-        builder.append("Contenido: ").append(getContent()).append("\n\n");
-
-        if (sections != null && !sections.isEmpty()) {
-            builder.append("Secciones:\n");
-            for (String section : sections) {
-                builder.append(" - ").append(section).append("\n");
-            }
-        }
-
-        builder.append("\nPie de página: ").append(footer != null ? footer : "N/A").append("\n");
+    public ComplexDocument copy() {
+        ComplexDocument copy = (ComplexDocument) super.copy();
+        copy.sections = sections != null ? new ArrayList<>(sections) : null;
+        return copy;
+    }
 
-        return builder.toString();
+    @Override
+    protected RenderPlan<ComplexDocument> renderPlan() {
+        return PLAN;
     }
 
     // 🔹 BUILDER para usar en DocumentService
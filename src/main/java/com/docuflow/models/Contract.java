@@ -1,7 +1,18 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+
 public class Contract extends Document {
 
+    // 🔹 Maqueta compilada una vez para todos los contratos
+    private static final RenderPlan<Contract> PLAN = RenderPlan.builder(Contract.class)
+            .literal("Contract Document:\nTitle: ").text(Document::getTitle)
+            .literal("\nAuthor: ").text(Document::getAuthor)
+            .literal("\nCompany: ").text(Contract::getCompany)
+            .literal("\nSignature: ").text(Contract::getSignature)
+            .literal("\nContent: ").text(Document::getContent)
+            .build();
+
     private String company;
     private String signature;
 
@@ -32,14 +43,8 @@ public class Contract extends Document {
     }
 
     @Override
-    public String generateDocument() {
-        return "Contract Document:\n" +
-               "Title: " + getTitle() + "\n" +
-               "Author: " + getAuthor() + "\n" +
-               "Company: " + company + "\n" +
-               "Signature: " + signature + "\n" +
-               "Content: " + getContent();
+    protected RenderPlan<Contract> renderPlan() {
+        return PLAN;
     }
 }
 
-
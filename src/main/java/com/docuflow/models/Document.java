@@ -1,14 +1,22 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+import com.docuflow.rendering.Utf8Buffer;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
 /**
  * Clase base abstracta para todos los tipos de documentos.
  */
 @Getter
 @Setter
-public abstract class Document {
+public abstract class Document implements Cloneable {
 
     private Long id;
     private String title;
@@ -17,6 +25,30 @@ public abstract class Document {
     private String header;
     private String footer;
     private String type;
+    private LocalDateTime createdAt;
+
+    // 🔹 Versión: la asigna el repositorio y aumenta en cada actualización
+    private long version;
+
+    // 🔹 Última modificación: la asigna el repositorio junto con la versión
+    // (no se persiste; tras reiniciar vale la hora de arranque)
+    private transient Instant modifiedAt;
+
+    // 🔹 ETag fuerte ya formateado; se recalcula al cambiar la versión
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient String eTag;
+
+    // 🔹 Arranque del repositorio si su almacenamiento no es duradero (0 si
+    // lo es): tras reiniciar se repiten IDs y versiones y el ETag debe cambiar
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient long eTagEpoch;
+
+    // 🔹 Cuerpo almacenado fuera del heap (modo off-heap del repositorio)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient StoredBody storedBody;
 
     // 🔹 Constructores
     public Document() {}
@@ -29,8 +61,142 @@ public abstract class Document {
         this.type = type;
     }
 
-    // 🔹 Método abstracto (debe implementarse en subclases)
-    public abstract String generateDocument();
+    public void setVersion(long version) {
+        this.version = version;
+        this.eTag = null;
+    }
+
+    // 🔹 Lo asigna el repositorio al instalar el documento
+    public void setETagEpoch(long eTagEpoch) {
+        this.eTagEpoch = eTagEpoch;
+        this.eTag = null;
+    }
+
+    // 🔹 ETag fuerte de la versión actual: "<versión>" o "<arranque>-<versión>"
+    public String getETag() {
+        String tag = eTag;
+        if (tag == null) {
+            tag = "\"" + versionTag() + "\"";
+            eTag = tag;
+        }
+        return tag;
+    }
+
+    // 🔹 ETag fuerte de otra representación de la misma versión: "<etiqueta de versión>-<variante>"
+    public String getETag(String variant) {
+        return "\"" + versionTag() + "-" + variant + "\"";
+    }
+
+    private String versionTag() {
+        return eTagEpoch != 0 ? eTagEpoch + "-" + version : Long.toString(version);
+    }
+
+    // 🔹 Texto completo del documento (se genera con su maqueta compilada)
+    public String generateDocument() {
+        Utf8Buffer buffer = Utf8Buffer.acquire(null);
+        try {
+            render(buffer);
+            return buffer.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    // 🔹 Escribe el documento en UTF-8, por partes y sin concatenar Strings
+    // (exportación en streaming)
+    public void render(Utf8Buffer out) throws IOException {
+        renderPlan().render(this, out);
+    }
+
+    // 🔹 Método abstracto: maqueta del tipo, compilada una vez por clase
+    protected abstract RenderPlan<?> renderPlan();
+
+    // 🔹 Cuerpo: se lee del almacenamiento externo si lo hay
+    public String getContent() {
+        StoredBody body = storedBody;
+        return body != null ? body.content() : content;
+    }
+
+    public String getHeader() {
+        StoredBody body = storedBody;
+        return body != null ? body.header() : header;
+    }
+
+    public String getFooter() {
+        StoredBody body = storedBody;
+        return body != null ? body.footer() : footer;
+    }
+
+    public void setContent(String content) {
+        materializeBody();
+        this.content = content;
+    }
+
+    public void setHeader(String header) {
+        materializeBody();
+        this.header = header;
+    }
+
+    public void setFooter(String footer) {
+        materializeBody();
+        this.footer = footer;
+    }
+
+    /**
+     * Copia superficial para actualizar sin tocar la instancia compartida
+     * (copy-on-write). El cuerpo off-heap se comparte hasta que se modifica.
+     */
+    public Document copy() {
+        try {
+            return (Document) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Document must be cloneable", e);
+        }
+    }
+
+    /**
+     * Sustituye los campos del cuerpo por un almacenamiento externo
+     * y libera las cadenas del heap
+     */
+    public void attachBody(StoredBody body) {
+        this.storedBody = body;
+        this.content = null;
+        this.header = null;
+        this.footer = null;
+    }
+
+    public StoredBody storedBody() {
+        return storedBody;
+    }
+
+    /**
+     * Vuelve a traer el cuerpo al heap antes de modificarlo
+     */
+    private void materializeBody() {
+        StoredBody body = storedBody;
+        if (body != null) {
+            this.content = body.content();
+            this.header = body.header();
+            this.footer = body.footer();
+            this.storedBody = null;
+        }
+    }
+
+    // 🔹 Patrón con el que se crea cada clase de documento (respuestas y estadísticas)
+    public static String creationPatternOf(Document document) {
+        if (document instanceof DocumentTemplate) {
+            return "Prototype Pattern";
+        } else if (document instanceof ComplexDocument) {
+            return "Builder Pattern";
+        } else if (document instanceof Contract ||
+                   document instanceof Report ||
+                   document instanceof Invoice) {
+            return "Factory Pattern";
+        }
+        return "Unknown Pattern";
+    }
 
     // 🔹 Método opcional para mostrar información del documento
     @Override
@@ -1,7 +1,81 @@
 // DocumentFormat.java (Interface)
 package com.docuflow.models;
 
+import com.docuflow.rendering.Utf8Buffer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
 public interface DocumentFormat {
     String export(Document document);
     String getFormatType();
+
+    /**
+     * Exportación en streaming: escribe por partes en UTF-8, con un buffer
+     * de tamaño fijo, sin construir el resultado entero en memoria. No
+     * cierra {@code out}. Los formatos que no la redefinen escriben el String
+     * de {@link #export(Document)}.
+     */
+    default void export(Document document, OutputStream out) throws IOException {
+        Writer writer = writer(out);
+        writer.write(export(document));
+        writer.flush();
+    }
+
+    default void export(Document document, WritableByteChannel channel) throws IOException {
+        export(document, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Tipo MIME de la exportación
+     */
+    default String getContentType() {
+        return "text/plain;charset=UTF-8";
+    }
+
+    /**
+     * Extensión del fichero exportado
+     */
+    default String getFileExtension() {
+        return getFormatType().toLowerCase();
+    }
+
+    static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8 * 1024);
+    }
+
+    /**
+     * Prefijo (ya en UTF-8) y documento escritos en {@code out} a través de
+     * un buffer del pool: sin Writer, sin encoder y sin concatenaciones
+     */
+    static void render(byte[] prefix, Document document, OutputStream out) throws IOException {
+        Utf8Buffer buffer = Utf8Buffer.acquire(out);
+        try {
+            buffer.write(prefix);
+            document.render(buffer);
+            buffer.flush();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    static String render(byte[] prefix, Document document) {
+        Utf8Buffer buffer = Utf8Buffer.acquire(null);
+        try {
+            buffer.write(prefix);
+            document.render(buffer);
+            return buffer.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.release();
+        }
+    }
 }
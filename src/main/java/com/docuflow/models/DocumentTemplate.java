@@ -1,5 +1,7 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,6 +13,12 @@ import lombok.Setter;
 @Setter
 public class DocumentTemplate extends Document implements Cloneable {
 
+    // 🔹 Maqueta compilada una vez para todas las plantillas
+    private static final RenderPlan<DocumentTemplate> PLAN = RenderPlan.builder(DocumentTemplate.class)
+            .literal("Documento generado desde la plantilla: ").text(Document::getTitle)
+            .literal("\nContenido: ").text(Document::getContent)
+            .build();
+
     private String description;
 
     // 🔹 Constructor vacío
@@ -40,9 +48,8 @@ public class DocumentTemplate extends Document implements Cloneable {
         }
     }
 
-    // 🔹 Generación del documento
     @Override
-    public String generateDocument() {
-        return "Documento generado desde la plantilla: " + getTitle() + "\nContenido: " + getContent();
+    protected RenderPlan<DocumentTemplate> renderPlan() {
+        return PLAN;
     }
 }
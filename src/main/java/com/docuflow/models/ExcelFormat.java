@@ -1,14 +1,84 @@
 // ExcelFormat.java
 package com.docuflow.models;
 
+import com.docuflow.exports.XlsxSheetWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
 public class ExcelFormat implements DocumentFormat {
+    private static final byte[] PREFIX = "Excel Export: ".getBytes(StandardCharsets.UTF_8);
+
+    // 🔹 Una fila por documento con estas columnas
+    public static final List<String> COLUMNS = List.of(
+            "ID", "Type", "Title", "Author", "Invoice Number", "Amount", "Version", "Created At", "Content");
+
+    // 🔹 Vista de texto; el libro XLSX lo escriben los métodos en streaming
     @Override
     public String export(Document document) {
-        return "Excel Export: " + document.generateDocument();
+        return DocumentFormat.render(PREFIX, document);
+    }
+
+    // 🔹 Streaming: libro XLSX con una fila para el documento
+    @Override
+    public void export(Document document, OutputStream out) throws IOException {
+        exportRows(List.of(document).iterator(), out);
+    }
+
+    /**
+     * Libro XLSX con una fila por documento, escrita según se recorre
+     * {@code documents}: la memoria no depende del número de filas.
+     * Devuelve las filas de datos escritas.
+     */
+    public long exportRows(Iterator<? extends Document> documents, OutputStream out) throws IOException {
+        XlsxSheetWriter sheet = new XlsxSheetWriter(out, "Documents", COLUMNS);
+        long rows = 0;
+        while (documents.hasNext()) {
+            writeRow(sheet, documents.next());
+            rows++;
+        }
+        sheet.finish();
+        return rows;
     }
 
     @Override
     public String getFormatType() {
         return "EXCEL";
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getContentType() {
+        return XlsxSheetWriter.CONTENT_TYPE;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "xlsx";
+    }
+
+    private static void writeRow(XlsxSheetWriter sheet, Document document) throws IOException {
+        sheet.startRow();
+        if (document.getId() != null) {
+            sheet.numberCell(document.getId());
+        } else {
+            sheet.emptyCell();
+        }
+        sheet.sharedCell(document.getType());
+        sheet.textCell(document.getTitle());
+        sheet.sharedCell(document.getAuthor());
+        if (document instanceof Invoice invoice) {
+            sheet.textCell(invoice.getInvoiceNumber());
+            sheet.numberCell(invoice.getAmount());
+        } else {
+            sheet.emptyCell();
+            sheet.emptyCell();
+        }
+        sheet.numberCell(document.getVersion());
+        sheet.textCell(document.getCreatedAt() != null ? document.getCreatedAt().toString() : null);
+        sheet.textCell(document.getContent());
+        sheet.endRow();
+    }
+}
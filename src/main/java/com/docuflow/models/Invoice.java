@@ -1,6 +1,17 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+
 public class Invoice extends Document {
+
+    // 🔹 Maqueta compilada una vez para todas las facturas
+    private static final RenderPlan<Invoice> PLAN = RenderPlan.builder(Invoice.class)
+            .literal("Invoice Document:\nInvoice Number: ").text(Invoice::getInvoiceNumber)
+            .literal("\nAmount: ").number(Invoice::getAmount)
+            .literal("\nAuthor: ").text(Document::getAuthor)
+            .literal("\nContent: ").text(Document::getContent)
+            .build();
+
     private String invoiceNumber;
     private double amount;
 
@@ -14,12 +25,24 @@ public class Invoice extends Document {
         this.amount = amount;
     }
 
+    public String getInvoiceNumber() {
+        return invoiceNumber;
+    }
+
+    public void setInvoiceNumber(String invoiceNumber) {
+        this.invoiceNumber = invoiceNumber;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
     @Override
-    public String generateDocument() {
-        return "Invoice Document:\n" +
-               "Invoice Number: " + invoiceNumber + "\n" +
-               "Amount: " + amount + "\n" +
-               "Author: " + getAuthor() + "\n" +
-               "Content: " + getContent();
+    protected RenderPlan<Invoice> renderPlan() {
+        return PLAN;
     }
 }
@@ -1,10 +1,22 @@
 // PDFFormat.java
 package com.docuflow.models;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
 public class PDFFormat implements DocumentFormat {
+    private static final byte[] PREFIX = "PDF Export: ".getBytes(StandardCharsets.UTF_8);
+
     @Override
     public String export(Document document) {
-        return "PDF Export: " + document.generateDocument();
+        return DocumentFormat.render(PREFIX, document);
+    }
+
+    // 🔹 Streaming: prefijo y documento se escriben directamente en la salida
+    @Override
+    public void export(Document document, OutputStream out) throws IOException {
+        DocumentFormat.render(PREFIX, document, out);
     }
 
     @Override
@@ -1,6 +1,17 @@
 package com.docuflow.models;
 
+import com.docuflow.rendering.RenderPlan;
+
 public class Report extends Document {
+
+    // 🔹 Maqueta compilada una vez para todos los informes
+    private static final RenderPlan<Report> PLAN = RenderPlan.builder(Report.class)
+            .literal("Report Document:\nTitle: ").text(Document::getTitle)
+            .literal("\nAuthor: ").text(Document::getAuthor)
+            .literal("\nSummary: ").text(Report::getSummary)
+            .literal("\nContent: ").text(Document::getContent)
+            .build();
+
     private String summary;
 
     public Report() {
@@ -12,12 +23,16 @@ public class Report extends Document {
         this.summary = summary;
     }
 
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
     @Override
-    public String generateDocument() {
-        return "Report Document:\n" +
-               "Title: " + getTitle() + "\n" +
-               "Author: " + getAuthor() + "\n" +
-               "Summary: " + summary + "\n" +
-               "Content: " + getContent();
+    protected RenderPlan<Report> renderPlan() {
+        return PLAN;
     }
 }
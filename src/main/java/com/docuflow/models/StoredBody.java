@@ -0,0 +1,14 @@
+package com.docuflow.models;
+
+/**
+ * Cuerpo de un documento (contenido, encabezado y pie) guardado fuera del
+ * objeto. Cada campo se decodifica solo cuando se lee.
+ */
+public interface StoredBody {
+
+    String content();
+
+    String header();
+
+    String footer();
+}
@@ -0,0 +1,178 @@
+package com.docuflow.persistence;
+
+import com.docuflow.models.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialización binaria de documentos para el log y los snapshots.
+ * Cada subclase lleva una etiqueta para reconstruirse sin pérdida.
+ */
+public final class DocumentCodec {
+
+    private static final byte INVOICE = 1;
+    private static final byte REPORT = 2;
+    private static final byte CONTRACT = 3;
+    private static final byte COMPLEX = 4;
+    private static final byte TEMPLATE = 5;
+
+    private DocumentCodec() {}
+
+    public static byte[] encode(Document document) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            write(new DataOutputStream(bytes), document);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Document decode(byte[] bytes) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(DataOutput out, Document document) throws IOException {
+        out.writeByte(tagOf(document));
+        out.writeLong(document.getId());
+        writeString(out, document.getTitle());
+        writeString(out, document.getAuthor());
+        writeString(out, document.getContent());
+        writeString(out, document.getType());
+        writeString(out, document.getHeader());
+        writeString(out, document.getFooter());
+        writeDateTime(out, document.getCreatedAt());
+        out.writeLong(document.getVersion());
+
+        if (document instanceof Invoice invoice) {
+            writeString(out, invoice.getInvoiceNumber());
+            out.writeDouble(invoice.getAmount());
+        } else if (document instanceof Report report) {
+            writeString(out, report.getSummary());
+        } else if (document instanceof Contract contract) {
+            writeString(out, contract.getCompany());
+            writeString(out, contract.getSignature());
+        } else if (document instanceof ComplexDocument complex) {
+            List<String> sections = complex.getSections();
+            out.writeInt(sections != null ? sections.size() : -1);
+            if (sections != null) {
+                for (String section : sections) {
+                    writeString(out, section);
+                }
+            }
+        } else if (document instanceof DocumentTemplate template) {
+            writeString(out, template.getDescription());
+        }
+    }
+
+    public static Document read(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        Document document = newInstance(tag);
+
+        document.setId(in.readLong());
+        document.setTitle(readString(in));
+        document.setAuthor(readString(in));
+        document.setContent(readString(in));
+        document.setType(readString(in));
+        document.setHeader(readString(in));
+        document.setFooter(readString(in));
+        document.setCreatedAt(readDateTime(in));
+        document.setVersion(in.readLong());
+
+        if (document instanceof Invoice invoice) {
+            invoice.setInvoiceNumber(readString(in));
+            invoice.setAmount(in.readDouble());
+        } else if (document instanceof Report report) {
+            report.setSummary(readString(in));
+        } else if (document instanceof Contract contract) {
+            contract.setCompany(readString(in));
+            contract.setSignature(readString(in));
+        } else if (document instanceof ComplexDocument complex) {
+            int count = in.readInt();
+            if (count >= 0) {
+                List<String> sections = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    sections.add(readString(in));
+                }
+                complex.setSections(sections);
+            }
+        } else if (document instanceof DocumentTemplate template) {
+            template.setDescription(readString(in));
+        }
+
+        return document;
+    }
+
+    private static byte tagOf(Document document) {
+        if (document instanceof Invoice) return INVOICE;
+        if (document instanceof Report) return REPORT;
+        if (document instanceof Contract) return CONTRACT;
+        if (document instanceof ComplexDocument) return COMPLEX;
+        if (document instanceof DocumentTemplate) return TEMPLATE;
+        throw new IllegalArgumentException("Unsupported document class: " + document.getClass().getName());
+    }
+
+    private static Document newInstance(byte tag) throws IOException {
+        switch (tag) {
+            case INVOICE:
+                return new Invoice();
+            case REPORT:
+                return new Report();
+            case CONTRACT:
+                return new Contract();
+            case COMPLEX:
+                return new ComplexDocument();
+            case TEMPLATE:
+                return new DocumentTemplate();
+            default:
+                throw new StreamCorruptedException("Unknown document tag: " + tag);
+        }
+    }
+
+    // 🔹 Cadenas como longitud + UTF-8 (writeUTF está limitado a 64 KB)
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,196 @@
+package com.docuflow.persistence;
+
+import com.docuflow.config.PersistenceProperties;
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.repositories.DocumentMutation;
+import com.docuflow.repositories.DocumentMutationListener;
+import com.docuflow.repositories.DocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modo persistente del repositorio: recupera el estado al arrancar
+ * (snapshot + cola del log), registra cada cambio en el log de escritura
+ * y toma snapshots periódicos que permiten borrar segmentos antiguos.
+ */
+@Component
+@ConditionalOnProperty(prefix = "docuflow.persistence", name = "enabled", havingValue = "true")
+public class DocumentPersistenceManager implements DocumentMutationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentPersistenceManager.class);
+
+    private final DocumentRepository repository;
+    private final PersistenceProperties properties;
+    private final Path directory;
+
+    private final AtomicLong entriesSinceSnapshot = new AtomicLong();
+    private volatile long lastSnapshotAt = System.currentTimeMillis();
+
+    private WriteAheadLog wal;
+    private ScheduledExecutorService snapshotScheduler;
+    private RecoveryReport lastRecovery;
+
+    public DocumentPersistenceManager(DocumentRepository repository, PersistenceProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new PersistenceException("Cannot create persistence directory " + directory, e);
+        }
+
+        repository.markDurable();
+        lastRecovery = recover();
+        log.info("Document repository recovered from {}: {}", directory.toAbsolutePath(), lastRecovery);
+
+        wal = new WriteAheadLog(
+                directory,
+                properties.getFsync(),
+                properties.getSegmentSizeBytes(),
+                properties.getFsyncIntervalMs(),
+                lastRecovery.getLastLsn()
+        );
+        repository.addMutationListener(this);
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "repository-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfDue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        repository.removeMutationListener(this);
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    /**
+     * Con el documento bloqueado solo se escribe el registro (orden por ID);
+     * el fsync se espera en {@link #afterMutation}, ya sin bloqueo
+     */
+    @Override
+    public void onMutation(DocumentMutation mutation) {
+        long lsn = wal.append(operationOf(mutation.getType()), mutation.getDocumentId(), mutation.getDocument());
+        mutation.setLogSequence(lsn);
+        entriesSinceSnapshot.incrementAndGet();
+    }
+
+    @Override
+    public void afterMutation(DocumentMutation mutation) {
+        if (mutation.getLogSequence() > 0) {
+            wal.awaitDurable(mutation.getLogSequence());
+        }
+    }
+
+    /**
+     * Toma un snapshot y borra los segmentos que ya no hacen falta
+     */
+    public synchronized void snapshot() {
+        long replayFrom = wal.rollSegment();
+        long nextId = repository.getNextId();
+        long entries = entriesSinceSnapshot.getAndSet(0);
+
+        SnapshotStore.write(directory, replayFrom, nextId, repository.findAll());
+        wal.deleteSegmentsBefore(replayFrom);
+        lastSnapshotAt = System.currentTimeMillis();
+
+        log.debug("Snapshot written (replay from lsn {}, {} entries since previous)", replayFrom, entries);
+    }
+
+    public RecoveryReport getLastRecovery() {
+        return lastRecovery;
+    }
+
+    // =====================================================
+    // RECUPERACIÓN
+    // =====================================================
+
+    private RecoveryReport recover() {
+        long start = System.nanoTime();
+        long snapshotDocuments = 0;
+        long replayFrom = 1;
+
+        Optional<Path> snapshot = SnapshotStore.latest(directory);
+        if (snapshot.isPresent()) {
+            SnapshotStore.SnapshotHeader header = SnapshotStore.load(snapshot.get(), repository::restore);
+            snapshotDocuments = header.getDocumentCount();
+            replayFrom = header.getReplayFromLsn();
+            repository.advanceIdGenerator(header.getNextId());
+        }
+
+        long lastLsn = replayFrom - 1;
+        long[] replayed = {0};
+        for (Path segment : WriteAheadLog.listSegments(directory)) {
+            try {
+                long segmentLast = WriteAheadLog.replay(segment, replayFrom, entry -> {
+                    apply(entry);
+                    replayed[0]++;
+                });
+                lastLsn = Math.max(lastLsn, segmentLast);
+            } catch (IOException e) {
+                throw new PersistenceException("Failed to replay segment " + segment, e);
+            }
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new RecoveryReport(snapshotDocuments, replayed[0], lastLsn, durationMs);
+    }
+
+    private void apply(LogEntry entry) {
+        if (entry.getOperation() == LogEntry.DELETE) {
+            repository.restoreDeletion(entry.getDocumentId());
+        } else {
+            repository.restore(entry.getDocument());
+        }
+    }
+
+    private void snapshotIfDue() {
+        try {
+            boolean intervalElapsed = System.currentTimeMillis() - lastSnapshotAt >= properties.getSnapshotIntervalMs();
+            boolean logTooLong = entriesSinceSnapshot.get() >= properties.getSnapshotEveryEntries();
+            if ((intervalElapsed && entriesSinceSnapshot.get() > 0) || logTooLong) {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente ejecución; el log sigue siendo válido
+            log.error("Repository snapshot failed", e);
+        }
+    }
+
+    private static byte operationOf(DocumentMutation.Type type) {
+        switch (type) {
+            case SAVE:
+                return LogEntry.SAVE;
+            case UPDATE:
+                return LogEntry.UPDATE;
+            default:
+                return LogEntry.DELETE;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.docuflow.persistence;
+
+/**
+ * Cuándo se fuerza a disco el log de escritura
+ */
+public enum FsyncPolicy {
+    /** fsync en cada escritura antes de confirmarla */
+    ALWAYS,
+    /** las escrituras concurrentes comparten un único fsync (group commit) */
+    GROUP,
+    /** fsync periódico en segundo plano; se puede perder el último intervalo */
+    INTERVAL
+}
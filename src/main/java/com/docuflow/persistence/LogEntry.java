@@ -0,0 +1,41 @@
+package com.docuflow.persistence;
+
+import com.docuflow.models.Document;
+
+/**
+ * Registro leído del log de escritura
+ */
+public class LogEntry {
+
+    public static final byte SAVE = 1;
+    public static final byte UPDATE = 2;
+    public static final byte DELETE = 3;
+
+    private final byte operation;
+    private final long lsn;
+    private final long documentId;
+    private final Document document;
+
+    public LogEntry(byte operation, long lsn, long documentId, Document document) {
+        this.operation = operation;
+        this.lsn = lsn;
+        this.documentId = documentId;
+        this.document = document;
+    }
+
+    public byte getOperation() {
+        return operation;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public long getDocumentId() {
+        return documentId;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+}
@@ -0,0 +1,45 @@
+package com.docuflow.persistence;
+
+/**
+ * Resultado de la recuperación al arrancar
+ */
+public class RecoveryReport {
+
+    private final long snapshotDocuments;
+    private final long entriesReplayed;
+    private final long lastLsn;
+    private final long durationMs;
+
+    public RecoveryReport(long snapshotDocuments, long entriesReplayed, long lastLsn, long durationMs) {
+        this.snapshotDocuments = snapshotDocuments;
+        this.entriesReplayed = entriesReplayed;
+        this.lastLsn = lastLsn;
+        this.durationMs = durationMs;
+    }
+
+    public long getSnapshotDocuments() {
+        return snapshotDocuments;
+    }
+
+    public long getEntriesReplayed() {
+        return entriesReplayed;
+    }
+
+    public long getLastLsn() {
+        return lastLsn;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryReport{" +
+                "snapshotDocuments=" + snapshotDocuments +
+                ", entriesReplayed=" + entriesReplayed +
+                ", lastLsn=" + lastLsn +
+                ", durationMs=" + durationMs +
+                '}';
+    }
+}
@@ -0,0 +1,166 @@
+package com.docuflow.persistence;
+
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.models.Document;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshots completos del repositorio.
+ *
+ * Formato: cabecera [magic][versión][lsn de reproducción][siguiente id][n],
+ * n registros [int longitud][documento] y un crc32c final de todo lo anterior.
+ */
+public final class SnapshotStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x4446534E; // "DFSN"
+    private static final int FORMAT_VERSION = 2;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private SnapshotStore() {}
+
+    /**
+     * Cabecera de un snapshot cargado
+     */
+    public static class SnapshotHeader {
+        private final long replayFromLsn;
+        private final long nextId;
+        private final long documentCount;
+
+        public SnapshotHeader(long replayFromLsn, long nextId, long documentCount) {
+            this.replayFromLsn = replayFromLsn;
+            this.nextId = nextId;
+            this.documentCount = documentCount;
+        }
+
+        public long getReplayFromLsn() { return replayFromLsn; }
+        public long getNextId() { return nextId; }
+        public long getDocumentCount() { return documentCount; }
+    }
+
+    /**
+     * Escribe el snapshot en un fichero temporal, lo fuerza a disco y lo
+     * publica con un rename atómico. Después borra los snapshots anteriores.
+     */
+    public static Path write(Path directory, long replayFromLsn, long nextId, Collection<Document> documents) {
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, replayFromLsn, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32C());
+                DataOutputStream out = new DataOutputStream(checked);
+
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(replayFromLsn);
+                out.writeLong(nextId);
+                out.writeLong(documents.size());
+
+                for (Document document : documents) {
+                    byte[] body = DocumentCodec.encode(document);
+                    out.writeInt(body.length);
+                    out.write(body);
+                }
+
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                file.getFD().sync();
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(directory);
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to write snapshot " + target, e);
+        }
+
+        for (Path old : listSnapshots(directory)) {
+            if (!old.equals(target)) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to delete snapshot " + old, e);
+                }
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Snapshot más reciente del directorio, si existe
+     */
+    public static Optional<Path> latest(Path directory) {
+        List<Path> snapshots = listSnapshots(directory);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Carga un snapshot entregando cada documento al consumidor
+     */
+    public static SnapshotHeader load(Path snapshot, Consumer<Document> consumer) {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new PersistenceException("Invalid snapshot file: " + snapshot);
+            }
+            long replayFromLsn = in.readLong();
+            long nextId = in.readLong();
+            long count = in.readLong();
+
+            for (long i = 0; i < count; i++) {
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                consumer.accept(DocumentCodec.decode(body));
+            }
+
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new PersistenceException("Snapshot checksum mismatch: " + snapshot);
+            }
+
+            return new SnapshotHeader(replayFromLsn, nextId, count);
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to read snapshot " + snapshot, e);
+        }
+    }
+
+    private static List<Path> listSnapshots(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to list snapshots in " + directory, e);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // En algunos sistemas (Windows) no se puede abrir un directorio
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
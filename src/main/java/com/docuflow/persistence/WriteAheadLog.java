@@ -0,0 +1,436 @@
+package com.docuflow.persistence;
+
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.models.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escritura segmentado (append-only).
+ *
+ * Formato de cada registro: [int longitud][int crc32c][payload], con
+ * payload = [byte operación][long lsn][long id][documento codificado].
+ * Los segmentos se llaman wal-{primer lsn}.log y rotan al superar el tamaño
+ * configurado.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final int SEGMENT_MAGIC = 0x44465741; // "DFWA"
+    private static final int FORMAT_VERSION = 2;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final long segmentSizeBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private FileChannel channel;
+    private long segmentFirstLsn;
+    private long segmentBytes;
+    private long lastLsn;
+    private long durableLsn;
+    private boolean closed;
+    private PersistenceException failure;
+
+    private Thread groupFlusher;
+    private ScheduledExecutorService intervalFlusher;
+
+    public WriteAheadLog(Path directory, FsyncPolicy policy, long segmentSizeBytes,
+                         long fsyncIntervalMs, long lastLsn) {
+        this.directory = directory;
+        this.policy = policy;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+
+        openSegment(lastLsn + 1);
+
+        if (policy == FsyncPolicy.GROUP) {
+            groupFlusher = new Thread(this::groupFlushLoop, "wal-group-commit");
+            groupFlusher.setDaemon(true);
+            groupFlusher.start();
+        } else if (policy == FsyncPolicy.INTERVAL) {
+            intervalFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-interval-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            intervalFlusher.scheduleWithFixedDelay(this::flushQuietly,
+                    fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Añade un registro y devuelve el LSN asignado. No espera al disco: el
+     * llamante confirma la durabilidad con {@link #awaitDurable} cuando ya
+     * no retiene otros bloqueos.
+     */
+    public long append(byte operation, long documentId, Document document) {
+        byte[] body = document != null ? DocumentCodec.encode(document) : new byte[0];
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + 17 + body.length);
+
+        lock.lock();
+        try {
+            if (closed || failure != null) {
+                throw failure != null ? failure : new PersistenceException("Write-ahead log is closed");
+            }
+
+            long lsn = lastLsn + 1;
+            record.position(RECORD_HEADER_BYTES);
+            record.put(operation).putLong(lsn).putLong(documentId).put(body);
+
+            CRC32C crc = new CRC32C();
+            crc.update(record.array(), RECORD_HEADER_BYTES, record.position() - RECORD_HEADER_BYTES);
+            record.putInt(0, record.position() - RECORD_HEADER_BYTES);
+            record.putInt(4, (int) crc.getValue());
+            record.flip();
+
+            writeFully(record);
+            lastLsn = lsn;
+            segmentBytes += record.limit();
+
+            if (segmentBytes >= segmentSizeBytes) {
+                roll();
+            }
+            if (policy == FsyncPolicy.GROUP) {
+                flushNeeded.signal();
+            }
+            return lsn;
+        } catch (IOException e) {
+            // Un registro a medias invalida la cola: no se admiten más escrituras
+            failure = new PersistenceException("Failed to append to write-ahead log", e);
+            throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera a que el registro {@code lsn} sea durable según la política:
+     * ALWAYS fuerza el segmento (un fsync cubre además a los registros
+     * escritos antes), GROUP espera al siguiente group commit e INTERVAL
+     * vuelve enseguida.
+     */
+    public void awaitDurable(long lsn) {
+        if (policy == FsyncPolicy.INTERVAL) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (policy == FsyncPolicy.ALWAYS) {
+                while (durableLsn < lsn && !closed && failure == null) {
+                    long target = lastLsn;
+                    FileChannel current = channel;
+                    PersistenceException error = null;
+                    lock.unlock();
+                    try {
+                        force(current);
+                    } catch (PersistenceException e) {
+                        error = e;
+                    } finally {
+                        lock.lock();
+                    }
+                    if (error != null) {
+                        // Sin fsync no se puede confirmar nada más
+                        failure = error;
+                        flushed.signalAll();
+                        throw error;
+                    }
+                    durableLsn = Math.max(durableLsn, target);
+                }
+            } else {
+                while (durableLsn < lsn && !closed && failure == null) {
+                    flushed.awaitUninterruptibly();
+                }
+            }
+            if (durableLsn < lsn) {
+                throw failure != null ? failure : new PersistenceException("Write-ahead log is closed");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y abre uno nuevo.
+     * Devuelve el primer LSN del segmento que estaba activo: un snapshot
+     * tomado a continuación debe reproducir el log desde ese LSN, porque
+     * las escrituras en curso pueden estar en él sin haberse aplicado aún.
+     */
+    public long rollSegment() {
+        lock.lock();
+        try {
+            long previousFirstLsn = segmentFirstLsn;
+            roll();
+            return previousFirstLsn;
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to roll write-ahead log segment", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borra los segmentos que empiezan antes del LSN indicado
+     */
+    public void deleteSegmentsBefore(long firstLsn) {
+        for (Path segment : listSegments(directory)) {
+            if (firstLsnOf(segment) < firstLsn && firstLsnOf(segment) != segmentFirstLsn) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    throw new PersistenceException("Failed to delete segment " + segment, e);
+                }
+            }
+        }
+    }
+
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channel.force(false);
+            channel.close();
+            durableLsn = lastLsn;
+            flushNeeded.signalAll();
+            flushed.signalAll();
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to close write-ahead log", e);
+        } finally {
+            lock.unlock();
+        }
+        if (intervalFlusher != null) {
+            intervalFlusher.shutdownNow();
+        }
+    }
+
+    // =====================================================
+    // RECUPERACIÓN
+    // =====================================================
+
+    /**
+     * Segmentos del directorio ordenados por su primer LSN
+     */
+    public static List<Path> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(firstLsnOf(a), firstLsnOf(b)))
+                    .toList();
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to list segments in " + directory, e);
+        }
+    }
+
+    /**
+     * Reproduce un segmento mediante lectura mapeada en memoria, entregando
+     * los registros con LSN >= fromLsn. La lectura se detiene en una cola
+     * incompleta o con CRC inválido (escritura interrumpida); como tras la
+     * recuperación siempre se abre un segmento nuevo, esa cola no se
+     * sobrescribe. Devuelve el último LSN válido leído.
+     */
+    public static long replay(Path segment, long fromLsn, Consumer<LogEntry> consumer) throws IOException {
+        long lastSeen = 0;
+
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < SEGMENT_HEADER_BYTES) {
+                return lastSeen;
+            }
+
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != SEGMENT_MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new PersistenceException("Invalid write-ahead log segment: " + segment);
+            }
+
+            CRC32C crc = new CRC32C();
+
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 17 || length > buffer.remaining()) {
+                    break;
+                }
+
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                byte operation = payload.get();
+                long lsn = payload.getLong();
+                long id = payload.getLong();
+                Document document = null;
+                if (payload.hasRemaining()) {
+                    byte[] body = new byte[payload.remaining()];
+                    payload.get(body);
+                    document = DocumentCodec.decode(body);
+                }
+
+                buffer.position(buffer.position() + length);
+                lastSeen = lsn;
+
+                if (lsn >= fromLsn) {
+                    consumer.accept(new LogEntry(operation, lsn, id, document));
+                }
+            }
+        }
+
+        return lastSeen;
+    }
+
+    static long firstLsnOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // =====================================================
+    // INTERNOS
+    // =====================================================
+
+    private void openSegment(long firstLsn) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        try {
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            header.putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).flip();
+            writeFully(header);
+            segmentFirstLsn = firstLsn;
+            segmentBytes = SEGMENT_HEADER_BYTES;
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to open write-ahead log segment " + path, e);
+        }
+    }
+
+    // Se llama con el lock tomado
+    private void roll() throws IOException {
+        channel.force(false);
+        channel.close();
+        durableLsn = lastLsn;
+        flushed.signalAll();
+        openSegment(lastLsn + 1);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Group commit: un único fsync confirma todas las escrituras acumuladas
+     * desde el anterior
+     */
+    private void groupFlushLoop() {
+        lock.lock();
+        try {
+            while (!closed) {
+                while (durableLsn >= lastLsn && !closed) {
+                    flushNeeded.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                long target = lastLsn;
+                FileChannel current = channel;
+
+                lock.unlock();
+                try {
+                    force(current);
+                } catch (PersistenceException e) {
+                    // Sin fsync no se puede confirmar nada más
+                    lock.lock();
+                    failure = e;
+                    flushed.signalAll();
+                    return;
+                }
+                lock.lock();
+
+                durableLsn = Math.max(durableLsn, target);
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        long target;
+        FileChannel current;
+        lock.lock();
+        try {
+            if (closed || durableLsn >= lastLsn) {
+                return;
+            }
+            target = lastLsn;
+            current = channel;
+        } finally {
+            lock.unlock();
+        }
+
+        force(current);
+
+        lock.lock();
+        try {
+            durableLsn = Math.max(durableLsn, target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void force(FileChannel target) {
+        try {
+            target.force(false);
+        } catch (ClosedChannelException e) {
+            // El segmento se rotó: roll() ya lo forzó a disco
+        } catch (IOException e) {
+            throw new PersistenceException("Failed to fsync write-ahead log", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.docuflow.rendering;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Maqueta compilada de un tipo de documento.
+ *
+ * Se construye una vez por clase: los textos fijos consecutivos se unen y se
+ * codifican a UTF-8 de antemano, y los campos quedan como accesores. Generar
+ * un documento es recorrer los segmentos escribiendo en un {@link Utf8Buffer},
+ * sin concatenar Strings.
+ */
+public final class RenderPlan<T> {
+
+    @FunctionalInterface
+    private interface Segment<T> {
+        void write(T source, Utf8Buffer out) throws IOException;
+    }
+
+    private final Class<T> type;
+    private final List<Segment<T>> segments;
+
+    private RenderPlan(Class<T> type, List<Segment<T>> segments) {
+        this.type = type;
+        this.segments = List.copyOf(segments);
+    }
+
+    public static <T> Builder<T> builder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    public void render(Object source, Utf8Buffer out) throws IOException {
+        T typed = type.cast(source);
+        for (int i = 0; i < segments.size(); i++) {
+            segments.get(i).write(typed, out);
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final Class<T> type;
+        private final List<Segment<T>> segments = new ArrayList<>();
+        private final StringBuilder literal = new StringBuilder();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        public Builder<T> literal(String text) {
+            literal.append(text);
+            return this;
+        }
+
+        /**
+         * Campo de texto; null se escribe "null"
+         */
+        public Builder<T> text(Function<? super T, String> field) {
+            return add((source, out) -> out.writeString(field.apply(source)));
+        }
+
+        /**
+         * Campo de texto con valor por defecto si es null
+         */
+        public Builder<T> textOr(Function<? super T, String> field, String fallback) {
+            byte[] encoded = fallback.getBytes(StandardCharsets.UTF_8);
+            return add((source, out) -> {
+                String value = field.apply(source);
+                if (value != null) {
+                    out.writeString(value);
+                } else {
+                    out.write(encoded);
+                }
+            });
+        }
+
+        public Builder<T> number(ToDoubleFunction<? super T> field) {
+            return add((source, out) -> out.writeDouble(field.applyAsDouble(source)));
+        }
+
+        /**
+         * Lista de textos: {@code heading} y luego {@code prefix} + elemento +
+         * {@code suffix} por cada uno; nada si la lista es null o vacía
+         */
+        public Builder<T> list(Function<? super T, List<String>> field, String heading, String prefix, String suffix) {
+            byte[] headingBytes = heading.getBytes(StandardCharsets.UTF_8);
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+            return add((source, out) -> {
+                List<String> items = field.apply(source);
+                if (items == null || items.isEmpty()) {
+                    return;
+                }
+                out.write(headingBytes);
+                if (items instanceof RandomAccess) {
+                    for (int i = 0; i < items.size(); i++) {
+                        writeItem(out, prefixBytes, items.get(i), suffixBytes);
+                    }
+                } else {
+                    for (String item : items) {
+                        writeItem(out, prefixBytes, item, suffixBytes);
+                    }
+                }
+            });
+        }
+
+        private static void writeItem(Utf8Buffer out, byte[] prefix, String item, byte[] suffix) throws IOException {
+            out.write(prefix);
+            out.writeString(item);
+            out.write(suffix);
+        }
+
+        public RenderPlan<T> build() {
+            flushLiteral();
+            return new RenderPlan<>(type, segments);
+        }
+
+        private Builder<T> add(Segment<T> segment) {
+            flushLiteral();
+            segments.add(segment);
+            return this;
+        }
+
+        private void flushLiteral() {
+            if (literal.isEmpty()) {
+                return;
+            }
+            byte[] encoded = literal.toString().getBytes(StandardCharsets.UTF_8);
+            literal.setLength(0);
+            segments.add((source, out) -> out.write(encoded));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.docuflow.rendering;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Buffer de bytes UTF-8 reutilizable para generar documentos.
+ *
+ * Codifica los textos directamente a UTF-8 (sin Writer ni encoder
+ * intermedios) y escribe los números sin pasar por String. Con salida
+ * asociada, al llenarse vuelca en ella y sigue, de modo que la memoria es
+ * fija; sin salida crece para construir un String.
+ *
+ * Los buffers salen de un pool compartido con {@link #acquire} y vuelven con
+ * {@link #release()}; no se usa ThreadLocal porque las exportaciones corren
+ * también en hilos virtuales.
+ */
+public final class Utf8Buffer {
+
+    private static final int DEFAULT_CAPACITY = 8 * 1024;
+
+    // Los buffers que han crecido más que esto no vuelven al pool
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final BlockingQueue<Utf8Buffer> POOL =
+            new ArrayBlockingQueue<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes = new byte[DEFAULT_CAPACITY];
+    private int count;
+    private OutputStream sink;
+
+    private Utf8Buffer() {
+    }
+
+    /**
+     * Buffer del pool que vuelca en {@code sink} (null = acumula en memoria)
+     */
+    public static Utf8Buffer acquire(OutputStream sink) {
+        Utf8Buffer buffer = POOL.poll();
+        if (buffer == null) {
+            buffer = new Utf8Buffer();
+        }
+        buffer.sink = sink;
+        return buffer;
+    }
+
+    /**
+     * Devuelve el buffer al pool (lo pendiente se descarta: antes, flush())
+     */
+    public void release() {
+        count = 0;
+        sink = null;
+        if (bytes.length <= MAX_RETAINED_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+
+    // =====================================================
+    // ESCRITURA
+    // =====================================================
+
+    public void write(byte[] source) throws IOException {
+        if (source.length > bytes.length - count) {
+            if (sink != null) {
+                flushBuffer();
+                if (source.length > bytes.length) {
+                    sink.write(source);
+                    return;
+                }
+            } else {
+                grow(source.length);
+            }
+        }
+        System.arraycopy(source, 0, bytes, count, source.length);
+        count += source.length;
+    }
+
+    /**
+     * Texto en UTF-8; null se escribe "null" (como String.valueOf)
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            write(NULL);
+            return;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (bytes.length - count < 4) {
+                ensure(4);
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low;
+                if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(low = value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, low);
+                    bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                    i++;
+                } else {
+                    bytes[count++] = '?'; // suplente suelto, igual que el encoder UTF-8 del JDK
+                }
+            } else {
+                bytes[count++] = (byte) (0xE0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    public void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            bytes[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+    }
+
+    /**
+     * Mismo texto que String.valueOf(double); los enteros habituales
+     * (importes sin decimales) se escriben sin crear ningún objeto
+     */
+    public void writeDouble(double value) throws IOException {
+        if (value == Math.rint(value) && Math.abs(value) < 1e7 && !(value == 0 && 1 / value < 0)) {
+            writeLong((long) value);
+            ensure(2);
+            bytes[count++] = '.';
+            bytes[count++] = '0';
+        } else {
+            writeString(Double.toString(value));
+        }
+    }
+
+    /**
+     * Vuelca lo pendiente en la salida asociada
+     */
+    public void flush() throws IOException {
+        if (sink != null) {
+            flushBuffer();
+            sink.flush();
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Contenido acumulado (buffer sin salida asociada)
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int needed) throws IOException {
+        if (bytes.length - count >= needed) {
+            return;
+        }
+        if (sink != null) {
+            flushBuffer();
+        } else {
+            grow(needed);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            sink.write(bytes, 0, count);
+            count = 0;
+        }
+    }
+
+    private void grow(int needed) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + needed));
+    }
+}
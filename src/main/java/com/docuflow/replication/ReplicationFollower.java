@@ -0,0 +1,222 @@
+package com.docuflow.replication;
+
+import com.docuflow.config.ReplicationProperties;
+import com.docuflow.models.Document;
+import com.docuflow.repositories.DocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réplica de solo lectura: aplica en orden los cambios que envía el líder y
+ * sirve las lecturas desde su propio repositorio.
+ *
+ * Si pierde la conexión reintenta reanudando desde la última secuencia
+ * aplicada; el líder decide si basta con la cola del feed o hace falta una
+ * instantánea completa.
+ */
+@Component
+@ConditionalOnProperty(prefix = "docuflow.replication", name = "role", havingValue = "follower")
+public class ReplicationFollower implements ReplicationNode {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final DocumentRepository repository;
+    private final ReplicationProperties properties;
+
+    // Estado de la réplica (solo lo escribe el hilo de replicación)
+    private volatile long leaderEpoch;
+    private volatile long appliedSequence;
+    private volatile long leaderSequence;
+    private volatile long caughtUpAt = System.currentTimeMillis();
+    private volatile boolean connected;
+
+    private final AtomicLong snapshotsLoaded = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread worker;
+
+    public ReplicationFollower(DocumentRepository repository, ReplicationProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        repository.setReadOnly(true);
+        running = true;
+        worker = new Thread(this::replicateLoop, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeSocket();
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public ReplicationStatus status() {
+        long applied = appliedSequence;
+        long leader = Math.max(leaderSequence, applied);
+        long lagMillis = connected && leader == applied ? 0 : System.currentTimeMillis() - caughtUpAt;
+        return new ReplicationStatus(ReplicationRole.FOLLOWER, connected, 0,
+                leader, applied, lagMillis, snapshotsLoaded.get(), reconnects.get());
+    }
+
+    // =====================================================
+    // CONEXIÓN
+    // =====================================================
+
+    private void replicateLoop() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(properties.getLeaderHost(), properties.getLeaderPort()),
+                        (int) Math.max(1_000, properties.getHeartbeatIntervalMs()));
+                s.setTcpNoDelay(true);
+                s.setSoTimeout((int) (properties.getHeartbeatIntervalMs() * 5));
+                session(s);
+            } catch (IOException e) {
+                if (running) {
+                    log.info("Replication from {}:{} interrupted: {}",
+                            properties.getLeaderHost(), properties.getLeaderPort(), e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+
+            if (running) {
+                reconnects.incrementAndGet();
+                try {
+                    Thread.sleep(properties.getReconnectDelayMs());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void session(Socket s) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        out.writeInt(ReplicationProtocol.MAGIC);
+        out.writeLong(leaderEpoch);
+        out.writeLong(appliedSequence);
+        out.flush();
+
+        ReplicationProtocol.checkMagic(in.readInt());
+        long epoch = in.readLong();
+        // Antes de aplicar nada: lo replicado se etiqueta como en el líder
+        repository.useETagEpoch(in.readLong());
+        if (epoch != leaderEpoch) {
+            // Líder nuevo o reiniciado: sus secuencias no continúan las nuestras
+            leaderEpoch = epoch;
+            appliedSequence = 0;
+            leaderSequence = 0;
+        }
+        connected = true;
+        log.info("Replicating from {} (epoch {}) after sequence {}", s.getRemoteSocketAddress(), epoch, appliedSequence);
+
+        Set<Long> snapshotIds = null;
+        long snapshotAt = 0;
+        while (running) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationProtocol.SNAPSHOT_BEGIN -> {
+                    snapshotAt = in.readLong();
+                    leaderSequence = Math.max(leaderSequence, snapshotAt);
+                    snapshotIds = new HashSet<>();
+                }
+                case ReplicationProtocol.SNAPSHOT_DOCUMENT -> {
+                    Document document = ReplicationProtocol.readDocument(in);
+                    repository.replicate(document);
+                    if (snapshotIds != null) {
+                        snapshotIds.add(document.getId());
+                    }
+                }
+                case ReplicationProtocol.SNAPSHOT_END -> {
+                    finishSnapshot(snapshotIds, snapshotAt);
+                    snapshotIds = null;
+                }
+                case ReplicationProtocol.PUT -> {
+                    long sequence = in.readLong();
+                    in.readLong(); // instante en el líder
+                    repository.replicate(ReplicationProtocol.readDocument(in));
+                    applied(sequence);
+                }
+                case ReplicationProtocol.DELETE -> {
+                    long sequence = in.readLong();
+                    in.readLong();
+                    repository.replicateDeletion(in.readLong());
+                    applied(sequence);
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    leaderSequence = in.readLong();
+                    in.readLong();
+                    applied(appliedSequence);
+                }
+                default -> throw new IOException("Unknown replication frame " + frame);
+            }
+        }
+    }
+
+    /**
+     * Borra lo que no venía en la instantánea; la réplica queda en la
+     * secuencia de la instantánea y sigue con la cola
+     */
+    private void finishSnapshot(Set<Long> snapshotIds, long snapshotAt) {
+        long removed = 0;
+        for (Document document : repository.findAll()) {
+            if (snapshotIds == null || !snapshotIds.contains(document.getId())) {
+                repository.replicateDeletion(document.getId());
+                removed++;
+            }
+        }
+        snapshotsLoaded.incrementAndGet();
+        log.info("Loaded snapshot with {} documents ({} stale removed) at sequence {}",
+                snapshotIds != null ? snapshotIds.size() : 0, removed, snapshotAt);
+        applied(snapshotAt);
+    }
+
+    private void applied(long sequence) {
+        appliedSequence = sequence;
+        if (sequence >= leaderSequence) {
+            leaderSequence = sequence;
+            caughtUpAt = System.currentTimeMillis();
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // ya cerrado
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.docuflow.replication;
+
+import com.docuflow.changes.ChangeEvent;
+import com.docuflow.changes.ChangeFeed;
+import com.docuflow.changes.ChangeRead;
+import com.docuflow.config.ReplicationProperties;
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.models.Document;
+import com.docuflow.repositories.DocumentMutation;
+import com.docuflow.repositories.DocumentRepository;
+import com.docuflow.repositories.DocumentSlice;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Líder de la replicación: única instancia que acepta escrituras.
+ *
+ * El log ordenado que se envía es el feed de cambios del repositorio. Para
+ * cada secuencia se manda el estado actual del documento (o su borrado):
+ * como cualquier cambio posterior vuelve a aparecer más adelante en el
+ * feed, la réplica converge aunque reciba un estado más nuevo que el de esa
+ * secuencia. Si la réplica pide una secuencia que ya salió del anillo (o
+ * viene de otra época del líder) recibe primero una instantánea completa.
+ */
+@Component
+@ConditionalOnProperty(prefix = "docuflow.replication", name = "role", havingValue = "leader")
+public class ReplicationLeader implements ReplicationNode {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationLeader.class);
+
+    // Documentos por página al recorrer el repositorio para una instantánea
+    private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+    private final DocumentRepository repository;
+    private final ChangeFeed feed;
+    private final ReplicationProperties properties;
+
+    // Época del feed: cambia en cada arranque, cuando las secuencias empiezan de nuevo
+    private final long epoch;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionIds = new AtomicInteger();
+    private final AtomicLong snapshotsServed = new AtomicLong();
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public ReplicationLeader(DocumentRepository repository, ReplicationProperties properties) {
+        this.repository = repository;
+        this.feed = repository.getChangeFeed();
+        this.epoch = feed.getEpoch();
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(properties.getBindAddress(), properties.getPort()));
+        } catch (IOException e) {
+            throw new PersistenceException("Cannot listen for replicas on port " + properties.getPort(), e);
+        }
+        running = true;
+
+        Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Replication leader listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error closing replication server socket", e);
+        }
+        sessions.forEach(Session::close);
+        sessions.clear();
+    }
+
+    /**
+     * Puerto en el que escucha (útil con port=0)
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public ReplicationStatus status() {
+        long last = feed.getLastSequence();
+        return new ReplicationStatus(ReplicationRole.LEADER, running, sessions.size(),
+                last, last, 0, snapshotsServed.get(), 0);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Session session = new Session(socket);
+                sessions.add(session);
+                Thread sender = new Thread(session, "replication-sender-" + sessionIds.incrementAndGet());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Error accepting replica connection", e);
+                }
+            }
+        }
+    }
+
+    // =====================================================
+    // ENVÍO A UNA RÉPLICA
+    // =====================================================
+
+    /**
+     * Conexión con una réplica; un hilo por réplica (son pocas)
+     */
+    private final class Session implements Runnable {
+
+        private final Socket socket;
+        private long next;
+        private long lastWriteAt;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                ReplicationProtocol.checkMagic(in.readInt());
+                long replicaEpoch = in.readLong();
+                long lastApplied = in.readLong();
+
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeLong(epoch);
+                out.writeLong(repository.getETagEpoch());
+                next = lastApplied + 1;
+                if (replicaEpoch != epoch || !feed.isAvailable(next)) {
+                    sendSnapshot(out);
+                }
+                out.flush();
+                lastWriteAt = System.currentTimeMillis();
+                log.info("Replica {} connected, streaming from sequence {}", socket.getRemoteSocketAddress(), next);
+
+                while (running) {
+                    stream(out);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.info("Replica {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sessions.remove(this);
+                close();
+            }
+        }
+
+        private void stream(DataOutputStream out) throws IOException, InterruptedException {
+            ChangeRead read = feed.read(next, properties.getMaxBatch());
+            if (read.isResyncRequired()) {
+                sendSnapshot(out);
+                out.flush();
+                return;
+            }
+
+            for (ChangeEvent event : read.getEvents()) {
+                Optional<Document> current = event.getType() == DocumentMutation.Type.DELETE
+                        ? Optional.empty()
+                        : repository.findById(event.getDocumentId());
+                if (current.isPresent()) {
+                    out.writeByte(ReplicationProtocol.PUT);
+                    out.writeLong(event.getSequence());
+                    out.writeLong(event.getTimestamp().toEpochMilli());
+                    ReplicationProtocol.writeDocument(out, current.get());
+                } else {
+                    out.writeByte(ReplicationProtocol.DELETE);
+                    out.writeLong(event.getSequence());
+                    out.writeLong(event.getTimestamp().toEpochMilli());
+                    out.writeLong(event.getDocumentId());
+                }
+                next = event.getSequence() + 1;
+            }
+
+            long now = System.currentTimeMillis();
+            if (!read.getEvents().isEmpty()) {
+                out.flush();
+                lastWriteAt = now;
+                return;
+            }
+            if (now - lastWriteAt >= properties.getHeartbeatIntervalMs()) {
+                out.writeByte(ReplicationProtocol.HEARTBEAT);
+                out.writeLong(read.getLastSequence());
+                out.writeLong(now);
+                out.flush();
+                lastWriteAt = now;
+            }
+            Thread.sleep(properties.getPollIntervalMs());
+        }
+
+        /**
+         * Instantánea de todo el repositorio. Los cambios con secuencia hasta
+         * {@code at} ya están aplicados en memoria, así que el recorrido los
+         * ve; los posteriores se reenvían después y sobrescriben lo que haga falta.
+         */
+        private void sendSnapshot(DataOutputStream out) throws IOException {
+            long at = feed.getLastSequence();
+            out.writeByte(ReplicationProtocol.SNAPSHOT_BEGIN);
+            out.writeLong(at);
+
+            Long afterId = null;
+            DocumentSlice page;
+            do {
+                page = repository.findPage(afterId, SNAPSHOT_PAGE_SIZE);
+                for (Document document : page.getDocuments()) {
+                    out.writeByte(ReplicationProtocol.SNAPSHOT_DOCUMENT);
+                    ReplicationProtocol.writeDocument(out, document);
+                }
+                afterId = page.getLastId();
+            } while (page.hasMore());
+
+            out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+            next = at + 1;
+            snapshotsServed.incrementAndGet();
+            log.info("Sent snapshot at sequence {} to replica {}", at, socket.getRemoteSocketAddress());
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // ya cerrado
+            }
+        }
+    }
+}
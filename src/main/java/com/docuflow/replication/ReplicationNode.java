@@ -0,0 +1,9 @@
+package com.docuflow.replication;
+
+/**
+ * Extremo de la replicación (líder o réplica)
+ */
+public interface ReplicationNode {
+
+    ReplicationStatus status();
+}
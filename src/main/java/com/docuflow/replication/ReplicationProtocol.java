@@ -0,0 +1,51 @@
+package com.docuflow.replication;
+
+import com.docuflow.models.Document;
+import com.docuflow.persistence.DocumentCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Formato de la conexión de replicación (DataOutput sobre TCP).
+ *
+ * La réplica abre con MAGIC, la época del líder que conoce y la última
+ * secuencia aplicada. El líder responde con MAGIC, su época y el prefijo de
+ * sus ETag de documento (que la réplica adopta para que una misma versión
+ * tenga el mismo ETag en todo el clúster) y después envía tramas: una instantánea completa (BEGIN, documentos, END) cuando la
+ * réplica no puede reanudar, cambios PUT/DELETE en orden de secuencia y
+ * latidos con su última secuencia.
+ */
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x44465232; // "DFR2"
+
+    static final byte SNAPSHOT_BEGIN = 'B';
+    static final byte SNAPSHOT_DOCUMENT = 'D';
+    static final byte SNAPSHOT_END = 'E';
+    static final byte PUT = 'P';
+    static final byte DELETE = 'X';
+    static final byte HEARTBEAT = 'H';
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeDocument(DataOutputStream out, Document document) throws IOException {
+        byte[] bytes = DocumentCodec.encode(document);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static Document readDocument(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return DocumentCodec.decode(bytes);
+    }
+
+    static void checkMagic(int magic) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("Not a replication peer (magic " + Integer.toHexString(magic) + ")");
+        }
+    }
+}
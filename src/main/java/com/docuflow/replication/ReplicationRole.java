@@ -0,0 +1,10 @@
+package com.docuflow.replication;
+
+/**
+ * Papel de la instancia en la replicación
+ */
+public enum ReplicationRole {
+    NONE,
+    LEADER,
+    FOLLOWER
+}
@@ -0,0 +1,51 @@
+package com.docuflow.replication;
+
+/**
+ * Estado de la replicación visto desde esta instancia
+ */
+public class ReplicationStatus {
+
+    private final ReplicationRole role;
+    private final boolean connected;
+    private final int followers;
+    private final long leaderSequence;
+    private final long appliedSequence;
+    private final long lagMillis;
+    private final long snapshots;
+    private final long reconnects;
+
+    public ReplicationStatus(ReplicationRole role, boolean connected, int followers,
+                             long leaderSequence, long appliedSequence, long lagMillis,
+                             long snapshots, long reconnects) {
+        this.role = role;
+        this.connected = connected;
+        this.followers = followers;
+        this.leaderSequence = leaderSequence;
+        this.appliedSequence = appliedSequence;
+        this.lagMillis = lagMillis;
+        this.snapshots = snapshots;
+        this.reconnects = reconnects;
+    }
+
+    public ReplicationRole getRole() { return role; }
+
+    // Réplica: conectada al líder. Líder: escuchando
+    public boolean isConnected() { return connected; }
+
+    // Líder: réplicas conectadas
+    public int getFollowers() { return followers; }
+
+    // Última secuencia conocida del líder y última aplicada aquí
+    public long getLeaderSequence() { return leaderSequence; }
+    public long getAppliedSequence() { return appliedSequence; }
+
+    public long getLagEntries() { return Math.max(0, leaderSequence - appliedSequence); }
+
+    // Tiempo desde que la réplica estuvo al día por última vez (0 si lo está)
+    public long getLagMillis() { return lagMillis; }
+
+    // Líder: instantáneas enviadas. Réplica: instantáneas cargadas
+    public long getSnapshots() { return snapshots; }
+
+    public long getReconnects() { return reconnects; }
+}
@@ -0,0 +1,51 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+/**
+ * Cambio aplicado al repositorio (save, update o delete)
+ */
+public class DocumentMutation {
+
+    public enum Type {
+        SAVE,
+        UPDATE,
+        DELETE
+    }
+
+    private final Type type;
+    private final Long documentId;
+    private final Document document;
+
+    // Posición en el log de escritura (0 si no se registró)
+    private volatile long logSequence;
+
+    public DocumentMutation(Type type, Long documentId, Document document) {
+        this.type = type;
+        this.documentId = documentId;
+        this.document = document;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Estado nuevo del documento; null en DELETE
+     */
+    public Document getDocument() {
+        return document;
+    }
+
+    public long getLogSequence() {
+        return logSequence;
+    }
+
+    public void setLogSequence(long logSequence) {
+        this.logSequence = logSequence;
+    }
+}
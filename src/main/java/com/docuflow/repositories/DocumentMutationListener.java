@@ -0,0 +1,22 @@
+package com.docuflow.repositories;
+
+/**
+ * Observador de los cambios del repositorio.
+ *
+ * {@link #onMutation} se invoca con el bloqueo de escritura del documento
+ * tomado, antes de instalar el cambio en memoria, de modo que los cambios
+ * de un mismo documento llegan en orden. Si lanza una excepción el cambio
+ * no se aplica. Debe ser rápido: retrasa a los demás escritores del ID.
+ */
+public interface DocumentMutationListener {
+
+    void onMutation(DocumentMutation mutation);
+
+    /**
+     * Se invoca cuando el cambio ya está instalado y el bloqueo liberado;
+     * es el sitio para esperas largas (fsync). Una excepción aquí llega al
+     * llamante, pero el cambio ya es visible.
+     */
+    default void afterMutation(DocumentMutation mutation) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Consulta por varios campos; los predicados nulos no filtran.
+ * Tipo, autor (exacto, sin distinguir mayúsculas) y prefijo de título
+ * tienen índice; el rango de fechas se aplica como filtro residual.
+ */
+@Getter
+@Builder
+public class DocumentQuery {
+
+    private final String type;
+    private final String author;
+    private final String titlePrefix;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdTo;
+
+    public boolean isEmpty() {
+        return type == null && author == null && titlePrefix == null
+                && createdFrom == null && createdTo == null;
+    }
+
+    /**
+     * Comprueba todos los predicados sobre el documento
+     */
+    public boolean matches(Document document) {
+        if (type != null && !DocumentRepository.normalizeType(type)
+                .equals(DocumentRepository.normalizeType(document.getType()))) {
+            return false;
+        }
+        if (author != null && !normalizeAuthor(author).equals(normalizeAuthor(document.getAuthor()))) {
+            return false;
+        }
+        if (titlePrefix != null) {
+            String title = normalizeTitle(document.getTitle());
+            if (title == null || !title.startsWith(normalizePrefix(titlePrefix))) {
+                return false;
+            }
+        }
+        LocalDateTime createdAt = document.getCreatedAt();
+        if (createdFrom != null && (createdAt == null || createdAt.isBefore(createdFrom))) {
+            return false;
+        }
+        return createdTo == null || (createdAt != null && createdAt.isBefore(createdTo));
+    }
+
+    static String normalizeAuthor(String author) {
+        return author == null ? null : author.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String normalizeTitle(String title) {
+        return title == null ? null : title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Como el título, pero conserva los espacios finales ("factura " no es "factura")
+     */
+    static String normalizePrefix(String prefix) {
+        return prefix == null ? null : prefix.stripLeading().toLowerCase(Locale.ROOT);
+    }
+}
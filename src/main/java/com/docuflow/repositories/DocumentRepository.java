@@ -1,11 +1,35 @@
 package com.docuflow.repositories;
 
+import com.docuflow.changes.ChangeFeed;
+import com.docuflow.config.RepositoryProperties;
+import com.docuflow.exceptions.ReadOnlyReplicaException;
 import com.docuflow.models.Document;
+import com.docuflow.models.StoredBody;
+import com.docuflow.repositories.engine.DocumentStorageEngine;
+import com.docuflow.repositories.engine.StorageEngines;
+import com.docuflow.storage.BodyStore;
+import com.docuflow.storage.DedupBodyStore;
+import com.docuflow.storage.DedupUsage;
+import com.docuflow.storage.OffHeapBodyStore;
+import com.docuflow.storage.OffHeapUsage;
+import com.docuflow.storage.TierUsage;
+import com.docuflow.storage.TieredBodyStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Repositorio en memoria para almacenar documentos
@@ -17,11 +41,98 @@ import java.util.concurrent.atomic.AtomicLong;
 @Repository
 public class DocumentRepository {
 
-    // Almacenamiento en memoria thread-safe
-    private final Map<Long, Document> storage = new ConcurrentHashMap<>();
+    // Particiones; el ID decide a cuál pertenece cada documento
+    private final DocumentShard[] shards;
+    private final int shardMask;
 
-    // Generador de IDs
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    // Bloques de IDs por hilo (tantos como particiones); no tienen relación
+    // con la partición en la que acaba cada ID
+    private final IdBlockAllocator[] idAllocators;
+
+    // Inicio del próximo bloque de IDs libre (todos los IDs menores ya están repartidos)
+    private final AtomicLong nextBlockStart = new AtomicLong(1);
+
+    // Mínimo ID que se puede repartir (sube tras una recuperación)
+    private final AtomicLong minimumId = new AtomicLong(1);
+
+    // Observadores de cambios (persistencia, etc.)
+    private final List<DocumentMutationListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Cuerpos fuera del documento: off-heap, por niveles o deduplicados (null si ninguno)
+    private final BodyStore bodyStore;
+
+    // Secuencias de versiones (null si no hay lecturas con instantánea)
+    private final SnapshotClock clock;
+
+    // Motor de registro: recibe cada escritura antes que la memoria
+    private final DocumentStorageEngine engine;
+
+    // Últimos cambios con su secuencia (feed de /changes y replicación)
+    private final ChangeFeed changeFeed;
+
+    // Contador de modificaciones (ETag débil de los listados) y arranque del
+    // proceso: distingue contadores de ejecuciones distintas
+    private final AtomicLong modifications = new AtomicLong();
+    private final Instant startedAt = Instant.now();
+
+    // Arranque que entra en los ETag de documento mientras nada sobreviva a
+    // un reinicio (0 = almacenamiento duradero: basta la versión); una
+    // réplica usa el de su líder
+    private volatile long eTagEpoch;
+
+    // Agregados por tipo, autor, patrón y bytes de contenido
+    private final DocumentStatistics statistics = new DocumentStatistics();
+
+    // Réplica: solo acepta los cambios que llegan del líder
+    private volatile boolean readOnly;
+
+    // Versiones antiguas pendientes de recuperar y umbral del próximo barrido
+    private static final int RECLAIM_THRESHOLD = 1024;
+    private final AtomicInteger pendingHistory = new AtomicInteger();
+    private volatile int nextReclaimAt = RECLAIM_THRESHOLD;
+    private final AtomicBoolean reclaiming = new AtomicBoolean();
+
+    public DocumentRepository() {
+        this(new RepositoryProperties());
+    }
+
+    @Autowired
+    public DocumentRepository(RepositoryProperties properties) {
+        int shardCount = Integer.highestOneBit(Math.max(1, properties.getShards()) * 2 - 1);
+        this.shards = new DocumentShard[shardCount];
+        this.shardMask = shardCount - 1;
+        this.idAllocators = new IdBlockAllocator[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new DocumentShard(statistics);
+            idAllocators[i] = new IdBlockAllocator(nextBlockStart, minimumId, properties.getIdBlockSize());
+        }
+
+        int bodyModes = (properties.isOffHeapBodies() ? 1 : 0)
+                + (properties.isTieredBodies() ? 1 : 0)
+                + (properties.isDedupBodies() ? 1 : 0);
+        if (bodyModes > 1) {
+            throw new IllegalArgumentException("Only one of off-heap, tiered or dedup document bodies can be enabled");
+        }
+        if (properties.isOffHeapBodies()) {
+            this.bodyStore = new OffHeapBodyStore(properties.getOffHeapChunkBytes());
+        } else if (properties.isTieredBodies()) {
+            this.bodyStore = new TieredBodyStore(
+                    properties.getTierHotBudgetBytes(),
+                    properties.getTierWarmBudgetBytes(),
+                    Path.of(properties.getTierColdDirectory()),
+                    properties.getTierSegmentSizeBytes());
+        } else if (properties.isDedupBodies()) {
+            this.bodyStore = new DedupBodyStore();
+        } else {
+            this.bodyStore = null;
+        }
+        this.clock = properties.isSnapshotReads() ? new SnapshotClock() : null;
+
+        this.changeFeed = new ChangeFeed(properties.getChangeFeedCapacity());
+        this.engine = StorageEngines.create(properties);
+        this.eTagEpoch = engine.isDurable() ? 0 : startedAt.toEpochMilli();
+        engine.forEach(this::restore);
+    }
 
     /**
      * Guarda un documento y retorna el documento con ID asignado
@@ -30,18 +141,74 @@ public class DocumentRepository {
         if (document == null) {
             throw new IllegalArgumentException("Document cannot be null");
         }
+        checkWritable();
 
         // Generar ID si no existe
         if (document.getId() == null) {
-            Long id = idGenerator.getAndIncrement();
+            Long id = threadAllocator().allocate();
             document.setId(id); // ✅ AGREGAR ESTA LÍNEA
         }
+        if (document.getCreatedAt() == null) {
+            document.setCreatedAt(LocalDateTime.now());
+        }
 
-        storage.put(document.getId(), document);
+        store(document.getId(), document, DocumentMutation.Type.SAVE, true);
 
         return document;
     }
 
+    /**
+     * Guarda varios documentos de una vez. Los que no traen ID reciben un
+     * rango contiguo reservado con una sola operación sobre el contador
+     * global (los IDs se asignan en el orden de la lista).
+     */
+    public List<Document> saveAll(List<? extends Document> documents) {
+        if (documents == null) {
+            throw new IllegalArgumentException("Documents cannot be null");
+        }
+        checkWritable();
+
+        int missingIds = 0;
+        for (Document document : documents) {
+            if (document == null) {
+                throw new IllegalArgumentException("Document cannot be null");
+            }
+            if (document.getId() == null) {
+                missingIds++;
+            }
+        }
+
+        long nextId = missingIds > 0 ? nextBlockStart.getAndAdd(missingIds) : 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<Document> fresh = new ArrayList<>(missingIds);
+
+        for (Document document : documents) {
+            if (document.getId() == null) {
+                document.setId(nextId++);
+                document.setVersion(Math.max(1, document.getVersion()));
+                fresh.add(document);
+            }
+            if (document.getCreatedAt() == null) {
+                document.setCreatedAt(now);
+            }
+        }
+
+        // Los IDs recién reservados no los ve nadie más: se escriben en el motor en un solo lote
+        engine.putAll(fresh);
+
+        List<Document> saved = new ArrayList<>(documents.size());
+        int freshIndex = 0;
+        for (Document document : documents) {
+            boolean batched = freshIndex < fresh.size() && fresh.get(freshIndex) == document;
+            if (batched) {
+                freshIndex++;
+            }
+            store(document.getId(), document, DocumentMutation.Type.SAVE, !batched);
+            saved.add(document);
+        }
+        return saved;
+    }
+
     /**
      * Encuentra un documento por ID
      */
@@ -50,29 +217,41 @@ public class DocumentRepository {
             return Optional.empty();
         }
 
-        return Optional.ofNullable(storage.get(id));
+        return Optional.ofNullable(shardFor(id).storage.get(id));
     }
 
     /**
-     * Encuentra todos los documentos
+     * Encuentra todos los documentos (las particiones se leen en paralelo)
      */
     public List<Document> findAll() {
-        return new ArrayList<>(storage.values());
+        return Arrays.stream(shards)
+                .parallel()
+                .flatMap(shard -> shard.storage.values().stream())
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
-     * Encuentra documentos por tipo
+     * Encuentra documentos por tipo usando el índice secundario.
+     * El coste es proporcional al número de documentos de ese tipo.
      */
     public List<Document> findByType(String type) {
-        List<Document> result = new ArrayList<>();
+        String typeKey = normalizeType(type);
+        return Arrays.stream(shards)
+                .parallel()
+                .flatMap(shard -> shard.findByType(typeKey).stream())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
 
-        for (Document doc : storage.values()) {
-            if (doc.getType().equalsIgnoreCase(type)) {
-                result.add(doc);
-            }
+    /**
+     * Número de documentos del tipo, según el índice secundario (sin cargarlos)
+     */
+    public long countByType(String type) {
+        String typeKey = normalizeType(type);
+        long total = 0;
+        for (DocumentShard shard : shards) {
+            total += shard.typeIndex.count(typeKey);
         }
-
-        return result;
+        return total;
     }
 
     /**
@@ -80,7 +259,8 @@ public class DocumentRepository {
      */
     public void deleteById(Long id) {
         if (id != null) {
-            storage.remove(id);
+            checkWritable();
+            remove(id);
         }
     }
 
@@ -88,21 +268,45 @@ public class DocumentRepository {
      * Verifica si existe un documento con el ID dado
      */
     public boolean existsById(Long id) {
-        return id != null && storage.containsKey(id);
+        return id != null && shardFor(id).storage.containsKey(id);
     }
 
     /**
      * Cuenta el total de documentos
      */
     public long count() {
-        return storage.size();
+        long total = 0;
+        for (DocumentShard shard : shards) {
+            total += shard.storage.size();
+        }
+        return total;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Estadísticas mantenidas en escritura (coste independiente del número de documentos)
+     */
+    public DocumentStats getStats() {
+        return statistics.snapshot();
     }
 
     /**
-     * Elimina todos los documentos
+     * Elimina todos los documentos. Cada uno se borra como en deleteById
+     * (bloqueo de su clave, motor, log y demás observadores, feed), así que
+     * índices, caché de exportaciones, réplicas y suscriptores lo ven y el
+     * borrado sobrevive a un reinicio. Un documento que se guarde mientras
+     * tanto puede quedarse.
      */
     public void deleteAll() {
-        storage.clear();
+        checkWritable();
+        for (DocumentShard shard : shards) {
+            for (Long id : new ArrayList<>(shard.storage.keySet())) {
+                remove(id);
+            }
+        }
     }
 
     /**
@@ -112,12 +316,883 @@ public class DocumentRepository {
         if (id == null || document == null) {
             throw new IllegalArgumentException("ID and document cannot be null");
         }
+        checkWritable();
 
-        if (!existsById(id)) {
-            throw new IllegalArgumentException("Document with ID " + id + " does not exist");
+        DocumentShard shard = shardFor(id);
+        DocumentMutation mutation;
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            Document existing = shard.storage.get(id);
+            if (existing == null) {
+                throw new IllegalArgumentException("Document with ID " + id + " does not exist");
+            }
+            document.setVersion(existing.getVersion() + 1);
+            document.setModifiedAt(Instant.now());
+            engine.put(document);
+            mutation = publish(DocumentMutation.Type.UPDATE, id, document);
+            sequence = install(shard, id, document);
+            recordChange(DocumentMutation.Type.UPDATE, id, document);
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
         }
+        settle(mutation);
 
-        storage.put(id, document);
         return document;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sustituye {@code expected} por {@code replacement} solo si sigue siendo
+     * la instancia almacenada (compare-and-set optimista).
+     *
+     * El llamante prepara la copia sin ningún bloqueo; aquí solo se compara
+     * la referencia y se publica la nueva versión, con lo que los lectores
+     * ven siempre un documento completo. Devuelve false si otro escritor
+     * ganó la carrera; lanza IllegalArgumentException si el documento ya no existe.
+     */
+    public boolean compareAndSet(Long id, Document expected, Document replacement) {
+        if (id == null || expected == null || replacement == null) {
+            throw new IllegalArgumentException("ID and documents cannot be null");
+        }
+        if (replacement == expected) {
+            throw new IllegalArgumentException("Replacement must be a new copy of the document");
+        }
+        checkWritable();
+
+        DocumentShard shard = shardFor(id);
+        DocumentMutation mutation = null;
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            Document existing = shard.storage.get(id);
+            if (existing == null) {
+                throw new IllegalArgumentException("Document with ID " + id + " does not exist");
+            }
+            if (existing == expected) {
+                replacement.setId(id);
+                replacement.setVersion(existing.getVersion() + 1);
+                replacement.setModifiedAt(Instant.now());
+                engine.put(replacement);
+                mutation = publish(DocumentMutation.Type.UPDATE, id, replacement);
+                sequence = install(shard, id, replacement);
+                recordChange(DocumentMutation.Type.UPDATE, id, replacement);
+            }
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        settle(mutation);
+        return mutation != null;
+    }
+
+    // =====================================================
+    // OBSERVADORES Y RECUPERACIÓN
+    // =====================================================
+
+    public void addMutationListener(DocumentMutationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeMutationListener(DocumentMutationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Inserta un documento recuperado sin notificar a los observadores
+     */
+    public void restore(Document document) {
+        Long id = document.getId();
+        DocumentShard shard = shardFor(id);
+        // La fecha de modificación no se persiste: se toma la del arranque
+        if (document.getModifiedAt() == null) {
+            document.setModifiedAt(startedAt);
+        }
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            sequence = install(shard, id, document);
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        advanceIdGenerator(id + 1);
+    }
+
+    /**
+     * Elimina un documento durante la recuperación sin notificar
+     */
+    public void restoreDeletion(Long id) {
+        DocumentShard shard = shardFor(id);
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            if (shard.storage.containsKey(id)) {
+                sequence = install(shard, id, null);
+            }
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        advanceIdGenerator(id + 1);
+    }
+
+    // =====================================================
+    // REPLICACIÓN
+    // =====================================================
+
+    /**
+     * Aplica el estado de un documento recibido del líder, conservando su
+     * versión. A diferencia de {@link #restore} sí notifica a los
+     * observadores y al feed, de modo que índices y /changes siguen al día.
+     */
+    public void replicate(Document document) {
+        Long id = document.getId();
+        DocumentShard shard = shardFor(id);
+        DocumentMutation mutation;
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            DocumentMutation.Type type = shard.storage.containsKey(id)
+                    ? DocumentMutation.Type.UPDATE
+                    : DocumentMutation.Type.SAVE;
+            document.setModifiedAt(Instant.now());
+            engine.put(document);
+            mutation = publish(type, id, document);
+            sequence = install(shard, id, document);
+            recordChange(type, id, document);
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        settle(mutation);
+        advanceIdGenerator(id + 1);
+    }
+
+    /**
+     * Aplica un borrado recibido del líder
+     */
+    public void replicateDeletion(Long id) {
+        remove(id);
+    }
+
+    /**
+     * En modo solo lectura save, update, compareAndSet y delete se rechazan;
+     * los cambios solo entran por {@link #replicate} y {@link #replicateDeletion}
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new ReadOnlyReplicaException();
+        }
+    }
+
+    /**
+     * Garantiza que el próximo ID generado sea al menos {@code nextId}
+     */
+    public void advanceIdGenerator(long nextId) {
+        minimumId.accumulateAndGet(nextId, Math::max);
+        nextBlockStart.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * Límite superior de los IDs repartidos hasta ahora
+     */
+    public long getNextId() {
+        return nextBlockStart.get();
+    }
+
+    /**
+     * Publica el cambio en el feed y cuenta la modificación, una vez
+     * instalado el nuevo estado
+     */
+    private void recordChange(DocumentMutation.Type type, Long id, Document document) {
+        changeFeed.append(type, id, document);
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Notifica el cambio con el bloqueo de escritura del ID tomado, antes de
+     * instalarlo: si un observador lanza, la mutación no se aplica
+     */
+    private DocumentMutation publish(DocumentMutation.Type type, Long id, Document document) {
+        DocumentMutation mutation = new DocumentMutation(type, id, document);
+        for (DocumentMutationListener listener : listeners) {
+            listener.onMutation(mutation);
+        }
+        return mutation;
+    }
+
+    /**
+     * Segunda fase, ya sin bloqueos: los observadores esperan aquí lo que
+     * sea lento (el fsync del log) sin frenar a otros escritores del ID
+     */
+    private void settle(DocumentMutation mutation) {
+        if (mutation == null) {
+            return;
+        }
+        for (DocumentMutationListener listener : listeners) {
+            listener.afterMutation(mutation);
+        }
+    }
+
+    // =====================================================
+    // CUERPOS FUERA DEL DOCUMENTO
+    // =====================================================
+
+    public boolean isOffHeapBodies() {
+        return bodyStore instanceof OffHeapBodyStore;
+    }
+
+    /**
+     * Uso de la arena off-heap; null si el modo está desactivado
+     */
+    public OffHeapUsage getOffHeapUsage() {
+        return bodyStore instanceof OffHeapBodyStore offHeap ? offHeap.usage() : null;
+    }
+
+    /**
+     * Tamaño y aciertos de cada nivel; null si el modo está desactivado
+     */
+    public TierUsage getTierUsage() {
+        return bodyStore instanceof TieredBodyStore tiered ? tiered.usage() : null;
+    }
+
+    /**
+     * Ratio de deduplicación y bytes ahorrados; null si el modo está desactivado
+     */
+    public DedupUsage getDedupUsage() {
+        return bodyStore instanceof DedupBodyStore dedup ? dedup.usage() : null;
+    }
+
+    /**
+     * Fuerza una pasada de degradación de niveles (normalmente en segundo plano)
+     */
+    public void demoteBodies() {
+        if (bodyStore instanceof TieredBodyStore tiered) {
+            tiered.demoteNow();
+        }
+    }
+
+    /**
+     * Número de modificaciones desde el arranque; cambia con cada alta,
+     * actualización o borrado
+     */
+    public long getModificationCount() {
+        return modifications.get();
+    }
+
+    /**
+     * ETag débil del contenido del repositorio: cualquier cambio lo invalida.
+     * Hay que leerlo antes de construir la respuesta que etiqueta.
+     */
+    public String getListETag() {
+        return "W/\"" + startedAt.toEpochMilli() + "-" + modifications.get() + "\"";
+    }
+
+    /**
+     * Prefijo de arranque de los ETag de documento; 0 si el almacenamiento
+     * es duradero y los ETag son solo la versión
+     */
+    public long getETagEpoch() {
+        return eTagEpoch;
+    }
+
+    /**
+     * Los documentos sobreviven a reinicios (log de escritura): los IDs y
+     * versiones no se repiten y el ETag no necesita el arranque. Se llama
+     * antes de recuperar.
+     */
+    public void markDurable() {
+        eTagEpoch = 0;
+    }
+
+    /**
+     * Réplica: adopta el prefijo de ETag del líder, de modo que un mismo
+     * documento y versión tenga el mismo ETag en cualquier instancia del
+     * clúster. Se llama en cada conexión, antes de aplicar lo que llega.
+     */
+    public void useETagEpoch(long epoch) {
+        eTagEpoch = epoch;
+    }
+
+    /**
+     * Feed con los últimos cambios y sus secuencias
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Nombre del motor de almacenamiento en uso
+     */
+    public String getEngineName() {
+        return engine.name();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (bodyStore instanceof TieredBodyStore tiered) {
+            tiered.close();
+        }
+        engine.close();
+    }
+
+    private void storeBody(DocumentShard shard, Long id, Document document) {
+        if (bodyStore == null) {
+            return;
+        }
+        if (clock == null) {
+            bodyStore.store(id, document);
+            return;
+        }
+
+        // Con versiones el hueco anterior se libera al recuperar la última
+        // versión que lo usa; solo se suelta ya si ninguna lo referencia
+        StoredBody replaced = bodyStore.replace(id, document);
+        if (replaced != null && !referencesBody(shard.versions.get(id), replaced)) {
+            bodyStore.free(replaced);
+        }
+    }
+
+    private void releaseBody(Long id) {
+        if (bodyStore == null) {
+            return;
+        }
+        if (clock == null) {
+            bodyStore.release(id);
+        } else {
+            bodyStore.detach(id);
+        }
+    }
+
+    private static boolean referencesBody(DocumentVersion version, StoredBody body) {
+        for (DocumentVersion v = version; v != null; v = v.previous) {
+            if (v.document != null && v.document.storedBody() == body) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Libera los cuerpos de una cadena de versiones descartada, salvo el
+     * que sigue usando la versión conservada {@code kept}
+     */
+    private void freeBodies(DocumentVersion dropped, DocumentVersion kept) {
+        StoredBody keptBody = kept != null && kept.document != null ? kept.document.storedBody() : null;
+        for (DocumentVersion v = dropped; v != null; v = v.previous) {
+            StoredBody body = v.document != null ? v.document.storedBody() : null;
+            if (body != null && body != keptBody) {
+                bodyStore.free(body); // idempotente: versiones contiguas comparten hueco
+            }
+        }
+    }
+
+    // =====================================================
+    // LECTURAS CON INSTANTÁNEA (MVCC)
+    // =====================================================
+
+    public boolean isSnapshotReads() {
+        return clock != null;
+    }
+
+    /**
+     * Fija una vista estable del repositorio. Los escritores no se bloquean;
+     * las versiones que la vista necesita se conservan hasta cerrarla.
+     */
+    public RepositorySnapshot openSnapshot() {
+        if (clock == null) {
+            throw new IllegalStateException("Snapshot reads are disabled (docuflow.repository.snapshot-reads)");
+        }
+        return new RepositorySnapshot(this, clock.pin());
+    }
+
+    /**
+     * Versiones antiguas que aún no se han recuperado
+     */
+    public int getRetainedVersions() {
+        return pendingHistory.get();
+    }
+
+    public int getOpenSnapshots() {
+        return clock != null ? clock.pinnedSnapshots() : 0;
+    }
+
+    void releaseSnapshot(long sequence) {
+        clock.unpin(sequence);
+        if (pendingHistory.get() > 0) {
+            reclaimVersions();
+        }
+    }
+
+    Document snapshotDocument(Long id, long sequence) {
+        if (id == null) {
+            return null;
+        }
+        DocumentVersion head = shardFor(id).versions.get(id);
+        DocumentVersion visible = head != null ? head.visibleAt(sequence) : null;
+        return visible != null ? visible.document : null;
+    }
+
+    /**
+     * Recorrido perezoso en orden de ID: mezcla k-way de las cadenas de
+     * versiones de cada partición, quedándose con la visible en la vista
+     */
+    Stream<Document> snapshotDocuments(RepositorySnapshot snapshot) {
+        long sequence = snapshot.getSequence();
+        PriorityQueue<VersionCursor> heads = new PriorityQueue<>(Comparator.comparingLong((VersionCursor c) -> c.id));
+        for (DocumentShard shard : shards) {
+            VersionCursor cursor = new VersionCursor(shard.versions.entrySet().iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        Iterator<Document> iterator = new Iterator<>() {
+            private Document next;
+
+            @Override
+            public boolean hasNext() {
+                snapshot.ensureOpen();
+                while (next == null && !heads.isEmpty()) {
+                    VersionCursor cursor = heads.poll();
+                    DocumentVersion visible = cursor.version.visibleAt(sequence);
+                    if (visible != null) {
+                        next = visible.document; // null si estaba eliminado
+                    }
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document document = next;
+                next = null;
+                return document;
+            }
+        };
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Añade la nueva versión a la cadena del ID (se llama con la clave
+     * bloqueada, como último paso). Devuelve su secuencia, o 0 si el modo
+     * está desactivado.
+     */
+    private long recordVersion(DocumentShard shard, Long id, Document document) {
+        if (clock == null) {
+            return 0;
+        }
+        long sequence = clock.begin();
+        DocumentVersion previous = shard.versions.get(id);
+        DocumentVersion head = new DocumentVersion(sequence, document, previous);
+        shard.versions.put(id, head);
+
+        if (previous != null && pruneVersions(shard, id, clock.horizon())) {
+            shard.history.add(id);
+            pendingHistory.incrementAndGet();
+        }
+        return sequence;
+    }
+
+    private void finishVersion(long sequence) {
+        if (sequence == 0) {
+            return;
+        }
+        clock.complete(sequence);
+        if (pendingHistory.get() >= nextReclaimAt) {
+            reclaimVersions();
+        }
+    }
+
+    /**
+     * Recorta la cadena del ID por debajo de la versión que ve el lector
+     * más antiguo posible. Devuelve true si aún quedan versiones antiguas.
+     */
+    private boolean pruneVersions(DocumentShard shard, Long id, long horizon) {
+        DocumentVersion head = shard.versions.get(id);
+        if (head == null) {
+            return false;
+        }
+        DocumentVersion keep = head.visibleAt(horizon);
+        if (keep == null) {
+            return true; // ninguna versión es aún visible para todos
+        }
+
+        DocumentVersion dropped = keep.previous;
+        keep.previous = null;
+        if (dropped != null && bodyStore != null) {
+            freeBodies(dropped, keep);
+        }
+
+        if (keep == head && head.document == null) {
+            shard.versions.remove(id); // eliminado para cualquier lector
+            return false;
+        }
+        return keep != head;
+    }
+
+    /**
+     * Barre los IDs con historial. Los que siguen retenidos por alguna
+     * instantánea vuelven a la cola; el próximo barrido automático se
+     * aplaza en proporción para no repetir trabajo inútil en cada escritura.
+     */
+    private void reclaimVersions() {
+        if (!reclaiming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int remaining = 0;
+            for (DocumentShard shard : shards) {
+                Set<Long> ids = new LinkedHashSet<>();
+                for (Long id; (id = shard.history.poll()) != null; ) {
+                    ids.add(id);
+                    pendingHistory.decrementAndGet();
+                }
+                for (Long id : ids) {
+                    boolean[] retained = {false};
+                    shard.storage.compute(id, (key, live) -> {
+                        retained[0] = pruneVersions(shard, key, clock.horizon());
+                        return live;
+                    });
+                    if (retained[0]) {
+                        shard.history.add(id);
+                        pendingHistory.incrementAndGet();
+                        remaining++;
+                    }
+                }
+            }
+            nextReclaimAt = Math.max(RECLAIM_THRESHOLD, remaining * 2);
+        } finally {
+            reclaiming.set(false);
+        }
+    }
+
+    private static final class VersionCursor {
+        private final Iterator<Map.Entry<Long, DocumentVersion>> iterator;
+        private long id;
+        private DocumentVersion version;
+
+        VersionCursor(Iterator<Map.Entry<Long, DocumentVersion>> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            Map.Entry<Long, DocumentVersion> entry = iterator.next();
+            id = entry.getKey();
+            version = entry.getValue();
+            return true;
+        }
+    }
+
+    // =====================================================
+    // PAGINACIÓN POR CURSOR
+    // =====================================================
+
+    /**
+     * Página de documentos con ID mayor que {@code afterId}, en orden de ID.
+     * El coste es proporcional al tamaño de la página, no del repositorio.
+     */
+    public DocumentSlice findPage(Long afterId, int limit) {
+        List<NavigableSet<Long>> sources = new ArrayList<>(shards.length);
+        for (DocumentShard shard : shards) {
+            sources.add(shard.orderedIds);
+        }
+        return slice(sources, afterId, limit);
+    }
+
+    /**
+     * Página de documentos de un tipo con ID mayor que {@code afterId}
+     */
+    public DocumentSlice findPageByType(String type, Long afterId, int limit) {
+        String typeKey = normalizeType(type);
+        List<NavigableSet<Long>> sources = new ArrayList<>(shards.length);
+        for (DocumentShard shard : shards) {
+            NavigableSet<Long> ids = shard.idsOfType(typeKey);
+            sources.add(ids != null ? ids : Collections.emptyNavigableSet());
+        }
+        return slice(sources, afterId, limit);
+    }
+
+    // =====================================================
+    // CONSULTAS POR VARIOS CAMPOS
+    // =====================================================
+
+    /**
+     * Elige el índice más selectivo entre los predicados indexados de la
+     * consulta; sin ninguno, recorre todos los IDs
+     */
+    public QueryPlan plan(DocumentQuery query) {
+        QueryPlan.Driver driver = QueryPlan.Driver.FULL_SCAN;
+        long best = Long.MAX_VALUE;
+
+        if (query.getType() != null) {
+            driver = QueryPlan.Driver.TYPE;
+            best = countByType(query.getType());
+        }
+        if (query.getAuthor() != null) {
+            String key = DocumentQuery.normalizeAuthor(query.getAuthor());
+            long candidates = 0;
+            for (DocumentShard shard : shards) {
+                candidates += shard.authorIndex.count(key);
+            }
+            if (candidates < best) {
+                driver = QueryPlan.Driver.AUTHOR;
+                best = candidates;
+            }
+        }
+        if (query.getTitlePrefix() != null) {
+            String prefix = DocumentQuery.normalizePrefix(query.getTitlePrefix());
+            // Un prefijo corto abarca muchos títulos: se deja de contar en
+            // cuanto iguala al mejor candidato, porque ya no puede ganar
+            long candidates = 0;
+            for (DocumentShard shard : shards) {
+                candidates += shard.titleIndex.countWithPrefix(prefix, best - candidates);
+                if (candidates >= best) {
+                    break;
+                }
+            }
+            if (candidates < best) {
+                driver = QueryPlan.Driver.TITLE_PREFIX;
+                best = candidates;
+            }
+        }
+
+        return new QueryPlan(driver, driver == QueryPlan.Driver.FULL_SCAN ? count() : best);
+    }
+
+    /**
+     * Ejecuta la consulta con el plan de {@link #plan}: los candidatos salen
+     * del índice elegido, se intersectan con los demás índices de igualdad
+     * y solo entonces se leen los documentos para los filtros restantes.
+     */
+    public DocumentSlice query(DocumentQuery query, QueryPlan plan, Long afterId, int limit) {
+        String typeKey = normalizeType(query.getType());
+        String authorKey = DocumentQuery.normalizeAuthor(query.getAuthor());
+
+        List<NavigableSet<Long>> sources = new ArrayList<>();
+        for (DocumentShard shard : shards) {
+            switch (plan.getDriver()) {
+                case TYPE -> addIfPresent(sources, shard.typeIndex.ids(typeKey));
+                case AUTHOR -> addIfPresent(sources, shard.authorIndex.ids(authorKey));
+                case TITLE_PREFIX -> sources.addAll(
+                        shard.titleIndex.idsWithPrefix(DocumentQuery.normalizePrefix(query.getTitlePrefix())));
+                case FULL_SCAN -> sources.add(shard.orderedIds);
+            }
+        }
+
+        Predicate<Long> idFilter = id -> true;
+        if (typeKey != null && plan.getDriver() != QueryPlan.Driver.TYPE) {
+            idFilter = idFilter.and(id -> contains(shardFor(id).typeIndex.ids(typeKey), id));
+        }
+        if (authorKey != null && plan.getDriver() != QueryPlan.Driver.AUTHOR) {
+            idFilter = idFilter.and(id -> contains(shardFor(id).authorIndex.ids(authorKey), id));
+        }
+
+        // El documento se vuelve a comprobar entero: el índice y el mapa no
+        // se leen de forma atómica
+        return slice(sources, afterId, limit, idFilter, query::matches);
+    }
+
+    private static void addIfPresent(List<NavigableSet<Long>> sources, NavigableSet<Long> ids) {
+        if (ids != null) {
+            sources.add(ids);
+        }
+    }
+
+    private static boolean contains(NavigableSet<Long> ids, Long id) {
+        return ids != null && ids.contains(id);
+    }
+
+    private DocumentSlice slice(List<NavigableSet<Long>> sources, Long afterId, int limit) {
+        return slice(sources, afterId, limit, id -> true, doc -> true);
+    }
+
+    /**
+     * Mezcla ordenada (k-way) de los IDs de cada partición: el coste es
+     * O(página · log particiones) más los candidatos descartados por los filtros
+     */
+    private DocumentSlice slice(List<NavigableSet<Long>> sources, Long afterId, int limit,
+                                Predicate<Long> idFilter, Predicate<Document> filter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        PriorityQueue<IdCursor> heads = new PriorityQueue<>(Comparator.comparingLong((IdCursor c) -> c.current));
+        for (NavigableSet<Long> ids : sources) {
+            NavigableSet<Long> tail = afterId != null ? ids.tailSet(afterId, false) : ids;
+            IdCursor cursor = new IdCursor(tail.iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        List<Document> page = new ArrayList<>(Math.min(limit, 256));
+        boolean hasMore = false;
+
+        while (!heads.isEmpty()) {
+            IdCursor cursor = heads.poll();
+            // Un ID puede desaparecer entre el índice y el mapa: se salta
+            Document doc = idFilter.test(cursor.current)
+                    ? shardFor(cursor.current).storage.get(cursor.current)
+                    : null;
+            if (doc != null && filter.test(doc)) {
+                if (page.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                page.add(doc);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        return new DocumentSlice(page, hasMore);
+    }
+
+    private static final class IdCursor {
+        private final Iterator<Long> iterator;
+        private long current;
+
+        IdCursor(Iterator<Long> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+
+    // =====================================================
+    // PARTICIONES
+    // =====================================================
+
+    private DocumentShard shardFor(long id) {
+        // Mezcla multiplicativa: IDs consecutivos caen en particiones distintas
+        return shards[(int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & shardMask];
+    }
+
+    /**
+     * Bloque de IDs que usa el hilo actual. Se elige por hilo, no por
+     * partición: los IDs de un mismo bloque se reparten después entre todas
+     * las particiones por {@link #shardFor}, que es lo que evita que los
+     * IDs consecutivos se concentren en una sola.
+     */
+    private IdBlockAllocator threadAllocator() {
+        return idAllocators[(int) Thread.currentThread().threadId() & shardMask];
+    }
+
+    // =====================================================
+    // ESCRITURA
+    // =====================================================
+
+    /**
+     * Inserta o reemplaza el documento. Con la clave bloqueada se fija la
+     * versión, se escribe en el motor y solo entonces se instala en memoria.
+     * {@code writeThrough} es false cuando el documento ya se escribió en el
+     * motor dentro de un lote.
+     */
+    private void store(Long id, Document document, DocumentMutation.Type type, boolean writeThrough) {
+        DocumentShard shard = shardFor(id);
+        DocumentMutation mutation;
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            Document existing = shard.storage.get(id);
+            document.setVersion(existing != null ? existing.getVersion() + 1 : Math.max(1, document.getVersion()));
+            document.setModifiedAt(Instant.now());
+            if (writeThrough) {
+                engine.put(document);
+            }
+            mutation = publish(type, id, document);
+            sequence = install(shard, id, document);
+            // Tras instalar el valor: quien lea la secuencia ya ve el cambio
+            recordChange(type, id, document);
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        settle(mutation);
+    }
+
+    /**
+     * Borra el documento si existe: primero del motor y después de memoria
+     */
+    private void remove(Long id) {
+        DocumentShard shard = shardFor(id);
+        DocumentMutation mutation = null;
+        long sequence = 0;
+        shard.writeLocks.lock(id);
+        try {
+            if (shard.storage.containsKey(id)) {
+                engine.delete(id);
+                mutation = publish(DocumentMutation.Type.DELETE, id, null);
+                sequence = install(shard, id, null);
+                recordChange(DocumentMutation.Type.DELETE, id, null);
+            }
+        } finally {
+            shard.writeLocks.unlock(id);
+            finishVersion(sequence);
+        }
+        settle(mutation);
+    }
+
+    /**
+     * Instala el nuevo estado del ID ({@code document} null = borrado) junto
+     * con índices, cuerpo y versión. Se llama con el bloqueo de escritura de
+     * la clave ya tomado y con el motor y los observadores ya avisados: el
+     * compute del mapa solo cubre trabajo en memoria. Devuelve la secuencia
+     * de la versión.
+     */
+    private long install(DocumentShard shard, Long id, Document document) {
+        if (document != null) {
+            document.setETagEpoch(eTagEpoch);
+        }
+        long[] sequence = {0};
+        shard.storage.compute(id, (key, existing) -> {
+            if (document != null) {
+                shard.reindex(key, document);
+                shard.orderedIds.add(key);
+                storeBody(shard, key, document);
+            } else {
+                shard.unindex(key);
+                shard.orderedIds.remove(key);
+                releaseBody(key);
+            }
+            sequence[0] = recordVersion(shard, key, document);
+            return document;
+        });
+        return sequence[0];
+    }
+
+    /**
+     * Normaliza el tipo una sola vez en escritura (y en la consulta)
+     */
+    static String normalizeType(String type) {
+        return type == null ? null : type.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,85 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Partición del repositorio: almacenamiento, IDs ordenados e índices por
+ * tipo, autor y título de los documentos cuyo ID se enruta a ella
+ */
+final class DocumentShard {
+
+    // Almacenamiento en memoria thread-safe
+    final Map<Long, Document> storage = new ConcurrentHashMap<>();
+
+    // IDs ordenados para paginación por cursor (keyset)
+    final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+    // Índices secundarios: clave normalizada -> IDs (ordenados)
+    final SecondaryIndex typeIndex = new SecondaryIndex();
+    final SecondaryIndex authorIndex = new SecondaryIndex();
+    final SecondaryIndex titleIndex = new SecondaryIndex();
+
+    // Cadenas de versiones por ID (solo en modo de lecturas con instantánea)
+    final ConcurrentSkipListMap<Long, DocumentVersion> versions = new ConcurrentSkipListMap<>();
+
+    // IDs con versiones antiguas pendientes de recuperar
+    final Queue<Long> history = new ConcurrentLinkedQueue<>();
+
+    // Serializa los escritores de cada ID mientras escriben en el motor
+    final KeyLocks writeLocks = new KeyLocks();
+
+    // Agregados de todo el repositorio (compartidos entre particiones)
+    private final DocumentStatistics statistics;
+
+    DocumentShard(DocumentStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    NavigableSet<Long> idsOfType(String typeKey) {
+        return typeIndex.ids(typeKey);
+    }
+
+    List<Document> findByType(String typeKey) {
+        NavigableSet<Long> ids = typeIndex.ids(typeKey);
+        if (ids == null) {
+            return List.of();
+        }
+
+        List<Document> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Document doc = storage.get(id);
+            if (doc != null) {
+                result.add(doc);
+            }
+        }
+        return result;
+    }
+
+    // =====================================================
+    // ÍNDICES SECUNDARIOS (se llama con la clave bloqueada)
+    // =====================================================
+
+    /**
+     * Mueve el ID a las claves actuales del documento si han cambiado y
+     * actualiza las estadísticas
+     */
+    void reindex(Long id, Document document) {
+        typeIndex.update(id, DocumentRepository.normalizeType(document.getType()));
+        authorIndex.update(id, DocumentQuery.normalizeAuthor(document.getAuthor()));
+        titleIndex.update(id, DocumentQuery.normalizeTitle(document.getTitle()));
+        statistics.record(id, document);
+    }
+
+    void unindex(Long id) {
+        typeIndex.remove(id);
+        authorIndex.remove(id);
+        titleIndex.remove(id);
+        statistics.remove(id);
+    }
+}
@@ -0,0 +1,34 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+import java.util.List;
+
+/**
+ * Página de documentos devuelta por la paginación por cursor
+ */
+public class DocumentSlice {
+
+    private final List<Document> documents;
+    private final boolean hasMore;
+
+    public DocumentSlice(List<Document> documents, boolean hasMore) {
+        this.documents = documents;
+        this.hasMore = hasMore;
+    }
+
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * ID del último documento de la página (base del siguiente cursor)
+     */
+    public Long getLastId() {
+        return documents.isEmpty() ? null : documents.get(documents.size() - 1).getId();
+    }
+}
@@ -0,0 +1,117 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agregados del repositorio mantenidos en el camino de escritura: total,
+ * documentos por tipo, autor y patrón de creación, y bytes de contenido.
+ *
+ * Se actualizan con la clave del documento bloqueada; los contadores son
+ * LongAdder para que escrituras de claves distintas no compitan. Como en
+ * los índices secundarios, se guarda lo que aportó cada documento para
+ * poder restarlo aunque la instancia se haya modificado in situ.
+ */
+final class DocumentStatistics {
+
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder contentBytes = new LongAdder();
+    private final Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byAuthor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byPattern = new ConcurrentHashMap<>();
+
+    // Aportación vigente de cada documento
+    private final Map<Long, Contribution> contributions = new ConcurrentHashMap<>();
+
+    void record(Long id, Document document) {
+        Contribution added = new Contribution(
+                DocumentRepository.normalizeType(document.getType()),
+                DocumentQuery.normalizeAuthor(document.getAuthor()),
+                Document.creationPatternOf(document),
+                utf8Length(document.getContent()));
+        Contribution previous = contributions.put(id, added);
+        if (previous != null) {
+            apply(previous, -1);
+        } else {
+            documents.increment();
+        }
+        apply(added, 1);
+    }
+
+    void remove(Long id) {
+        Contribution previous = contributions.remove(id);
+        if (previous != null) {
+            documents.decrement();
+            apply(previous, -1);
+        }
+    }
+
+    DocumentStats snapshot() {
+        return new DocumentStats(
+                documents.sum(),
+                contentBytes.sum(),
+                counts(byType),
+                counts(byAuthor),
+                counts(byPattern));
+    }
+
+    private void apply(Contribution contribution, int delta) {
+        add(byType, contribution.type, delta);
+        add(byAuthor, contribution.author, delta);
+        add(byPattern, contribution.pattern, delta);
+        contentBytes.add(delta * contribution.contentBytes);
+    }
+
+    private static void add(Map<String, LongAdder> counters, String key, int delta) {
+        if (key != null) {
+            counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * Las claves que se quedan a cero no se borran (un LongAdder no permite
+     * comprobarlo de forma atómica); se omiten al leer
+     */
+    private static Map<String, Long> counts(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long value = counter.sum();
+            if (value > 0) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Bytes en UTF-8 sin codificar la cadena
+     */
+    static long utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private record Contribution(String type, String author, String pattern, long contentBytes) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.docuflow.repositories;
+
+import java.util.Map;
+
+/**
+ * Estadísticas del repositorio en un instante (tipos y autores normalizados)
+ */
+public class DocumentStats {
+
+    private final long totalDocuments;
+    private final long contentBytes;
+    private final Map<String, Long> byType;
+    private final Map<String, Long> byAuthor;
+    private final Map<String, Long> byPattern;
+
+    public DocumentStats(long totalDocuments, long contentBytes, Map<String, Long> byType,
+                         Map<String, Long> byAuthor, Map<String, Long> byPattern) {
+        this.totalDocuments = totalDocuments;
+        this.contentBytes = contentBytes;
+        this.byType = byType;
+        this.byAuthor = byAuthor;
+        this.byPattern = byPattern;
+    }
+
+    public long getTotalDocuments() { return totalDocuments; }
+
+    // Tamaño del contenido en UTF-8 (sin encabezado ni pie)
+    public long getContentBytes() { return contentBytes; }
+
+    public double getAverageContentBytes() {
+        return totalDocuments == 0 ? 0.0 : (double) contentBytes / totalDocuments;
+    }
+
+    public Map<String, Long> getByType() { return byType; }
+    public Map<String, Long> getByAuthor() { return byAuthor; }
+
+    // Patrón de creación (Factory, Builder, Prototype)
+    public Map<String, Long> getByPattern() { return byPattern; }
+}
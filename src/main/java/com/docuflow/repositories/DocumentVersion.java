@@ -0,0 +1,35 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+/**
+ * Versión de un documento en el modo de lecturas con instantánea. Las
+ * versiones de un ID forman una cadena de la más nueva a la más antigua.
+ */
+final class DocumentVersion {
+
+    final long sequence;
+
+    // null = documento eliminado en esta versión
+    final Document document;
+
+    // Se corta al recuperar versiones que ya nadie puede leer
+    volatile DocumentVersion previous;
+
+    DocumentVersion(long sequence, Document document, DocumentVersion previous) {
+        this.sequence = sequence;
+        this.document = document;
+        this.previous = previous;
+    }
+
+    /**
+     * Versión más reciente visible en la secuencia indicada (o null)
+     */
+    DocumentVersion visibleAt(long snapshotSequence) {
+        DocumentVersion version = this;
+        while (version != null && version.sequence > snapshotSequence) {
+            version = version.previous;
+        }
+        return version;
+    }
+}
@@ -0,0 +1,35 @@
+package com.docuflow.repositories;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reparte IDs de un bloque propio y solo toca el contador global al
+ * agotarlo, de modo que los escritores no compiten por un único AtomicLong.
+ * El repositorio asigna un asignador a cada hilo (por su id); los IDs que
+ * reparte no se quedan en ninguna partición concreta.
+ */
+final class IdBlockAllocator {
+
+    private final AtomicLong nextBlockStart;
+    private final AtomicLong minimumId;
+    private final int blockSize;
+
+    // Guardados por "this"
+    private long next;
+    private long end;
+
+    IdBlockAllocator(AtomicLong nextBlockStart, AtomicLong minimumId, int blockSize) {
+        this.nextBlockStart = nextBlockStart;
+        this.minimumId = minimumId;
+        this.blockSize = blockSize;
+    }
+
+    synchronized long allocate() {
+        // Tras una recuperación el bloque en curso puede haber quedado por debajo del mínimo
+        if (next >= end || next < minimumId.get()) {
+            next = nextBlockStart.getAndAdd(blockSize);
+            end = next + blockSize;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,39 @@
+package com.docuflow.repositories;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloqueos por clave para los escritores de una partición.
+ *
+ * Serializan las escrituras de un mismo ID mientras se habla con el motor
+ * de almacenamiento, sin retener el bloqueo interno del ConcurrentHashMap
+ * (que cubre varias claves a la vez). Cada bloqueo existe solo mientras
+ * alguien lo usa o lo espera.
+ */
+final class KeyLocks {
+
+    private final ConcurrentHashMap<Long, Entry> locks = new ConcurrentHashMap<>();
+
+    void lock(Long key) {
+        Entry entry = locks.compute(key, (k, current) -> {
+            Entry e = current != null ? current : new Entry();
+            e.holders++;
+            return e;
+        });
+        entry.lock.lock();
+    }
+
+    void unlock(Long key) {
+        Entry entry = locks.get(key);
+        entry.lock.unlock();
+        locks.computeIfPresent(key, (k, e) -> --e.holders == 0 ? null : e);
+    }
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Hilos que lo tienen o lo esperan (guardado por el compute del mapa)
+        private int holders;
+    }
+}
@@ -0,0 +1,23 @@
+package com.docuflow.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Plan elegido para una consulta: índice que genera los candidatos y
+ * número estimado de candidatos
+ */
+@Getter
+@AllArgsConstructor
+public class QueryPlan {
+
+    public enum Driver { TYPE, AUTHOR, TITLE_PREFIX, FULL_SCAN }
+
+    private final Driver driver;
+    private final long estimatedCandidates;
+
+    @Override
+    public String toString() {
+        return driver + "(" + estimatedCandidates + ")";
+    }
+}
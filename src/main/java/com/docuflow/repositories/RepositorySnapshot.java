@@ -0,0 +1,67 @@
+package com.docuflow.repositories;
+
+import com.docuflow.models.Document;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Vista estable del repositorio en una secuencia de versiones.
+ *
+ * Abrirla solo fija un número; los documentos se recorren bajo demanda,
+ * sin copiarlos, mientras los escritores siguen trabajando. Las versiones
+ * antiguas se conservan hasta que se cierra, así que debe usarse con
+ * try-with-resources.
+ */
+public final class RepositorySnapshot implements AutoCloseable {
+
+    private final DocumentRepository repository;
+    private final long sequence;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    RepositorySnapshot(DocumentRepository repository, long sequence) {
+        this.repository = repository;
+        this.sequence = sequence;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Optional<Document> findById(Long id) {
+        ensureOpen();
+        return Optional.ofNullable(repository.snapshotDocument(id, sequence));
+    }
+
+    /**
+     * Todos los documentos de la instantánea en orden de ID
+     */
+    public Stream<Document> documents() {
+        ensureOpen();
+        return repository.snapshotDocuments(this);
+    }
+
+    /**
+     * Documentos de un tipo (filtra el recorrido: el índice por tipo solo
+     * refleja el estado actual)
+     */
+    public Stream<Document> documentsOfType(String type) {
+        String typeKey = DocumentRepository.normalizeType(type);
+        return documents().filter(doc -> typeKey != null
+                && typeKey.equals(DocumentRepository.normalizeType(doc.getType())));
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            repository.releaseSnapshot(sequence);
+        }
+    }
+
+    void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+}
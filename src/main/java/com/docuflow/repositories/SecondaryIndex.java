@@ -0,0 +1,112 @@
+package com.docuflow.repositories;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Índice secundario de una partición: clave normalizada -> IDs ordenados.
+ *
+ * Las claves se guardan ordenadas para admitir búsquedas por prefijo y cada
+ * conjunto lleva su tamaño (ConcurrentSkipListSet.size() recorre el set),
+ * que el planificador usa para estimar la selectividad.
+ */
+final class SecondaryIndex {
+
+    private final ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+
+    // Clave con la que está indexado cada documento
+    // (update() admite instancias modificadas in situ)
+    private final Map<Long, String> indexedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Mueve el ID a la clave indicada si ha cambiado (se llama con la clave
+     * del documento bloqueada)
+     */
+    void update(Long id, String newKey) {
+        String oldKey = newKey != null
+                ? indexedKeys.put(id, newKey)
+                : indexedKeys.remove(id);
+
+        if (Objects.equals(oldKey, newKey)) {
+            return;
+        }
+        if (oldKey != null) {
+            removeFromKey(oldKey, id);
+        }
+        if (newKey != null) {
+            // add dentro de compute: no compite con la eliminación de conjuntos vacíos
+            postings.compute(newKey, (k, existing) -> {
+                Postings target = existing != null ? existing : new Postings();
+                if (target.ids.add(id)) {
+                    target.size.incrementAndGet();
+                }
+                return target;
+            });
+        }
+    }
+
+    void remove(Long id) {
+        String oldKey = indexedKeys.remove(id);
+        if (oldKey != null) {
+            removeFromKey(oldKey, id);
+        }
+    }
+
+    NavigableSet<Long> ids(String key) {
+        Postings entry = key != null ? postings.get(key) : null;
+        return entry != null ? entry.ids : null;
+    }
+
+    int count(String key) {
+        Postings entry = key != null ? postings.get(key) : null;
+        return entry != null ? entry.size.get() : 0;
+    }
+
+    /**
+     * Conjuntos de todas las claves que empiezan por {@code prefix}
+     */
+    List<NavigableSet<Long>> idsWithPrefix(String prefix) {
+        List<NavigableSet<Long>> result = new ArrayList<>();
+        for (Postings entry : byPrefix(prefix).values()) {
+            result.add(entry.ids);
+        }
+        return result;
+    }
+
+    /**
+     * IDs bajo las claves que empiezan por {@code prefix}; deja de recorrer
+     * claves en cuanto la cuenta llega a {@code limit} (ya no interesa el
+     * valor exacto) y devuelve lo contado hasta ahí
+     */
+    long countWithPrefix(String prefix, long limit) {
+        long total = 0;
+        for (Postings entry : byPrefix(prefix).values()) {
+            total += entry.size.get();
+            if (total >= limit) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private NavigableMap<String, Postings> byPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void removeFromKey(String key, Long id) {
+        postings.computeIfPresent(key, (k, entry) -> {
+            if (entry.ids.remove(id)) {
+                entry.size.decrementAndGet();
+            }
+            return entry.ids.isEmpty() ? null : entry;
+        });
+    }
+
+    private static final class Postings {
+        final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+}
@@ -0,0 +1,86 @@
+package com.docuflow.repositories;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reloj de versiones del modo de lecturas con instantánea.
+ *
+ * Cada mutación recibe un número de secuencia. Las mutaciones terminan en
+ * cualquier orden, pero la marca de visibilidad solo avanza sobre números
+ * consecutivos ya terminados: una instantánea en la secuencia S ve todas
+ * las mutaciones con número <= S y ninguna posterior.
+ */
+final class SnapshotClock {
+
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final AtomicLong visible = new AtomicLong();
+
+    // Secuencias terminadas por encima de la marca de visibilidad
+    private final ConcurrentSkipListSet<Long> completed = new ConcurrentSkipListSet<>();
+
+    // Secuencias fijadas por lectores -> número de instantáneas abiertas
+    private final ConcurrentSkipListMap<Long, Integer> pins = new ConcurrentSkipListMap<>();
+
+    /**
+     * Número de la siguiente mutación (se llama con la clave bloqueada)
+     */
+    long begin() {
+        return lastSequence.incrementAndGet();
+    }
+
+    /**
+     * Marca la mutación como terminada, haya tenido éxito o no
+     */
+    void complete(long sequence) {
+        completed.add(sequence);
+        // Solo avanza quien retira la secuencia siguiente a la marca
+        long current = visible.get();
+        while (completed.remove(current + 1)) {
+            visible.set(++current);
+        }
+    }
+
+    long visibleSequence() {
+        return visible.get();
+    }
+
+    /**
+     * Fija la marca actual. Si avanza mientras se registra se repite, para
+     * que ningún escritor haya podado versiones que esta instantánea necesita.
+     */
+    long pin() {
+        while (true) {
+            long sequence = visible.get();
+            pins.merge(sequence, 1, Integer::sum);
+            if (visible.get() == sequence) {
+                return sequence;
+            }
+            unpin(sequence);
+        }
+    }
+
+    void unpin(long sequence) {
+        pins.computeIfPresent(sequence, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    int pinnedSnapshots() {
+        int total = 0;
+        for (int count : pins.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Secuencia más antigua que algún lector puede necesitar. La marca se
+     * lee antes que los pines (ver {@link #pin()}).
+     */
+    long horizon() {
+        long sequence = visible.get();
+        Map.Entry<Long, Integer> oldest = pins.firstEntry();
+        return oldest != null ? Math.min(sequence, oldest.getKey()) : sequence;
+    }
+}
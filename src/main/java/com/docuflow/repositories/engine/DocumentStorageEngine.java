@@ -0,0 +1,57 @@
+package com.docuflow.repositories.engine;
+
+import com.docuflow.models.Document;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Motor de almacenamiento de registro del repositorio.
+ *
+ * El repositorio sirve las lecturas desde memoria (particiones e índices)
+ * y escribe en el motor cada mutación antes de tocar el estado en memoria:
+ * si el motor falla, la mutación se aborta. La escritura se hace con el
+ * bloqueo de escritura de ese ID, fuera del ConcurrentHashMap, así que la
+ * latencia del motor solo retrasa a otros escritores del mismo documento.
+ * Al arrancar, el repositorio se carga desde el motor.
+ */
+public interface DocumentStorageEngine extends AutoCloseable {
+
+    /**
+     * Nombre con el que se selecciona (docuflow.repository.engine)
+     */
+    String name();
+
+    /**
+     * Si lo guardado sobrevive a un reinicio; si no, los IDs y versiones
+     * vuelven a empezar y el repositorio distingue los ETag por arranque
+     */
+    boolean isDurable();
+
+    /**
+     * Inserta o reemplaza el documento
+     */
+    void put(Document document);
+
+    /**
+     * Inserta o reemplaza varios documentos de una vez
+     */
+    void putAll(List<? extends Document> documents);
+
+    void delete(long id);
+
+    Optional<Document> get(long id);
+
+    /**
+     * Recorre todos los documentos guardados (carga inicial)
+     */
+    void forEach(Consumer<Document> consumer);
+
+    long count();
+
+    void clear();
+
+    @Override
+    void close();
+}
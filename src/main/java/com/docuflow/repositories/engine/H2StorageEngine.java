@@ -0,0 +1,196 @@
+package com.docuflow.repositories.engine;
+
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.models.Document;
+import com.docuflow.persistence.DocumentCodec;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Motor embebido sobre H2 en modo fichero, vía JDBC y con pool HikariCP.
+ *
+ * Cada documento es una fila: las columnas de metadatos permiten consultar
+ * la base desde fuera y el cuerpo completo va serializado con
+ * {@link DocumentCodec}, de modo que todas las subclases (Invoice, Contract,
+ * ComplexDocument...) se recuperan sin pérdida. Los lotes usan sentencias
+ * por lotes en una única transacción.
+ */
+public class H2StorageEngine implements DocumentStorageEngine {
+
+    public static final String NAME = "h2";
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS documents (
+                id BIGINT PRIMARY KEY,
+                doc_type VARCHAR(64),
+                title VARCHAR(1024),
+                author VARCHAR(512),
+                version BIGINT NOT NULL,
+                created_at TIMESTAMP,
+                payload VARBINARY NOT NULL
+            )""";
+
+    private static final String MERGE = """
+            MERGE INTO documents (id, doc_type, title, author, version, created_at, payload)
+            KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)""";
+
+    private final HikariDataSource dataSource;
+
+    // Una base jdbc:h2:mem: se pierde al parar el proceso
+    private final boolean durable;
+
+    public H2StorageEngine(String url, String username, String password, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setPoolName("docuflow-h2");
+        this.dataSource = new HikariDataSource(config);
+        this.durable = !url.startsWith("jdbc:h2:mem:");
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new PersistenceException("Cannot initialise H2 storage at " + url, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isDurable() {
+        return durable;
+    }
+
+    @Override
+    public void put(Document document) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(MERGE)) {
+            bind(statement, document);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot store document " + document.getId(), e);
+        }
+    }
+
+    @Override
+    public void putAll(List<? extends Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(MERGE)) {
+                int pending = 0;
+                for (Document document : documents) {
+                    bind(statement, document);
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot store batch of " + documents.size() + " documents", e);
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM documents WHERE id = ?")) {
+            statement.setLong(1, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot delete document " + id, e);
+        }
+    }
+
+    @Override
+    public Optional<Document> get(long id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT payload FROM documents WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? Optional.of(DocumentCodec.decode(rows.getBytes(1))) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot read document " + id, e);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Document> consumer) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = statement.executeQuery("SELECT payload FROM documents ORDER BY id")) {
+                while (rows.next()) {
+                    consumer.accept(DocumentCodec.decode(rows.getBytes(1)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot scan H2 storage", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM documents")) {
+            rows.next();
+            return rows.getLong(1);
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot count documents", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM documents");
+        } catch (SQLException e) {
+            throw new PersistenceException("Cannot clear H2 storage", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private static void bind(PreparedStatement statement, Document document) throws SQLException {
+        statement.setLong(1, document.getId());
+        statement.setString(2, document.getType());
+        statement.setString(3, document.getTitle());
+        statement.setString(4, document.getAuthor());
+        statement.setLong(5, document.getVersion());
+        statement.setTimestamp(6, document.getCreatedAt() != null ? Timestamp.valueOf(document.getCreatedAt()) : null);
+        statement.setBytes(7, DocumentCodec.encode(document));
+    }
+}
@@ -0,0 +1,67 @@
+package com.docuflow.repositories.engine;
+
+import com.docuflow.models.Document;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Motor por defecto, sin durabilidad: no guarda nada. Los documentos ya
+ * viven en las particiones del repositorio, así que una segunda copia en
+ * memoria solo duplicaría cada escritura; al arrancar no hay nada que cargar.
+ */
+public class InMemoryStorageEngine implements DocumentStorageEngine {
+
+    public static final String NAME = "memory";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    @Override
+    public void put(Document document) {
+        // el repositorio es la única copia
+    }
+
+    @Override
+    public void putAll(List<? extends Document> batch) {
+        // el repositorio es la única copia
+    }
+
+    @Override
+    public void delete(long id) {
+        // nada que borrar
+    }
+
+    @Override
+    public Optional<Document> get(long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void forEach(Consumer<Document> consumer) {
+        // nada que cargar
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public void clear() {
+        // nada que borrar
+    }
+
+    @Override
+    public void close() {
+        // nada que liberar
+    }
+}
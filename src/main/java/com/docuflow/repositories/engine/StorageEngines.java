@@ -0,0 +1,26 @@
+package com.docuflow.repositories.engine;
+
+import com.docuflow.config.RepositoryProperties;
+
+/**
+ * Crea el motor configurado en docuflow.repository.engine
+ */
+public final class StorageEngines {
+
+    private StorageEngines() {
+    }
+
+    public static DocumentStorageEngine create(RepositoryProperties properties) {
+        String engine = properties.getEngine() == null ? InMemoryStorageEngine.NAME : properties.getEngine().trim();
+        return switch (engine.toLowerCase()) {
+            case InMemoryStorageEngine.NAME -> new InMemoryStorageEngine();
+            case H2StorageEngine.NAME -> new H2StorageEngine(
+                    properties.getH2Url(),
+                    properties.getH2Username(),
+                    properties.getH2Password(),
+                    properties.getH2PoolSize());
+            default -> throw new IllegalArgumentException("Unknown storage engine: " + engine
+                    + " (expected " + InMemoryStorageEngine.NAME + " or " + H2StorageEngine.NAME + ")");
+        };
+    }
+}
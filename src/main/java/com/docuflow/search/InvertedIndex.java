@@ -0,0 +1,326 @@
+package com.docuflow.search;
+
+import com.docuflow.models.ComplexDocument;
+import com.docuflow.models.Document;
+import com.docuflow.repositories.DocumentMutation;
+import com.docuflow.repositories.DocumentMutationListener;
+import com.docuflow.repositories.DocumentRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice invertido en memoria sobre título, contenido y secciones.
+ *
+ * Se mantiene de forma incremental desde el camino de escritura del
+ * repositorio. Las consultas intersectan las listas comprimidas con
+ * cursores que saltan bloques, verifican las frases sobre el texto del
+ * documento y devuelven los k mejores resultados según BM25 sin guardar
+ * todas las coincidencias.
+ */
+@Component
+public class InvertedIndex implements DocumentMutationListener, SmartInitializingSingleton {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final DocumentRepository repository;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    // Índice directo: términos de cada documento para poder desindexarlo
+    private final Map<Long, IndexedDocument> documents = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalLength = new AtomicLong();
+
+    public InvertedIndex(DocumentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Se registra cuando el resto de beans (incluida la recuperación desde
+     * disco) ya está listo, e indexa lo que haya en el repositorio
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        repository.addMutationListener(this);
+        for (Document document : repository.findAll()) {
+            index(document);
+        }
+    }
+
+    @Override
+    public void onMutation(DocumentMutation mutation) {
+        if (mutation.getType() == DocumentMutation.Type.DELETE) {
+            remove(mutation.getDocumentId());
+        } else {
+            index(mutation.getDocument());
+        }
+    }
+
+    // =====================================================
+    // ESCRITURA
+    // =====================================================
+
+    public void index(Document document) {
+        long id = document.getId();
+        IndexedDocument existing = documents.get(id);
+        if (existing != null && existing.version > document.getVersion()) {
+            return; // versión más antigua (carga inicial concurrente con escrituras)
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String field : fieldsOf(document)) {
+            for (String token : Tokenizer.tokenize(field)) {
+                frequencies.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        IndexedDocument indexed = new IndexedDocument(frequencies, length, document.getVersion());
+        IndexedDocument previous = documents.put(id, indexed);
+
+        if (previous != null) {
+            totalLength.addAndGet(-previous.length);
+            for (String term : previous.terms) {
+                if (!frequencies.containsKey(term)) {
+                    PostingList list = postings.get(term);
+                    if (list != null) {
+                        list.remove(id);
+                    }
+                }
+            }
+        }
+
+        totalLength.addAndGet(length);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new PostingList()).put(id, entry.getValue());
+        }
+    }
+
+    public void remove(long id) {
+        IndexedDocument previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        totalLength.addAndGet(-previous.length);
+        for (String term : previous.terms) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+            }
+        }
+    }
+
+    // =====================================================
+    // CONSULTA
+    // =====================================================
+
+    /**
+     * Ejecuta la consulta y devuelve los {@code limit} mejores resultados.
+     *
+     * Cada grupo (AND) intersecta sus listas con cursores que saltan sobre
+     * los bloques comprimidos y produce los IDs en orden; los grupos (OR) se
+     * mezclan por ID, de modo que cada coincidencia se puntúa una vez y pasa
+     * directamente a un montículo acotado a {@code limit}.
+     */
+    public SearchResult search(SearchQuery query, int limit) {
+        long documentCount = Math.max(1, documents.size());
+        double averageLength = Math.max(1.0, (double) totalLength.get() / documentCount);
+
+        PriorityQueue<GroupMatcher> groups = new PriorityQueue<>(Comparator.comparingLong((GroupMatcher g) -> g.id));
+        for (List<List<String>> group : query.getGroups()) {
+            GroupMatcher matcher = matcher(group, documentCount, averageLength);
+            if (matcher != null && matcher.next()) {
+                groups.add(matcher);
+            }
+        }
+
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingDouble(SearchHit::getScore));
+        int totalMatches = 0;
+        while (!groups.isEmpty()) {
+            long id = groups.peek().id;
+            double score = 0;
+            // Un documento que cumple varios grupos se queda con la mejor puntuación
+            while (!groups.isEmpty() && groups.peek().id == id) {
+                GroupMatcher matcher = groups.poll();
+                score = Math.max(score, matcher.score);
+                if (matcher.next()) {
+                    groups.add(matcher);
+                }
+            }
+
+            totalMatches++;
+            if (top.size() < limit) {
+                top.add(new SearchHit(id, score));
+            } else if (limit > 0 && score > top.peek().getScore()) {
+                top.poll();
+                top.add(new SearchHit(id, score));
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparingLong(SearchHit::getDocumentId));
+        return new SearchResult(hits, totalMatches);
+    }
+
+    public int getIndexedDocuments() {
+        return documents.size();
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Intersección de un grupo; null si algún término no tiene documentos
+     */
+    private GroupMatcher matcher(List<List<String>> group, long documentCount, double averageLength) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        boolean hasPhrase = false;
+        for (List<String> clause : group) {
+            terms.addAll(clause);
+            hasPhrase |= clause.size() > 1;
+        }
+
+        List<PostingList.Cursor> cursors = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            PostingList.Cursor cursor = list != null ? list.cursor() : null;
+            if (cursor == null || cursor.size() == 0) {
+                return null; // un término sin documentos anula el grupo
+            }
+            cursors.add(cursor);
+        }
+        // La lista más corta marca el paso; las demás solo saltan
+        cursors.sort(Comparator.comparingInt(PostingList.Cursor::size));
+
+        double[] idf = new double[cursors.size()];
+        for (int i = 0; i < cursors.size(); i++) {
+            int df = cursors.get(i).size();
+            idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+        }
+        return new GroupMatcher(group, hasPhrase, cursors.toArray(new PostingList.Cursor[0]), idf, averageLength);
+    }
+
+    /**
+     * Coincidencias de un grupo en orden de ID (intersección "leapfrog":
+     * cada cursor salta al mayor ID visto hasta que todos coinciden)
+     */
+    private final class GroupMatcher {
+        private final List<List<String>> group;
+        private final boolean hasPhrase;
+        private final PostingList.Cursor[] cursors;
+        private final double[] idf;
+        private final double averageLength;
+
+        private long target = 1;
+        long id;
+        double score;
+
+        GroupMatcher(List<List<String>> group, boolean hasPhrase, PostingList.Cursor[] cursors,
+                     double[] idf, double averageLength) {
+            this.group = group;
+            this.hasPhrase = hasPhrase;
+            this.cursors = cursors;
+            this.idf = idf;
+            this.averageLength = averageLength;
+        }
+
+        boolean next() {
+            candidates:
+            while (true) {
+                if (!cursors[0].advance(target)) {
+                    return false;
+                }
+                target = cursors[0].id();
+                for (int k = 1; k < cursors.length; k++) {
+                    if (!cursors[k].advance(target)) {
+                        return false; // una lista agotada: no hay más coincidencias
+                    }
+                    if (cursors[k].id() != target) {
+                        target = cursors[k].id();
+                        continue candidates;
+                    }
+                }
+
+                long candidate = target++;
+                if (hasPhrase && !containsPhrases(candidate, group)) {
+                    continue;
+                }
+
+                IndexedDocument indexed = documents.get(candidate);
+                int length = indexed != null ? indexed.length : 0;
+                double total = 0;
+                for (int k = 0; k < cursors.length; k++) {
+                    double tf = cursors[k].frequency();
+                    total += idf[k] * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                }
+                id = candidate;
+                score = total;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Las frases se comprueban dentro de cada campo sobre el texto actual
+     */
+    private boolean containsPhrases(long id, List<List<String>> group) {
+        Optional<Document> document = repository.findById(id);
+        if (document.isEmpty()) {
+            return false;
+        }
+        List<List<String>> fieldTokens = new ArrayList<>();
+        for (String field : fieldsOf(document.get())) {
+            fieldTokens.add(Tokenizer.tokenize(field));
+        }
+
+        for (List<String> clause : group) {
+            if (clause.size() < 2) {
+                continue;
+            }
+            boolean found = false;
+            for (List<String> tokens : fieldTokens) {
+                if (Tokenizer.containsPhrase(tokens, clause)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> fieldsOf(Document document) {
+        List<String> fields = new ArrayList<>();
+        fields.add(document.getTitle());
+        fields.add(document.getContent());
+        if (document instanceof ComplexDocument complex && complex.getSections() != null) {
+            fields.addAll(complex.getSections());
+        }
+        return fields;
+    }
+
+    /**
+     * Términos indexados de un documento y su longitud en tokens
+     */
+    private static final class IndexedDocument {
+        final String[] terms;
+        final int length;
+        final long version;
+
+        IndexedDocument(Map<String, Integer> frequencies, int length, long version) {
+            this.terms = frequencies.keySet().toArray(new String[0]);
+            this.length = length;
+            this.version = version;
+        }
+    }
+}
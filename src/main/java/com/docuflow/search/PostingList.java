@@ -0,0 +1,305 @@
+package com.docuflow.search;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Lista de documentos que contienen un término, con su frecuencia.
+ *
+ * La parte consolidada se guarda comprimida: pares (delta de id, frecuencia)
+ * codificados como varint, en bloques de {@value #BLOCK_SIZE} entradas. Una
+ * tabla de saltos guarda el id anterior a cada bloque y su offset, de modo
+ * que un cursor puede saltar directamente al bloque que contiene un id sin
+ * decodificar los anteriores. Los IDs nuevos son crecientes y se añaden al
+ * final directamente; las modificaciones de documentos ya consolidados van a
+ * una capa pendiente (frecuencia 0 = eliminado) que se fusiona al crecer.
+ *
+ * Los bytes ya escritos y las entradas de la tabla no se modifican nunca
+ * (la fusión crea arrays nuevos), así que un cursor solo necesita el bloqueo
+ * para fotografiar las referencias y después lee sin bloquear.
+ */
+class PostingList {
+
+    static final int BLOCK_SIZE = 128;
+
+    private static final int MIN_COMPACT_THRESHOLD = 64;
+
+    private byte[] data = new byte[16];
+    private int length;
+    private int count;
+    private long lastId;
+
+    // Tabla de saltos: id anterior al primero del bloque y offset en data
+    private long[] blockBase = new long[4];
+    private int[] blockOffset = new int[4];
+    private int blocks;
+
+    // Documentos con frecuencia > 0 (consolidados más capa pendiente)
+    private int live;
+
+    private ConcurrentSkipListMap<Long, Integer> pending;
+
+    synchronized void put(long id, int frequency) {
+        if (id > lastId && (pending == null || !pending.containsKey(id))) {
+            append(id, frequency);
+            live++;
+            return;
+        }
+        if (!contains(id)) {
+            live++;
+        }
+        pending().put(id, frequency);
+        maybeCompact();
+    }
+
+    synchronized void remove(long id) {
+        if (id > lastId && (pending == null || !pending.containsKey(id))) {
+            return; // nunca se añadió
+        }
+        if (contains(id)) {
+            live--;
+        }
+        pending().put(id, 0);
+        maybeCompact();
+    }
+
+    /**
+     * Número de documentos que contienen el término
+     */
+    synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Cursor sobre el estado actual; las escrituras posteriores no lo afectan
+     */
+    synchronized Cursor cursor() {
+        return new Cursor(data, count, blockBase, blockOffset, blocks, pending, live);
+    }
+
+    synchronized int compressedBytes() {
+        return length;
+    }
+
+    private boolean contains(long id) {
+        Integer overlay = pending != null ? pending.get(id) : null;
+        if (overlay != null) {
+            return overlay > 0;
+        }
+        Cursor cursor = new Cursor(data, count, blockBase, blockOffset, blocks, null, 0);
+        return cursor.advance(id) && cursor.id() == id;
+    }
+
+    private void append(long id, int frequency) {
+        if (count % BLOCK_SIZE == 0) {
+            if (blocks == blockBase.length) {
+                blockBase = Arrays.copyOf(blockBase, blocks * 2);
+                blockOffset = Arrays.copyOf(blockOffset, blocks * 2);
+            }
+            blockBase[blocks] = lastId;
+            blockOffset[blocks] = length;
+            blocks++;
+        }
+        ensureCapacity(20);
+        writeVarLong(id - lastId);
+        writeVarLong(frequency);
+        lastId = id;
+        count++;
+    }
+
+    private ConcurrentSkipListMap<Long, Integer> pending() {
+        if (pending == null) {
+            pending = new ConcurrentSkipListMap<>();
+        }
+        return pending;
+    }
+
+    private void maybeCompact() {
+        if (pending.size() < Math.max(MIN_COMPACT_THRESHOLD, count / 8)) {
+            return;
+        }
+        long[] ids = new long[live];
+        int[] frequencies = new int[live];
+        int n = 0;
+        Cursor merged = cursor();
+        for (long next = 1; n < live && merged.advance(next); next = merged.id() + 1) {
+            ids[n] = merged.id();
+            frequencies[n++] = merged.frequency();
+        }
+
+        // Arrays nuevos: los cursores abiertos siguen leyendo los anteriores
+        data = new byte[Math.max(16, length)];
+        blockBase = new long[Math.max(4, blocks)];
+        blockOffset = new int[blockBase.length];
+        length = 0;
+        count = 0;
+        blocks = 0;
+        lastId = 0;
+        pending = null;
+        for (int i = 0; i < n; i++) {
+            append(ids[i], frequencies[i]);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Recorrido en orden de id que mezcla la parte comprimida con la capa
+     * pendiente. {@link #advance} salta bloques completos con la tabla de
+     * saltos y solo decodifica el bloque donde cae el id buscado.
+     */
+    static final class Cursor {
+
+        private final byte[] data;
+        private final int count;
+        private final long[] blockBase;
+        private final int[] blockOffset;
+        private final int blocks;
+        private final NavigableMap<Long, Integer> overlay;
+        private final int size;
+
+        // Posición en la parte comprimida
+        private int block = -1;
+        private int blockEntries;
+        private int indexInBlock;
+        private int position;
+        private long compressedId;
+        private int compressedFrequency;
+        private boolean compressedDone;
+
+        // Posición en la capa pendiente
+        private Map.Entry<Long, Integer> overlayEntry;
+
+        // Entrada actual (frecuencia > 0)
+        private long id;
+        private int frequency;
+
+        private Cursor(byte[] data, int count, long[] blockBase, int[] blockOffset, int blocks,
+                       NavigableMap<Long, Integer> overlay, int size) {
+            this.data = data;
+            this.count = count;
+            this.blockBase = blockBase;
+            this.blockOffset = blockOffset;
+            this.blocks = blocks;
+            this.overlay = overlay;
+            this.size = size;
+            this.compressedDone = count == 0;
+            this.overlayEntry = overlay != null ? overlay.firstEntry() : null;
+        }
+
+        /**
+         * Documentos que contienen el término cuando se abrió el cursor
+         */
+        int size() {
+            return size;
+        }
+
+        long id() {
+            return id;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        /**
+         * Se coloca en el primer documento con id >= target; false si no hay más
+         */
+        boolean advance(long target) {
+            while (true) {
+                seekCompressed(target);
+                if (overlayEntry != null && overlayEntry.getKey() < target) {
+                    overlayEntry = overlay.ceilingEntry(target);
+                }
+
+                long compressed = compressedDone ? Long.MAX_VALUE : compressedId;
+                long pendingId = overlayEntry != null ? overlayEntry.getKey() : Long.MAX_VALUE;
+                long candidate = Math.min(compressed, pendingId);
+                if (candidate == Long.MAX_VALUE) {
+                    return false;
+                }
+                int candidateFrequency = candidate == pendingId ? overlayEntry.getValue() : compressedFrequency;
+                if (candidateFrequency > 0) {
+                    id = candidate;
+                    frequency = candidateFrequency;
+                    return true;
+                }
+                target = candidate + 1; // eliminado en la capa pendiente
+            }
+        }
+
+        private void seekCompressed(long target) {
+            if (compressedDone || (block >= 0 && compressedId >= target)) {
+                return;
+            }
+            int candidateBlock = blockFor(target);
+            if (candidateBlock > block) {
+                loadBlock(candidateBlock);
+            }
+            while (true) {
+                while (indexInBlock < blockEntries) {
+                    compressedId += readVarLong();
+                    compressedFrequency = (int) readVarLong();
+                    indexInBlock++;
+                    if (compressedId >= target) {
+                        return;
+                    }
+                }
+                if (block + 1 >= blocks) {
+                    compressedDone = true;
+                    return;
+                }
+                loadBlock(block + 1);
+            }
+        }
+
+        // Último bloque cuyo id base es menor que target (búsqueda binaria)
+        private int blockFor(long target) {
+            int low = 0;
+            int high = blocks - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (blockBase[middle] < target) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        private void loadBlock(int index) {
+            block = index;
+            position = blockOffset[index];
+            compressedId = blockBase[index];
+            indexInBlock = 0;
+            blockEntries = index < blocks - 1 ? BLOCK_SIZE : count - index * BLOCK_SIZE;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
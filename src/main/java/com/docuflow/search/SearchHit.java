@@ -0,0 +1,23 @@
+package com.docuflow.search;
+
+/**
+ * Documento encontrado y su puntuación de relevancia (BM25)
+ */
+public class SearchHit {
+
+    private final long documentId;
+    private final double score;
+
+    public SearchHit(long documentId, double score) {
+        this.documentId = documentId;
+        this.score = score;
+    }
+
+    public long getDocumentId() {
+        return documentId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,95 @@
+package com.docuflow.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta de texto en forma normal disyuntiva: grupos unidos por OR,
+ * cada grupo con cláusulas (término o frase entre comillas) unidas por AND.
+ *
+ * Ejemplos: {@code factura enero}, {@code factura OR recibo},
+ * {@code "contrato laboral" firma}
+ */
+public class SearchQuery {
+
+    private final List<List<List<String>>> groups;
+
+    private SearchQuery(List<List<List<String>>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Grupos OR; cada cláusula es la lista de términos de una palabra o frase
+     */
+    public List<List<List<String>>> getGroups() {
+        return groups;
+    }
+
+    public static SearchQuery parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+
+        List<List<List<String>>> groups = new ArrayList<>();
+        List<List<String>> current = new ArrayList<>();
+        int i = 0;
+
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            String raw;
+            boolean phrase = c == '"';
+            if (phrase) {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = query.length();
+                }
+                raw = query.substring(i + 1, end);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                raw = query.substring(i, end);
+                i = end;
+            }
+
+            if (!phrase && raw.equals("OR")) {
+                if (!current.isEmpty()) {
+                    groups.add(current);
+                    current = new ArrayList<>();
+                }
+                continue;
+            }
+            if (!phrase && raw.equals("AND")) {
+                continue;
+            }
+
+            List<String> terms = Tokenizer.tokenize(raw);
+            if (terms.isEmpty()) {
+                continue;
+            }
+            if (phrase) {
+                current.add(terms);
+            } else {
+                // "e-mail" se tokeniza en dos términos: se exigen ambos
+                for (String term : terms) {
+                    current.add(List.of(term));
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("Search query has no searchable terms: " + query);
+        }
+        return new SearchQuery(groups);
+    }
+}
@@ -0,0 +1,25 @@
+package com.docuflow.search;
+
+import java.util.List;
+
+/**
+ * Mejores resultados de una búsqueda y el total de coincidencias
+ */
+public class SearchResult {
+
+    private final List<SearchHit> hits;
+    private final int totalMatches;
+
+    public SearchResult(List<SearchHit> hits, int totalMatches) {
+        this.hits = hits;
+        this.totalMatches = totalMatches;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+}
@@ -0,0 +1,61 @@
+package com.docuflow.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizador para la búsqueda: separa por caracteres no alfanuméricos,
+ * pasa a minúsculas y elimina tildes ("Camión" -> "camion")
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Indica si la secuencia de términos aparece seguida en los tokens
+     */
+    public static boolean containsPhrase(List<String> tokens, List<String> phrase) {
+        if (phrase.isEmpty()) {
+            return true;
+        }
+        outer:
+        for (int i = 0; i + phrase.size() <= tokens.size(); i++) {
+            for (int j = 0; j < phrase.size(); j++) {
+                if (!tokens.get(i + j).equals(phrase.get(j))) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
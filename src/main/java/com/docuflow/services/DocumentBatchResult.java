@@ -0,0 +1,55 @@
+package com.docuflow.services;
+
+import com.docuflow.models.Document;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado de una creación en lote: una entrada por elemento recibido,
+ * en el mismo orden
+ */
+@Getter
+public class DocumentBatchResult {
+
+    private final List<Item> items;
+    private final int created;
+    private final int failed;
+
+    public DocumentBatchResult(List<Item> items) {
+        this.items = items;
+        int ok = 0;
+        for (Item item : items) {
+            if (item.isSuccess()) {
+                ok++;
+            }
+        }
+        this.created = ok;
+        this.failed = items.size() - ok;
+    }
+
+    @Getter
+    public static class Item {
+        private final int index;
+        private final Document document;
+        private final List<String> errors;
+
+        private Item(int index, Document document, List<String> errors) {
+            this.index = index;
+            this.document = document;
+            this.errors = errors;
+        }
+
+        public static Item created(int index, Document document) {
+            return new Item(index, document, List.of());
+        }
+
+        public static Item failed(int index, List<String> errors) {
+            return new Item(index, null, errors);
+        }
+
+        public boolean isSuccess() {
+            return document != null;
+        }
+    }
+}
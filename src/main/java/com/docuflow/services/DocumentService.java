@@ -1,18 +1,55 @@
 package com.docuflow.services;
 
+import com.docuflow.dto.request.CreateSimpleDocumentRequest;
 import com.docuflow.dto.request.UpdateDocumentRequest;
 import com.docuflow.factories.DocumentFactory;
 import com.docuflow.factories.AbstractFactoryProvider;
 import com.docuflow.builders.DocumentBuilder;
+import com.docuflow.changes.ChangeStreamBroadcaster;
+import com.docuflow.exports.BulkExporter;
+import com.docuflow.exports.CachedExport;
+import com.docuflow.exports.ExportCache;
+import com.docuflow.exports.ExportCacheUsage;
+import com.docuflow.exports.ExportEncoding;
+import com.docuflow.exports.ExportJob;
+import com.docuflow.exports.ExportJobManager;
 import com.docuflow.models.*;
 import com.docuflow.prototypes.PrototypeRegistry;
+import com.docuflow.replication.ReplicationNode;
+import com.docuflow.replication.ReplicationStatus;
 import com.docuflow.repositories.DocumentRepository;
+import com.docuflow.repositories.DocumentQuery;
+import com.docuflow.repositories.DocumentSlice;
+import com.docuflow.repositories.DocumentStats;
+import com.docuflow.repositories.QueryPlan;
+import com.docuflow.repositories.RepositorySnapshot;
+import com.docuflow.search.InvertedIndex;
+import com.docuflow.search.SearchQuery;
+import com.docuflow.search.SearchResult;
 import com.docuflow.exceptions.*;
+import com.docuflow.storage.DedupUsage;
+import com.docuflow.storage.OffHeapUsage;
+import com.docuflow.storage.TierUsage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * ✅ Servicio CORREGIDO que usa correctamente cada patrón
@@ -25,21 +62,57 @@ public class DocumentService {
     private final AbstractFactoryProvider abstractFactoryProvider;
     private final DocumentBuilder documentBuilder;
     private final PrototypeRegistry prototypeRegistry;
+    private final InvertedIndex searchIndex;
+    private final Validator validator;
+    private final ChangeStreamBroadcaster changeStream;
+    private final ObjectProvider<ReplicationNode> replication;
+    private final ExportCache exportCache;
+    private final ExportJobManager exportJobs;
+    private final BulkExporter bulkExporter;
     
     // Tipos válidos de documentos
     private static final String[] VALID_TYPES = {"INVOICE", "REPORT", "CONTRACT"};
 
+    // Límite máximo de documentos por página
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Límite máximo de resultados de búsqueda
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    // Límite máximo de elementos por lote
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Límite máximo de documentos por exportación masiva
+    private static final int MAX_BULK_EXPORT_SIZE = 100_000;
+
+    // Documentos leídos del repositorio de una vez al generar una hoja de cálculo
+    private static final int SPREADSHEET_ROW_WINDOW = 1_000;
+
     public DocumentService(
             DocumentRepository repository,
             DocumentFactory documentFactory,
             AbstractFactoryProvider abstractFactoryProvider,
             DocumentBuilder documentBuilder,
-            PrototypeRegistry prototypeRegistry) {
+            PrototypeRegistry prototypeRegistry,
+            InvertedIndex searchIndex,
+            Validator validator,
+            ChangeStreamBroadcaster changeStream,
+            ObjectProvider<ReplicationNode> replication,
+            ExportCache exportCache,
+            ExportJobManager exportJobs,
+            BulkExporter bulkExporter) {
         this.repository = repository;
         this.documentFactory = documentFactory;
         this.abstractFactoryProvider = abstractFactoryProvider;
         this.documentBuilder = documentBuilder;
         this.prototypeRegistry = prototypeRegistry;
+        this.searchIndex = searchIndex;
+        this.validator = validator;
+        this.changeStream = changeStream;
+        this.replication = replication;
+        this.exportCache = exportCache;
+        this.exportJobs = exportJobs;
+        this.bulkExporter = bulkExporter;
     }
 
     // =====================================================
@@ -50,6 +123,14 @@ public class DocumentService {
      * ✅ CORRECTO: Usa Factory para crear según tipo
      */
     public Document createSimpleDocument(String type, String title, String author, String content) {
+        return repository.save(buildSimpleDocument(type, title, author, content));
+    }
+
+    /**
+     * Documento efímero: se construye igual pero no se guarda (sin ID ni
+     * versión). Sirve para exportar contenido puntual sin tocar el repositorio.
+     */
+    public Document buildSimpleDocument(String type, String title, String author, String content) {
         validateDocumentType(type);
         
         // Factory Pattern crea la instancia correcta
@@ -61,7 +142,51 @@ public class DocumentService {
         document.setContent(content);
         document.setType(type);
         
-        return repository.save(document);
+        return document;
+    }
+
+    /**
+     * Crea varios documentos simples. Cada elemento se valida por separado;
+     * los válidos se guardan en una sola pasada con IDs contiguos y los
+     * inválidos se informan sin abortar el lote.
+     */
+    public DocumentBatchResult createSimpleDocuments(List<CreateSimpleDocumentRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch cannot be empty");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot exceed " + MAX_BATCH_SIZE + " documents");
+        }
+
+        DocumentBatchResult.Item[] items = new DocumentBatchResult.Item[requests.size()];
+        List<Document> documents = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateSimpleDocumentRequest request = requests.get(i);
+            List<String> errors = validateRequest(request);
+            if (!errors.isEmpty()) {
+                items[i] = DocumentBatchResult.Item.failed(i, errors);
+                continue;
+            }
+
+            Document document = documentFactory.createDocument(request.getType());
+            document.setTitle(request.getTitle());
+            document.setAuthor(request.getAuthor());
+            document.setContent(request.getContent());
+            document.setType(request.getType());
+            documents.add(document);
+            positions.add(i);
+        }
+
+        if (!documents.isEmpty()) {
+            List<Document> saved = repository.saveAll(documents);
+            for (int k = 0; k < saved.size(); k++) {
+                items[positions.get(k)] = DocumentBatchResult.Item.created(positions.get(k), saved.get(k));
+            }
+        }
+
+        return new DocumentBatchResult(Arrays.asList(items));
     }
 
     // =====================================================
@@ -125,17 +250,192 @@ public class DocumentService {
             throw new IllegalArgumentException("Document cannot be null");
         }
         
+        return resolveFormat(formatType, document).export(document);
+    }
+
+    /**
+     * Exportación en streaming: el documento se escribe en {@code out} por
+     * partes, con memoria constante sea cual sea su tamaño. Las exportaciones
+     * pequeñas se sirven desde la caché mientras el documento no cambie.
+     * Camino común de las descargas por ID, los documentos efímeros y los
+     * trabajos en segundo plano.
+     */
+    public void exportDocument(Document document, DocumentFormat format, OutputStream out) throws IOException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        exportCache.export(document, format, out);
+    }
+
+    /**
+     * Exportación ya guardada (y comprimida) en la caché; null si hay que generarla
+     */
+    public CachedExport findCachedExport(Document document, DocumentFormat format) {
+        return exportCache.lookup(document, format);
+    }
+
+    /**
+     * Escribe una exportación de la caché en la codificación negociada
+     * (null = sin comprimir)
+     */
+    public void writeCachedExport(CachedExport cached, ExportEncoding encoding, OutputStream out) throws IOException {
+        exportCache.write(cached, encoding, out);
+    }
+
+    /**
+     * Exportación asíncrona: el formato se valida ahora y el documento se
+     * genera en un trabajador, en el spool. Devuelve el trabajo encolado.
+     */
+    public ExportJob submitExport(Document document, String formatType, String fileName) {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        DocumentFormat format = resolveFormat(formatType, document);
+        return exportJobs.submit(
+            fileName + "." + format.getFileExtension(),
+            format.getFormatType(),
+            format.getContentType(),
+            1,
+            (out, job) -> {
+                exportDocument(document, format, out);
+                job.advance();
+            }
+        );
+    }
+
+    public ExportJob getExportJob(String jobId) {
+        return exportJobs.get(jobId);
+    }
+
+    /**
+     * Documentos de una exportación masiva: los IDs indicados (sin
+     * repetir, en ese orden) o todos los del tipo, ordenados por ID. El
+     * límite se comprueba con el número de IDs o el índice de tipos antes
+     * de cargar nada, y otra vez al final por si el tipo creció entretanto.
+     */
+    public List<Document> findDocumentsForExport(List<Long> ids, String type) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byType = type != null && !type.isBlank();
+        if (byIds == byType) {
+            throw new IllegalArgumentException("Specify either ids or type");
+        }
+
+        List<Document> documents;
+        if (byIds) {
+            Set<Long> distinct = new LinkedHashSet<>(ids);
+            checkBulkExportSize(distinct.size());
+            documents = new ArrayList<>();
+            for (Long id : distinct) {
+                documents.add(getDocumentById(id));
+            }
+        } else {
+            validateDocumentType(type);
+            checkBulkExportSize(repository.countByType(type));
+            documents = new ArrayList<>(repository.findByType(type));
+            documents.sort(Comparator.comparing(Document::getId));
+        }
+
+        checkBulkExportSize(documents.size());
+        return documents;
+    }
+
+    private static void checkBulkExportSize(long size) {
+        if (size > MAX_BULK_EXPORT_SIZE) {
+            throw new IllegalArgumentException(
+                "Bulk export size " + size + " exceeds maximum " + MAX_BULK_EXPORT_SIZE);
+        }
+    }
+
+    /**
+     * Exportación masiva en streaming: un ZIP con una entrada por documento
+     */
+    public void exportArchive(List<Document> documents, DocumentFormat format, OutputStream out) throws IOException {
+        bulkExporter.writeZip(documents, format, out, () -> { });
+    }
+
+    /**
+     * Exportación masiva como trabajo en segundo plano (progreso por documento)
+     */
+    public ExportJob submitArchiveExport(List<Document> documents, DocumentFormat format) {
+        return exportJobs.submit(
+            archiveName(format),
+            format.getFormatType(),
+            "application/zip",
+            documents.size(),
+            (out, job) -> bulkExporter.writeZip(documents, format, out, job::advance)
+        );
+    }
+
+    /**
+     * Formato de hoja de cálculo, validando antes el tipo (si se indica)
+     */
+    public ExcelFormat resolveSpreadsheetFormat(String type) {
+        if (type != null) {
+            validateDocumentType(type);
+        }
+        if (!(resolveFormat("EXCEL", null) instanceof ExcelFormat excel)) {
+            throw new ExportException("Spreadsheet export is not available", "EXCEL");
+        }
+        return excel;
+    }
+
+    /**
+     * Hoja de cálculo XLSX con una fila por documento (todos o los del
+     * tipo), por orden de ID. Las filas se leen del repositorio por páginas
+     * de tamaño fijo y se escriben según llegan. Devuelve las filas escritas.
+     */
+    public long exportSpreadsheet(ExcelFormat format, String type, OutputStream out) throws IOException {
+        return format.exportRows(documentsInIdOrder(type), out);
+    }
+
+    /**
+     * Recorre los documentos (todos o los del tipo) por páginas de
+     * SPREADSHEET_ROW_WINDOW, sin cargarlos todos a la vez
+     */
+    private Iterator<Document> documentsInIdOrder(String type) {
+        return new Iterator<>() {
+            private Iterator<Document> page = Collections.emptyIterator();
+            private Long cursor;
+            private boolean more = true;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && more) {
+                    DocumentSlice slice = type == null
+                            ? repository.findPage(cursor, SPREADSHEET_ROW_WINDOW)
+                            : repository.findPageByType(type, cursor, SPREADSHEET_ROW_WINDOW);
+                    page = slice.getDocuments().iterator();
+                    more = slice.hasMore() && !slice.getDocuments().isEmpty();
+                    cursor = slice.getLastId();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+    }
+
+    public String archiveName(DocumentFormat format) {
+        return "documents-" + format.getFileExtension() + ".zip";
+    }
+
+    /**
+     * Abstract Factory obtiene el formato; ExportException si no existe
+     */
+    public DocumentFormat resolveFormat(String formatType, Document document) {
         try {
-            // Abstract Factory obtiene la factory correcta
-            var factory = abstractFactoryProvider.getFactory(formatType);
-            var format = factory.createFormat();
-            
-            return format.export(document);
+            return abstractFactoryProvider.getFormat(formatType);
         } catch (IllegalArgumentException e) {
             throw new ExportException(
                 "Failed to export document to format: " + formatType,
                 formatType,
-                document.getType()
+                document != null ? document.getType() : null
             );
         }
     }
@@ -148,28 +448,90 @@ public class DocumentService {
         return repository.findAll();
     }
 
+    /**
+     * Convierte todos los documentos sin lista intermedia. Con lecturas con
+     * instantánea el resultado refleja un único estado del repositorio.
+     */
+    public <R> List<R> mapAllDocuments(Function<Document, R> mapper) {
+        if (repository.isSnapshotReads()) {
+            try (RepositorySnapshot snapshot = repository.openSnapshot()) {
+                return snapshot.documents().map(mapper).toList();
+            }
+        }
+        return repository.findAll().stream().map(mapper).toList();
+    }
+
+    public <R> List<R> mapDocumentsByType(String type, Function<Document, R> mapper) {
+        validateDocumentType(type);
+        if (repository.isSnapshotReads()) {
+            try (RepositorySnapshot snapshot = repository.openSnapshot()) {
+                return snapshot.documentsOfType(type).map(mapper).toList();
+            }
+        }
+        return repository.findByType(type).stream().map(mapper).toList();
+    }
+
+    /**
+     * Página de documentos ordenada por ID a partir del cursor
+     */
+    public DocumentSlice getDocumentsPage(Long afterId, int limit) {
+        return repository.findPage(afterId, normalizeLimit(limit));
+    }
+
+    /**
+     * Documento por ID o null si no existe
+     */
+    public Document findDocument(Long id) {
+        return repository.findById(id).orElse(null);
+    }
+
     public Document getDocumentById(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new DocumentNotFoundException(id));
     }
 
     public Document updateDocument(UpdateDocumentRequest request) {
+        return updateDocument(request, null);
+    }
+
+    /**
+     * Actualización optimista: se modifica una copia y se publica con
+     * compare-and-set. Si se indican {@code expectedVersions} (If-Match) y la
+     * versión actual no está entre ellas, se lanza
+     * DocumentVersionConflictException; si no, se reintenta.
+     */
+    public Document updateDocument(UpdateDocumentRequest request, Collection<Long> expectedVersions) {
         Objects.requireNonNull(request, "Request cannot be null");
 
-        Document existing = repository.findById(request.getId())
-                .orElseThrow(() -> new DocumentNotFoundException(request.getId()));
+        while (true) {
+            Document current = repository.findById(request.getId())
+                    .orElseThrow(() -> new DocumentNotFoundException(request.getId()));
 
-        if (request.getTitle() != null && !request.getTitle().isBlank()) {
-            existing.setTitle(request.getTitle());
-        }
-        if (request.getAuthor() != null && !request.getAuthor().isBlank()) {
-            existing.setAuthor(request.getAuthor());
-        }
-        if (request.getContent() != null) {
-            existing.setContent(request.getContent());
-        }
+            if (expectedVersions != null && !expectedVersions.contains(current.getVersion())) {
+                long expected = expectedVersions.isEmpty() ? 0 : expectedVersions.iterator().next();
+                throw new DocumentVersionConflictException(current.getId(), expected, current.getVersion());
+            }
+
+            Document updated = current.copy();
+            if (request.getTitle() != null && !request.getTitle().isBlank()) {
+                updated.setTitle(request.getTitle());
+            }
+            if (request.getAuthor() != null && !request.getAuthor().isBlank()) {
+                updated.setAuthor(request.getAuthor());
+            }
+            if (request.getContent() != null) {
+                updated.setContent(request.getContent());
+            }
 
-        return repository.update(existing.getId(), existing);
+            try {
+                if (repository.compareAndSet(current.getId(), current, updated)) {
+                    return updated;
+                }
+            } catch (IllegalArgumentException e) {
+                // Eliminado mientras se preparaba la copia
+                throw new DocumentNotFoundException(request.getId());
+            }
+        }
     }
 
     public void deleteDocument(Long id) {
@@ -184,6 +546,48 @@ public class DocumentService {
         return repository.findByType(type);
     }
 
+    public DocumentSlice getDocumentsByTypePage(String type, Long afterId, int limit) {
+        validateDocumentType(type);
+        return repository.findPageByType(type, afterId, normalizeLimit(limit));
+    }
+
+    // =====================================================
+    // CONSULTAS POR VARIOS CAMPOS
+    // =====================================================
+
+    /**
+     * Valida la consulta y elige el índice con el que se ejecutará
+     */
+    public QueryPlan planQuery(DocumentQuery query) {
+        Objects.requireNonNull(query, "Query cannot be null");
+        if (query.getType() != null) {
+            validateDocumentType(query.getType());
+        }
+        if (query.getCreatedFrom() != null && query.getCreatedTo() != null
+                && !query.getCreatedFrom().isBefore(query.getCreatedTo())) {
+            throw new IllegalArgumentException("createdFrom must be before createdTo");
+        }
+        return repository.plan(query);
+    }
+
+    public DocumentSlice queryDocuments(DocumentQuery query, QueryPlan plan, Long afterId, int limit) {
+        return repository.query(query, plan, afterId, normalizeLimit(limit));
+    }
+
+    // =====================================================
+    // BÚSQUEDA DE TEXTO
+    // =====================================================
+
+    /**
+     * Búsqueda sobre título, contenido y secciones (AND, OR, "frases")
+     */
+    public SearchResult searchDocuments(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        return searchIndex.search(SearchQuery.parse(query), Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
     // =====================================================
     // TEMPLATES
     // =====================================================
@@ -200,10 +604,94 @@ public class DocumentService {
         return repository.count();
     }
 
+    public DocumentStats getStats() {
+        return repository.getStats();
+    }
+
+    /**
+     * ETag débil de los listados; cambia con cualquier modificación
+     */
+    public String getListETag() {
+        return repository.getListETag();
+    }
+
+    /**
+     * Prefijo de arranque de los ETag de documento (0 = sin prefijo)
+     */
+    public long getETagEpoch() {
+        return repository.getETagEpoch();
+    }
+
+    public OffHeapUsage getOffHeapUsage() {
+        return repository.getOffHeapUsage();
+    }
+
+    public TierUsage getTierUsage() {
+        return repository.getTierUsage();
+    }
+
+    public DedupUsage getDedupUsage() {
+        return repository.getDedupUsage();
+    }
+
+    public ExportCacheUsage getExportCacheUsage() {
+        return exportCache.isEnabled() ? exportCache.usage() : null;
+    }
+
+    // =====================================================
+    // CAMBIOS
+    // =====================================================
+
+    /**
+     * Suscripción al feed de cambios; {@code lastEventId} es el id del
+     * último evento que recibió el cliente (cabecera Last-Event-ID)
+     */
+    public SseEmitter subscribeToChanges(String lastEventId) {
+        return changeStream.subscribe(lastEventId);
+    }
+
+    /**
+     * Estado de la replicación; null si la instancia no es líder ni réplica
+     */
+    public ReplicationStatus getReplicationStatus() {
+        ReplicationNode node = replication.getIfAvailable();
+        return node != null ? node.status() : null;
+    }
+
     // =====================================================
     // VALIDACIONES
     // =====================================================
 
+    private int normalizeLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Errores de un elemento del lote (anotaciones del DTO + tipo válido)
+     */
+    private List<String> validateRequest(CreateSimpleDocumentRequest request) {
+        List<String> errors = new ArrayList<>();
+        if (request == null) {
+            errors.add("Document cannot be null");
+            return errors;
+        }
+        for (ConstraintViolation<CreateSimpleDocumentRequest> violation : validator.validate(request)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (errors.isEmpty()) {
+            try {
+                validateDocumentType(request.getType());
+            } catch (InvalidDocumentTypeException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        errors.sort(null);
+        return errors;
+    }
+
     private void validateDocumentType(String type) {
         if (type == null || type.trim().isEmpty()) {
             throw new IllegalArgumentException("Document type cannot be empty");
@@ -0,0 +1,37 @@
+package com.docuflow.storage;
+
+import com.docuflow.models.Document;
+import com.docuflow.models.StoredBody;
+
+/**
+ * Almacén de cuerpos (contenido, encabezado y pie) fuera del propio
+ * documento. El repositorio llama a estos métodos con la clave bloqueada.
+ */
+public interface BodyStore {
+
+    /**
+     * Guarda el cuerpo del documento y libera el anterior
+     */
+    void store(Long id, Document document);
+
+    /**
+     * Como {@link #store}, pero sin liberar el cuerpo anterior: lo devuelve
+     * para que lo libere quien sepa que ningún lector lo usa ya
+     */
+    StoredBody replace(Long id, Document document);
+
+    /**
+     * Quita el cuerpo vigente del documento sin liberarlo
+     */
+    StoredBody detach(Long id);
+
+    /**
+     * Libera un cuerpo desvinculado con {@link #replace} o {@link #detach}
+     * (idempotente)
+     */
+    void free(StoredBody body);
+
+    void release(Long id);
+
+    void clear();
+}
@@ -0,0 +1,240 @@
+package com.docuflow.storage;
+
+import com.docuflow.models.Document;
+import com.docuflow.models.StoredBody;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cuerpos direccionados por contenido: los documentos con el mismo
+ * contenido, encabezado y pie comparten una única copia, identificada por
+ * su SHA-256 y con contador de referencias.
+ *
+ * Cada documento recibe un handle propio que apunta a la copia compartida;
+ * liberar el handle es idempotente y descuenta una sola referencia, así que
+ * las versiones retenidas por instantáneas no alteran el recuento.
+ */
+public class DedupBodyStore implements BodyStore {
+
+    // Copias compartidas por hash
+    private final Map<Digest, SharedBody> shared = new ConcurrentHashMap<>();
+
+    // Handle vigente de cada documento
+    private final Map<Long, DedupBody> bodies = new ConcurrentHashMap<>();
+
+    private final AtomicLong referencedBodies = new AtomicLong();
+    private final AtomicLong uniqueBodies = new AtomicLong();
+    private final AtomicLong logicalBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    @Override
+    public void store(Long id, Document document) {
+        free(replace(id, document));
+    }
+
+    @Override
+    public StoredBody replace(Long id, Document document) {
+        DedupBody current = bodies.get(id);
+        StoredBody attached = document.storedBody();
+        if (attached != null && attached == current) {
+            return null; // el cuerpo no ha cambiado
+        }
+
+        DedupBody body = new DedupBody(acquire(document.getContent(), document.getHeader(), document.getFooter()));
+        document.attachBody(body);
+        bodies.put(id, body);
+        return current;
+    }
+
+    @Override
+    public StoredBody detach(Long id) {
+        return bodies.remove(id);
+    }
+
+    @Override
+    public void free(StoredBody stored) {
+        if (stored instanceof DedupBody body && body.freed.compareAndSet(false, true)) {
+            release(body.shared);
+        }
+    }
+
+    @Override
+    public void release(Long id) {
+        free(bodies.remove(id));
+    }
+
+    @Override
+    public void clear() {
+        bodies.keySet().forEach(this::release);
+    }
+
+    public DedupUsage usage() {
+        return new DedupUsage(referencedBodies.get(), uniqueBodies.get(), logicalBytes.get(), storedBytes.get());
+    }
+
+    // =====================================================
+    // COPIAS COMPARTIDAS
+    // =====================================================
+
+    private SharedBody acquire(String content, String header, String footer) {
+        Digest digest = Digest.of(content, header, footer);
+        SharedBody[] result = new SharedBody[1];
+
+        shared.compute(digest, (key, existing) -> {
+            if (existing != null && existing.sameText(content, header, footer)) {
+                existing.references++;
+                result[0] = existing;
+                return existing;
+            }
+            SharedBody created = new SharedBody(digest, content, header, footer);
+            result[0] = created;
+            uniqueBodies.incrementAndGet();
+            storedBytes.addAndGet(created.bytes);
+            if (existing != null) {
+                // Colisión de SHA-256: la copia nueva no se comparte
+                created.indexed = false;
+                return existing;
+            }
+            return created;
+        });
+
+        referencedBodies.incrementAndGet();
+        logicalBytes.addAndGet(result[0].bytes);
+        return result[0];
+    }
+
+    private void release(SharedBody body) {
+        referencedBodies.decrementAndGet();
+        logicalBytes.addAndGet(-body.bytes);
+        if (!body.indexed) {
+            uniqueBodies.decrementAndGet();
+            storedBytes.addAndGet(-body.bytes);
+            return;
+        }
+        shared.computeIfPresent(body.digest, (key, existing) -> {
+            if (existing != body) {
+                return existing;
+            }
+            if (--existing.references > 0) {
+                return existing;
+            }
+            uniqueBodies.decrementAndGet();
+            storedBytes.addAndGet(-existing.bytes);
+            return null;
+        });
+    }
+
+    /**
+     * Texto compartido; {@code references} se modifica dentro del compute
+     * de su clave
+     */
+    private static final class SharedBody {
+        final Digest digest;
+        final String content;
+        final String header;
+        final String footer;
+        final long bytes;
+        int references = 1;
+        boolean indexed = true;
+
+        SharedBody(Digest digest, String content, String header, String footer) {
+            this.digest = digest;
+            this.content = content;
+            this.header = header;
+            this.footer = footer;
+            this.bytes = 2L * (length(content) + length(header) + length(footer));
+        }
+
+        boolean sameText(String content, String header, String footer) {
+            return Objects.equals(this.content, content)
+                    && Objects.equals(this.header, header)
+                    && Objects.equals(this.footer, footer);
+        }
+
+        private static int length(String value) {
+            return value != null ? value.length() : 0;
+        }
+    }
+
+    /**
+     * Handle de un documento sobre una copia compartida
+     */
+    static final class DedupBody implements StoredBody {
+        private final SharedBody shared;
+        private final AtomicBoolean freed = new AtomicBoolean();
+
+        private DedupBody(SharedBody shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public String content() {
+            return shared.content;
+        }
+
+        @Override
+        public String header() {
+            return shared.header;
+        }
+
+        @Override
+        public String footer() {
+            return shared.footer;
+        }
+    }
+
+    /**
+     * SHA-256 de los tres campos (con longitud, para distinguir null de "")
+     */
+    private static final class Digest {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private Digest(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        static Digest of(String content, String header, String footer) {
+            MessageDigest sha;
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            update(sha, content);
+            update(sha, header);
+            update(sha, footer);
+            return new Digest(sha.digest());
+        }
+
+        private static void update(MessageDigest sha, String value) {
+            if (value == null) {
+                sha.update(new byte[]{-1, -1, -1, -1});
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = bytes.length;
+            sha.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            sha.update(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Digest digest && Arrays.equals(hash, digest.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.docuflow.storage;
+
+/**
+ * Efecto de la deduplicación de cuerpos (tamaños estimados a 2 bytes por carácter)
+ */
+public class DedupUsage {
+
+    private final long referencedBodies;
+    private final long uniqueBodies;
+    private final long logicalBytes;
+    private final long storedBytes;
+
+    public DedupUsage(long referencedBodies, long uniqueBodies, long logicalBytes, long storedBytes) {
+        this.referencedBodies = referencedBodies;
+        this.uniqueBodies = uniqueBodies;
+        this.logicalBytes = logicalBytes;
+        this.storedBytes = storedBytes;
+    }
+
+    // Cuerpos referenciados por documentos (y versiones retenidas)
+    public long getReferencedBodies() { return referencedBodies; }
+
+    // Cuerpos distintos realmente guardados
+    public long getUniqueBodies() { return uniqueBodies; }
+
+    // Lo que ocuparían sin deduplicar
+    public long getLogicalBytes() { return logicalBytes; }
+
+    public long getStoredBytes() { return storedBytes; }
+
+    public long getBytesSaved() { return logicalBytes - storedBytes; }
+
+    // Bytes lógicos por byte guardado (1.0 = sin duplicados)
+    public double getDedupRatio() {
+        return storedBytes == 0 ? 1.0 : (double) logicalBytes / storedBytes;
+    }
+}
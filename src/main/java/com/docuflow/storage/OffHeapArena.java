@@ -0,0 +1,301 @@
+package com.docuflow.storage;
+
+import com.docuflow.models.StoredBody;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Arena de memoria fuera del heap para los cuerpos de los documentos.
+ *
+ * La memoria se reserva en bloques de ByteBuffer directos y se reparte en
+ * huecos de tamaño potencia de dos. Los huecos liberados vuelven a una lista
+ * por tamaño y se reutilizan. Cuerpos mayores que un bloque reciben un
+ * buffer propio que se descarta al liberarlos.
+ *
+ * Cada hueco empieza con una cabecera de 16 bytes:
+ * [int generación][int bytes contenido][int bytes encabezado][int bytes pie]
+ * seguida de los tres textos en UTF-8 (longitud -1 = null). La generación
+ * cambia al liberar el hueco, de modo que un handle antiguo no lee datos
+ * de otro documento.
+ *
+ * Un cuerpo sustituido o borrado no se libera en el acto: una exportación
+ * en streaming o un compare-and-set pueden seguir leyendo el Document
+ * anterior. Se retira y el hueco vuelve a la arena cuando su handle deja
+ * de ser alcanzable, igual que hace el JDK con los ByteBuffer directos.
+ */
+public class OffHeapArena {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final int HEADER_BYTES = 16;
+    private static final int MIN_SLOT_BYTES = 64;
+    private static final int NULL_LENGTH = -1;
+
+    private final int chunkBytes;
+    private final int sizeClasses;
+
+    // Las lecturas no toman el lock: el array se reemplaza (copy-on-write)
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    // Guardados por "this"
+    private final ArrayDeque<Long>[] freeSlots;
+    private int chunkCount;
+    private int currentChunk = -1;
+    private int bumpOffset;
+
+    private long reservedBytes;
+    private long allocatedBytes;
+    private long payloadBytes;
+    private long liveSlots;
+    private long retiredSlots;
+
+    @SuppressWarnings("unchecked")
+    public OffHeapArena(int chunkBytes) {
+        if (Integer.bitCount(chunkBytes) != 1 || chunkBytes < MIN_SLOT_BYTES) {
+            throw new IllegalArgumentException("Chunk size must be a power of two >= " + MIN_SLOT_BYTES);
+        }
+        this.chunkBytes = chunkBytes;
+        this.sizeClasses = Integer.numberOfTrailingZeros(chunkBytes / MIN_SLOT_BYTES) + 1;
+        this.freeSlots = new ArrayDeque[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            freeSlots[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Copia el cuerpo a la arena y devuelve su handle
+     */
+    public Slot allocate(String content, String header, String footer) {
+        byte[] c = encode(content);
+        byte[] h = encode(header);
+        byte[] f = encode(footer);
+        int payload = length(c) + length(h) + length(f);
+        int needed = HEADER_BYTES + payload;
+
+        Slot slot = reserve(needed, payload);
+        ByteBuffer buffer = chunkOf(slot.chunk);
+        int generation = buffer.getInt(slot.offset);
+
+        buffer.putInt(slot.offset + 4, c != null ? c.length : NULL_LENGTH);
+        buffer.putInt(slot.offset + 8, h != null ? h.length : NULL_LENGTH);
+        buffer.putInt(slot.offset + 12, f != null ? f.length : NULL_LENGTH);
+        int position = slot.offset + HEADER_BYTES;
+        position = put(buffer, position, c);
+        position = put(buffer, position, h);
+        put(buffer, position, f);
+
+        return new Slot(this, slot.chunk, slot.offset, slot.capacity, generation, payload);
+    }
+
+    /**
+     * Retira el cuerpo (idempotente): el hueco vuelve a la arena cuando
+     * ningún lector conserva ya el handle
+     */
+    public void retire(Slot slot) {
+        if (!Slot.RETIRED.compareAndSet(slot, false, true)) {
+            return;
+        }
+        synchronized (this) {
+            liveSlots--;
+            retiredSlots++;
+        }
+        // La acción no debe referenciar al handle, o nunca sería inalcanzable
+        CLEANER.register(slot, new Reclaim(this, slot.chunk, slot.offset, slot.capacity,
+                slot.generation, slot.payloadBytes));
+    }
+
+    private synchronized void reclaim(int chunk, int offset, int capacity, int generation, int payload) {
+        ByteBuffer buffer = chunkOf(chunk);
+        if (buffer == null || buffer.getInt(offset) != generation) {
+            return; // ya liberado
+        }
+        buffer.putInt(offset, generation + 1);
+
+        allocatedBytes -= capacity;
+        payloadBytes -= payload;
+        retiredSlots--;
+
+        if (capacity > chunkBytes) {
+            // Buffer dedicado: se suelta y lo recoge el GC
+            ByteBuffer[] updated = chunks.clone();
+            updated[chunk] = null;
+            chunks = updated;
+            reservedBytes -= capacity;
+        } else {
+            freeSlots[sizeClassOf(capacity)].push(encodeAddress(chunk, offset));
+        }
+    }
+
+    public synchronized OffHeapUsage usage() {
+        long freeBytes = 0;
+        for (int i = 0; i < sizeClasses; i++) {
+            freeBytes += (long) freeSlots[i].size() * (MIN_SLOT_BYTES << i);
+        }
+        return new OffHeapUsage(reservedBytes, allocatedBytes, payloadBytes, freeBytes, liveSlots, retiredSlots);
+    }
+
+    private record Reclaim(OffHeapArena arena, int chunk, int offset, int capacity,
+                           int generation, int payload) implements Runnable {
+        @Override
+        public void run() {
+            arena.reclaim(chunk, offset, capacity, generation, payload);
+        }
+    }
+
+    // =====================================================
+    // LECTURA
+    // =====================================================
+
+    String read(Slot slot, int field) {
+        ByteBuffer buffer = chunkOf(slot.chunk);
+        if (buffer == null || buffer.getInt(slot.offset) != slot.generation) {
+            throw new IllegalStateException("Off-heap document body was released");
+        }
+
+        int position = slot.offset + HEADER_BYTES;
+        for (int i = 0; i < field; i++) {
+            position += Math.max(0, buffer.getInt(slot.offset + 4 + 4 * i));
+        }
+        int length = buffer.getInt(slot.offset + 4 + 4 * field);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+
+        // El hueco pudo reutilizarse mientras se copiaba
+        if (buffer.getInt(slot.offset) != slot.generation) {
+            throw new IllegalStateException("Off-heap document body was released");
+        }
+        // El handle sigue vivo hasta aquí: su Cleaner no puede liberar el hueco a mitad de copia
+        Reference.reachabilityFence(slot);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer chunkOf(int chunk) {
+        return chunks[chunk];
+    }
+
+    // =====================================================
+    // RESERVA
+    // =====================================================
+
+    private synchronized Slot reserve(int needed, int payload) {
+        int capacity = Math.max(MIN_SLOT_BYTES, Integer.highestOneBit(needed - 1) << 1);
+        Slot slot;
+
+        if (capacity > chunkBytes) {
+            int chunk = addChunk(ByteBuffer.allocateDirect(capacity));
+            slot = new Slot(this, chunk, 0, capacity, 0, payload);
+            chunkOf(chunk).putInt(0, 1);
+        } else {
+            Long free = freeSlots[sizeClassOf(capacity)].poll();
+            if (free != null) {
+                slot = new Slot(this, (int) (free >>> 32), (int) (long) free, capacity, 0, payload);
+            } else {
+                if (currentChunk < 0 || bumpOffset + capacity > chunkBytes) {
+                    currentChunk = addChunk(ByteBuffer.allocateDirect(chunkBytes));
+                    bumpOffset = 0;
+                }
+                slot = new Slot(this, currentChunk, bumpOffset, capacity, 0, payload);
+                chunkOf(currentChunk).putInt(bumpOffset, 1);
+                bumpOffset += capacity;
+            }
+        }
+
+        allocatedBytes += capacity;
+        payloadBytes += payload;
+        liveSlots++;
+        return slot;
+    }
+
+    private int addChunk(ByteBuffer buffer) {
+        ByteBuffer[] updated = Arrays.copyOf(chunks, chunkCount + 1);
+        updated[chunkCount] = buffer;
+        chunks = updated;
+        reservedBytes += buffer.capacity();
+        return chunkCount++;
+    }
+
+    private int sizeClassOf(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity / MIN_SLOT_BYTES);
+    }
+
+    private static long encodeAddress(int chunk, int offset) {
+        return ((long) chunk << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static byte[] encode(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static int put(ByteBuffer buffer, int position, byte[] bytes) {
+        if (bytes == null) {
+            return position;
+        }
+        buffer.put(position, bytes);
+        return position + bytes.length;
+    }
+
+    /**
+     * Handle de un cuerpo almacenado en la arena
+     */
+    public static final class Slot implements StoredBody {
+
+        private static final VarHandle RETIRED;
+
+        static {
+            try {
+                RETIRED = MethodHandles.lookup().findVarHandle(Slot.class, "retired", boolean.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final OffHeapArena arena;
+        private final int chunk;
+        private final int offset;
+        private final int capacity;
+        private final int generation;
+        private final int payloadBytes;
+
+        // Retirado: ya tiene un Cleaner registrado
+        private volatile boolean retired;
+
+        private Slot(OffHeapArena arena, int chunk, int offset, int capacity, int generation, int payloadBytes) {
+            this.arena = arena;
+            this.chunk = chunk;
+            this.offset = offset;
+            this.capacity = capacity;
+            this.generation = generation;
+            this.payloadBytes = payloadBytes;
+        }
+
+        @Override
+        public String content() {
+            return arena.read(this, 0);
+        }
+
+        @Override
+        public String header() {
+            return arena.read(this, 1);
+        }
+
+        @Override
+        public String footer() {
+            return arena.read(this, 2);
+        }
+    }
+}
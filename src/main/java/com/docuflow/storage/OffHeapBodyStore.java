@@ -0,0 +1,89 @@
+package com.docuflow.storage;
+
+import com.docuflow.models.Document;
+import com.docuflow.models.StoredBody;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guarda el cuerpo de cada documento en la arena off-heap y retira el
+ * hueco anterior cuando el documento se actualiza o se elimina (se libera
+ * cuando ningún lector conserva el Document antiguo).
+ * En el heap solo quedan los metadatos (id, título, autor, tipo).
+ */
+public class OffHeapBodyStore implements BodyStore {
+
+    private final OffHeapArena arena;
+
+    // Hueco vigente de cada documento
+    private final Map<Long, OffHeapArena.Slot> slots = new ConcurrentHashMap<>();
+
+    public OffHeapBodyStore(int chunkBytes) {
+        this.arena = new OffHeapArena(chunkBytes);
+    }
+
+    /**
+     * Mueve el cuerpo del documento fuera del heap. Se llama con la clave
+     * bloqueada por el repositorio.
+     */
+    @Override
+    public void store(Long id, Document document) {
+        OffHeapArena.Slot current = slots.get(id);
+        StoredBody attached = document.storedBody();
+        if (attached != null && attached == current) {
+            return; // el cuerpo no ha cambiado
+        }
+
+        OffHeapArena.Slot slot = arena.allocate(document.getContent(), document.getHeader(), document.getFooter());
+        document.attachBody(slot);
+        slots.put(id, slot);
+
+        if (current != null) {
+            arena.retire(current);
+        }
+    }
+
+    @Override
+    public StoredBody replace(Long id, Document document) {
+        OffHeapArena.Slot current = slots.get(id);
+        StoredBody attached = document.storedBody();
+        if (attached != null && attached == current) {
+            return null;
+        }
+
+        OffHeapArena.Slot slot = arena.allocate(document.getContent(), document.getHeader(), document.getFooter());
+        document.attachBody(slot);
+        slots.put(id, slot);
+        return current;
+    }
+
+    @Override
+    public StoredBody detach(Long id) {
+        return slots.remove(id);
+    }
+
+    @Override
+    public void free(StoredBody body) {
+        if (body instanceof OffHeapArena.Slot slot) {
+            arena.retire(slot);
+        }
+    }
+
+    @Override
+    public void release(Long id) {
+        OffHeapArena.Slot slot = slots.remove(id);
+        if (slot != null) {
+            arena.retire(slot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        slots.keySet().forEach(this::release);
+    }
+
+    public OffHeapUsage usage() {
+        return arena.usage();
+    }
+}
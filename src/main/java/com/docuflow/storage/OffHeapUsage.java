@@ -0,0 +1,42 @@
+package com.docuflow.storage;
+
+/**
+ * Uso de memoria de la arena off-heap (en bytes)
+ */
+public class OffHeapUsage {
+
+    private final long reservedBytes;
+    private final long allocatedBytes;
+    private final long payloadBytes;
+    private final long freeListBytes;
+    private final long liveBodies;
+    private final long retiredBodies;
+
+    public OffHeapUsage(long reservedBytes, long allocatedBytes, long payloadBytes,
+                        long freeListBytes, long liveBodies, long retiredBodies) {
+        this.reservedBytes = reservedBytes;
+        this.allocatedBytes = allocatedBytes;
+        this.payloadBytes = payloadBytes;
+        this.freeListBytes = freeListBytes;
+        this.liveBodies = liveBodies;
+        this.retiredBodies = retiredBodies;
+    }
+
+    // Memoria directa reservada al sistema
+    public long getReservedBytes() { return reservedBytes; }
+
+    // Huecos ocupados, también los retirados (incluye el redondeo a potencia de dos)
+    public long getAllocatedBytes() { return allocatedBytes; }
+
+    // Bytes UTF-8 útiles de los cuerpos aún en la arena
+    public long getPayloadBytes() { return payloadBytes; }
+
+    // Huecos liberados pendientes de reutilizar
+    public long getFreeListBytes() { return freeListBytes; }
+
+    // Cuerpos vigentes de algún documento o versión
+    public long getLiveBodies() { return liveBodies; }
+
+    // Cuerpos sustituidos o borrados que esperan a que ningún lector los use
+    public long getRetiredBodies() { return retiredBodies; }
+}
@@ -0,0 +1,92 @@
+package com.docuflow.storage;
+
+/**
+ * Estado y métricas de los niveles de cuerpos (caliente / templado / frío)
+ */
+public class TierUsage {
+
+    private final long hotBodies;
+    private final long hotBytes;
+    private final long hotBudgetBytes;
+    private final long warmBodies;
+    private final long warmBytes;
+    private final long warmBudgetBytes;
+    private final long coldBodies;
+    private final long coldBytes;
+    private final long coldSegments;
+    private final long coldSegmentBytes;
+    private final long compactedSegments;
+    private final long hotHits;
+    private final long warmHits;
+    private final long coldHits;
+    private final long demotionsToWarm;
+    private final long demotionsToCold;
+    private final double averagePromotionMicros;
+    private final double maxPromotionMicros;
+
+    public TierUsage(long hotBodies, long hotBytes, long hotBudgetBytes,
+                     long warmBodies, long warmBytes, long warmBudgetBytes,
+                     long coldBodies, long coldBytes, long coldSegments,
+                     long coldSegmentBytes, long compactedSegments,
+                     long hotHits, long warmHits, long coldHits,
+                     long demotionsToWarm, long demotionsToCold,
+                     double averagePromotionMicros, double maxPromotionMicros) {
+        this.hotBodies = hotBodies;
+        this.hotBytes = hotBytes;
+        this.hotBudgetBytes = hotBudgetBytes;
+        this.warmBodies = warmBodies;
+        this.warmBytes = warmBytes;
+        this.warmBudgetBytes = warmBudgetBytes;
+        this.coldBodies = coldBodies;
+        this.coldBytes = coldBytes;
+        this.coldSegments = coldSegments;
+        this.coldSegmentBytes = coldSegmentBytes;
+        this.compactedSegments = compactedSegments;
+        this.hotHits = hotHits;
+        this.warmHits = warmHits;
+        this.coldHits = coldHits;
+        this.demotionsToWarm = demotionsToWarm;
+        this.demotionsToCold = demotionsToCold;
+        this.averagePromotionMicros = averagePromotionMicros;
+        this.maxPromotionMicros = maxPromotionMicros;
+    }
+
+    // Cuerpos en Strings y su tamaño estimado (2 bytes por carácter)
+    public long getHotBodies() { return hotBodies; }
+    public long getHotBytes() { return hotBytes; }
+    public long getHotBudgetBytes() { return hotBudgetBytes; }
+
+    // Cuerpos comprimidos en el heap
+    public long getWarmBodies() { return warmBodies; }
+    public long getWarmBytes() { return warmBytes; }
+    public long getWarmBudgetBytes() { return warmBudgetBytes; }
+
+    // Cuerpos comprimidos en ficheros de segmento
+    public long getColdBodies() { return coldBodies; }
+    public long getColdBytes() { return coldBytes; }
+    public long getColdSegments() { return coldSegments; }
+
+    // Tamaño en disco de los segmentos (cuerpos vivos más huecos sin compactar)
+    public long getColdSegmentBytes() { return coldSegmentBytes; }
+
+    // Segmentos reescritos por tener demasiado espacio muerto
+    public long getCompactedSegments() { return compactedSegments; }
+
+    // Lecturas servidas desde cada nivel
+    public long getHotHits() { return hotHits; }
+    public long getWarmHits() { return warmHits; }
+    public long getColdHits() { return coldHits; }
+
+    public double getHotHitRate() {
+        long total = hotHits + warmHits + coldHits;
+        return total == 0 ? 1.0 : (double) hotHits / total;
+    }
+
+    public long getDemotionsToWarm() { return demotionsToWarm; }
+    public long getDemotionsToCold() { return demotionsToCold; }
+
+    // Tiempo de promoción (descompresión y, si es frío, lectura del fichero)
+    public long getPromotions() { return warmHits + coldHits; }
+    public double getAveragePromotionMicros() { return averagePromotionMicros; }
+    public double getMaxPromotionMicros() { return maxPromotionMicros; }
+}
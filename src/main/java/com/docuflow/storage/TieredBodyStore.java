@@ -0,0 +1,794 @@
+package com.docuflow.storage;
+
+import com.docuflow.exceptions.PersistenceException;
+import com.docuflow.models.Document;
+import com.docuflow.models.StoredBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cuerpos de documentos en tres niveles con presupuesto de memoria:
+ * caliente (Strings en el heap), templado (comprimidos con Deflater en el
+ * heap) y frío (comprimidos en ficheros de segmento locales; en el heap
+ * solo queda segmento, offset y longitud).
+ *
+ * La degradación sigue el algoritmo del reloj: leer un cuerpo solo marca
+ * un bit, sin bloqueos, y al superar el presupuesto se recorre el anillo
+ * del nivel dando una segunda oportunidad a los cuerpos leídos desde la
+ * última pasada. La degradación la hace un hilo aparte, así que el
+ * presupuesto puede superarse brevemente. Leer un cuerpo templado o frío
+ * lo promociona a caliente de forma transparente.
+ *
+ * Un segmento frío que ya no es el activo se compacta cuando sus cuerpos
+ * vivos ocupan menos de la mitad del fichero: se copian al segmento activo
+ * y el fichero se borra, de modo que el disco no crece sin límite.
+ *
+ * Un cuerpo sustituido o borrado se retira pero no se descarta hasta que
+ * su handle deja de ser alcanzable: un lector que aún tenga el Document
+ * anterior lo sigue leyendo (y promocionando) sin errores.
+ *
+ * Los ficheros fríos no son persistencia: se borran al arrancar.
+ */
+public class TieredBodyStore implements BodyStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredBodyStore.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final String SEGMENT_PREFIX = "cold-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int NULL_LENGTH = -1;
+
+    // Se compacta un segmento cuando lo vivo baja de esta fracción
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    // Entradas de más que tolera un anillo antes de purgar las obsoletas
+    private static final int RING_SLACK = 64;
+
+    private final long hotBudgetBytes;
+    private final long warmBudgetBytes;
+    private final Path directory;
+    private final long segmentSizeBytes;
+
+    // Cuerpo vigente de cada documento
+    private final Map<Long, TieredBody> bodies = new ConcurrentHashMap<>();
+
+    // Candidatos a degradar de cada nivel (guardados por ringLock). Un
+    // cuerpo está como mucho una vez en cada anillo; las entradas obsoletas
+    // se descartan al sacarlas o al compactar. Guardan el estado y no el
+    // handle, para no impedir que este se recoja.
+    // Orden de bloqueo: demotionLock -> cuerpo -> ringLock / segmentLock
+    private final Object ringLock = new Object();
+    private final ClockRing hotRing = new ClockRing(Hot.class, 1);
+    private final ClockRing warmRing = new ClockRing(Warm.class, 2);
+    private final Object demotionLock = new Object();
+
+    private final ExecutorService demoter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "docuflow-tier-demoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean demotionScheduled = new AtomicBoolean();
+
+    // Tamaño de cada nivel
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final AtomicLong warmBytes = new AtomicLong();
+    private final AtomicLong coldBytes = new AtomicLong();
+    private final AtomicLong hotBodies = new AtomicLong();
+    private final AtomicLong warmBodies = new AtomicLong();
+    private final AtomicLong coldBodies = new AtomicLong();
+
+    // Métricas
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder warmHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder demotionsToWarm = new LongAdder();
+    private final LongAdder demotionsToCold = new LongAdder();
+    private final LongAdder compactedSegments = new LongAdder();
+    private final LongAdder promotionNanos = new LongAdder();
+    private final AtomicLong maxPromotionNanos = new AtomicLong();
+
+    // Segmentos fríos (guardados por segmentLock)
+    private final Object segmentLock = new Object();
+    private final Map<Integer, ColdSegment> segments = new ConcurrentHashMap<>();
+    private ColdSegment currentSegment;
+    private int nextSegmentId;
+
+    public TieredBodyStore(long hotBudgetBytes, long warmBudgetBytes, Path directory, long segmentSizeBytes) {
+        if (hotBudgetBytes <= 0 || warmBudgetBytes < 0 || segmentSizeBytes <= 0) {
+            throw new IllegalArgumentException("Tier budgets and segment size must be positive");
+        }
+        this.hotBudgetBytes = hotBudgetBytes;
+        this.warmBudgetBytes = warmBudgetBytes;
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path path : stale) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("Cannot prepare cold tier directory " + directory, e);
+        }
+    }
+
+    // =====================================================
+    // BodyStore
+    // =====================================================
+
+    @Override
+    public void store(Long id, Document document) {
+        free(replace(id, document));
+    }
+
+    @Override
+    public StoredBody replace(Long id, Document document) {
+        TieredBody current = bodies.get(id);
+        StoredBody attached = document.storedBody();
+        if (attached != null && attached == current) {
+            return null; // el cuerpo no ha cambiado
+        }
+
+        TieredBody body = new TieredBody(this, new BodyState());
+        enterHot(body.state, new Hot(document.getContent(), document.getHeader(), document.getFooter()));
+        document.attachBody(body);
+        bodies.put(id, body);
+
+        scheduleDemotion();
+        return current;
+    }
+
+    @Override
+    public StoredBody detach(Long id) {
+        return bodies.remove(id);
+    }
+
+    /**
+     * Retira el cuerpo (idempotente): sale de su nivel cuando ningún lector
+     * conserva ya el handle
+     */
+    @Override
+    public void free(StoredBody stored) {
+        if (stored instanceof TieredBody body && TieredBody.RETIRED.compareAndSet(body, false, true)) {
+            // La acción no debe referenciar al handle, o nunca sería inalcanzable
+            BodyState state = body.state;
+            CLEANER.register(body, () -> discard(state));
+        }
+    }
+
+    private void discard(BodyState body) {
+        synchronized (body) {
+            if (body.freed) {
+                return;
+            }
+            body.freed = true;
+            leave(body, body.payload);
+            body.payload = null;
+        }
+    }
+
+    @Override
+    public void release(Long id) {
+        free(bodies.remove(id));
+    }
+
+    @Override
+    public void clear() {
+        bodies.keySet().forEach(this::release);
+    }
+
+    @Override
+    public void close() {
+        demoter.shutdownNow();
+        synchronized (segmentLock) {
+            for (ColdSegment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            currentSegment = null;
+        }
+    }
+
+    public TierUsage usage() {
+        long promotions = warmHits.sum() + coldHits.sum();
+        return new TierUsage(
+                hotBodies.get(), hotBytes.get(), hotBudgetBytes,
+                warmBodies.get(), warmBytes.get(), warmBudgetBytes,
+                coldBodies.get(), coldBytes.get(), segments.size(),
+                segmentBytes(), compactedSegments.sum(),
+                hotHits.sum(), warmHits.sum(), coldHits.sum(),
+                demotionsToWarm.sum(), demotionsToCold.sum(),
+                promotions == 0 ? 0 : promotionNanos.sum() / 1_000.0 / promotions,
+                maxPromotionNanos.get() / 1_000.0);
+    }
+
+    // =====================================================
+    // LECTURA Y PROMOCIÓN
+    // =====================================================
+
+    String read(TieredBody handle, int field) {
+        BodyState body = handle.state;
+        body.referenced = true;
+        Hot hot;
+        if (body.payload instanceof Hot current) {
+            hotHits.increment();
+            hot = current;
+        } else {
+            hot = promote(body);
+            scheduleDemotion();
+        }
+        // El handle sigue vivo hasta aquí: su Cleaner no puede descartar el cuerpo a mitad de lectura
+        Reference.reachabilityFence(handle);
+        return hot.field(field);
+    }
+
+    private Hot promote(BodyState body) {
+        synchronized (body) {
+            Object payload = body.payload;
+            if (payload instanceof Hot hot) {
+                hotHits.increment(); // otro lector se adelantó
+                return hot;
+            }
+            if (body.freed) {
+                throw new IllegalStateException("Document body was released");
+            }
+
+            long start = System.nanoTime();
+            Hot hot;
+            if (payload instanceof Warm warm) {
+                hot = decode(inflate(warm.compressed, warm.rawLength));
+                warmHits.increment();
+            } else {
+                Cold cold = (Cold) payload;
+                hot = decode(inflate(cold.segment.read(cold.offset, cold.length), cold.rawLength));
+                coldHits.increment();
+            }
+            leave(body, payload);
+            enterHot(body, hot);
+
+            long elapsed = System.nanoTime() - start;
+            promotionNanos.add(elapsed);
+            maxPromotionNanos.accumulateAndGet(elapsed, Math::max);
+            return hot;
+        }
+    }
+
+    // =====================================================
+    // DEGRADACIÓN
+    // =====================================================
+
+    private void scheduleDemotion() {
+        if (!overBudget() || !demotionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            demoter.execute(() -> {
+                demotionScheduled.set(false);
+                demoteNow();
+            });
+        } catch (RejectedExecutionException e) {
+            demotionScheduled.set(false); // cerrado
+        }
+    }
+
+    /**
+     * Degrada hasta volver al presupuesto (lo usa el hilo de degradación;
+     * público para poder forzarlo)
+     */
+    public void demoteNow() {
+        synchronized (demotionLock) {
+            while (hotBytes.get() > hotBudgetBytes) {
+                BodyState victim = nextVictim(hotRing);
+                if (victim == null) {
+                    break;
+                }
+                demoteToWarm(victim);
+            }
+            try {
+                while (warmBytes.get() > warmBudgetBytes) {
+                    BodyState victim = nextVictim(warmRing);
+                    if (victim == null) {
+                        break;
+                    }
+                    demoteToCold(victim);
+                }
+            } catch (PersistenceException e) {
+                // Sin nivel frío el cuerpo sigue templado; se reintenta en la próxima pasada
+                log.warn("Cannot spill document bodies to the cold tier: {}", e.getMessage());
+            }
+        }
+    }
+
+    private boolean overBudget() {
+        return hotBytes.get() > hotBudgetBytes || warmBytes.get() > warmBudgetBytes;
+    }
+
+    /**
+     * Siguiente cuerpo del anillo sin lecturas recientes (segunda oportunidad)
+     */
+    private BodyState nextVictim(ClockRing ring) {
+        synchronized (ringLock) {
+            for (int remaining = ring.entries.size() * 2; remaining > 0; remaining--) {
+                BodyState body = ring.entries.poll();
+                if (body == null) {
+                    return null;
+                }
+                if (ring.stale(body)) {
+                    body.rings &= ~ring.bit;
+                    continue;
+                }
+                if (body.referenced) {
+                    body.referenced = false;
+                    ring.entries.add(body);
+                    continue;
+                }
+                body.rings &= ~ring.bit;
+                return body;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Pone el cuerpo en el anillo si no estaba ya. Sin presión de memoria
+     * nadie saca entradas, así que las obsoletas (cuerpos sustituidos,
+     * promocionados o descartados) se purgan cuando el anillo dobla a los
+     * cuerpos vivos del nivel: coste amortizado constante por inserción.
+     */
+    private void enqueue(ClockRing ring, BodyState body, long live) {
+        synchronized (ringLock) {
+            if ((body.rings & ring.bit) != 0) {
+                return;
+            }
+            body.rings |= ring.bit;
+            ring.entries.add(body);
+            if (ring.entries.size() > 2 * live + RING_SLACK) {
+                ring.entries.removeIf(entry -> {
+                    boolean stale = ring.stale(entry);
+                    if (stale) {
+                        entry.rings &= ~ring.bit;
+                    }
+                    return stale;
+                });
+            }
+        }
+    }
+
+    int ringSize(boolean hot) {
+        synchronized (ringLock) {
+            return (hot ? hotRing : warmRing).entries.size();
+        }
+    }
+
+    private void demoteToWarm(BodyState body) {
+        synchronized (body) {
+            if (body.freed || !(body.payload instanceof Hot hot)) {
+                return;
+            }
+            byte[] raw = encode(hot);
+            Warm warm = new Warm(deflate(raw), raw.length);
+            leave(body, hot);
+            body.payload = warm;
+            warmBytes.addAndGet(warm.compressed.length);
+            enqueue(warmRing, body, warmBodies.incrementAndGet());
+            demotionsToWarm.increment();
+        }
+    }
+
+    private void demoteToCold(BodyState body) {
+        synchronized (body) {
+            if (body.freed || !(body.payload instanceof Warm warm)) {
+                return;
+            }
+            Cold cold = append(body, warm.compressed, warm.rawLength);
+            leave(body, warm);
+            body.payload = cold;
+            coldBytes.addAndGet(cold.length);
+            coldBodies.incrementAndGet();
+            demotionsToCold.increment();
+        }
+    }
+
+    private void enterHot(BodyState body, Hot hot) {
+        body.payload = hot;
+        hotBytes.addAndGet(hot.bytes);
+        enqueue(hotRing, body, hotBodies.incrementAndGet());
+    }
+
+    /**
+     * Descuenta el cuerpo del nivel que ocupaba
+     */
+    private void leave(BodyState body, Object payload) {
+        if (payload instanceof Hot hot) {
+            hotBytes.addAndGet(-hot.bytes);
+            hotBodies.decrementAndGet();
+        } else if (payload instanceof Warm warm) {
+            warmBytes.addAndGet(-warm.compressed.length);
+            warmBodies.decrementAndGet();
+        } else if (payload instanceof Cold cold) {
+            coldBytes.addAndGet(-cold.length);
+            coldBodies.decrementAndGet();
+            releaseCold(body, cold);
+        }
+    }
+
+    // =====================================================
+    // SEGMENTOS FRÍOS
+    // =====================================================
+
+    private Cold append(BodyState body, byte[] compressed, int rawLength) {
+        synchronized (segmentLock) {
+            if (currentSegment == null || currentSegment.size + compressed.length > segmentSizeBytes) {
+                ColdSegment previous = currentSegment;
+                currentSegment = ColdSegment.open(directory.resolve(
+                        String.format("%s%06d%s", SEGMENT_PREFIX, nextSegmentId, SEGMENT_SUFFIX)), nextSegmentId);
+                segments.put(nextSegmentId++, currentSegment);
+                if (previous != null) {
+                    settle(previous);
+                }
+            }
+            long offset = currentSegment.append(compressed);
+            currentSegment.residents.add(body);
+            currentSegment.liveBytes += compressed.length;
+            return new Cold(currentSegment, offset, compressed.length, rawLength);
+        }
+    }
+
+    private void releaseCold(BodyState body, Cold cold) {
+        synchronized (segmentLock) {
+            ColdSegment segment = cold.segment;
+            segment.residents.remove(body);
+            segment.liveBytes -= cold.length;
+            if (segment != currentSegment) {
+                settle(segment);
+            }
+        }
+    }
+
+    /**
+     * Borra un segmento cerrado que ya no tiene cuerpos vivos o programa su
+     * compactación si casi todo es espacio muerto (con segmentLock tomado)
+     */
+    private void settle(ColdSegment segment) {
+        if (segment.residents.isEmpty()) {
+            dropSegment(segment);
+        } else if (segment.liveBytes < segment.size * COMPACTION_THRESHOLD && !segment.compacting) {
+            segment.compacting = true;
+            try {
+                demoter.execute(() -> compact(segment));
+            } catch (RejectedExecutionException e) {
+                segment.compacting = false; // cerrado
+            }
+        }
+    }
+
+    /**
+     * Copia los cuerpos vivos del segmento al activo; al salir el último,
+     * releaseCold borra el fichero
+     */
+    private void compact(ColdSegment segment) {
+        List<BodyState> residents;
+        synchronized (segmentLock) {
+            if (!segments.containsKey(segment.id)) {
+                return; // ya borrado
+            }
+            residents = new ArrayList<>(segment.residents);
+        }
+        try {
+            for (BodyState body : residents) {
+                synchronized (body) {
+                    if (body.freed || !(body.payload instanceof Cold cold) || cold.segment != segment) {
+                        continue; // promocionado o descartado mientras tanto
+                    }
+                    Cold moved = append(body, segment.read(cold.offset, cold.length), cold.rawLength);
+                    body.payload = moved;
+                    releaseCold(body, cold);
+                }
+            }
+            compactedSegments.increment();
+        } catch (PersistenceException e) {
+            // Los cuerpos que no se movieron siguen siendo legibles donde estaban
+            log.warn("Cannot compact cold segment {}: {}", segment.path, e.getMessage());
+            synchronized (segmentLock) {
+                segment.compacting = false;
+            }
+        }
+    }
+
+    private long segmentBytes() {
+        synchronized (segmentLock) {
+            long total = 0;
+            for (ColdSegment segment : segments.values()) {
+                total += segment.size;
+            }
+            return total;
+        }
+    }
+
+    private void dropSegment(ColdSegment segment) {
+        segments.remove(segment.id);
+        segment.close();
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Cannot delete cold segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    // =====================================================
+    // CODIFICACIÓN
+    // =====================================================
+
+    private static byte[] encode(Hot hot) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, hot.bytes / 2 + 12));
+        for (int field = 0; field < 3; field++) {
+            String value = hot.field(field);
+            byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+            int length = bytes != null ? bytes.length : NULL_LENGTH;
+            out.write(length >>> 24);
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+            if (bytes != null) {
+                out.writeBytes(bytes);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Hot decode(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        String[] fields = new String[3];
+        for (int field = 0; field < 3; field++) {
+            int length = buffer.getInt();
+            if (length != NULL_LENGTH) {
+                fields[field] = new String(raw, buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return new Hot(fields[0], fields[1], fields[2]);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new IllegalStateException("Corrupted compressed document body");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed document body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // =====================================================
+    // TIPOS
+    // =====================================================
+
+    private record Hot(String content, String header, String footer, long bytes) {
+        Hot(String content, String header, String footer) {
+            this(content, header, footer, 2L * (length(content) + length(header) + length(footer)));
+        }
+
+        String field(int field) {
+            return switch (field) {
+                case 0 -> content;
+                case 1 -> header;
+                default -> footer;
+            };
+        }
+
+        private static int length(String value) {
+            return value != null ? value.length() : 0;
+        }
+    }
+
+    private record Warm(byte[] compressed, int rawLength) {
+    }
+
+    private record Cold(ColdSegment segment, long offset, int length, int rawLength) {
+    }
+
+    /**
+     * Fichero de segmento frío: solo se añade al final; se borra cuando ya
+     * no contiene cuerpos vivos (campos guardados por segmentLock)
+     */
+    private static final class ColdSegment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        long size;
+
+        // Cuerpos vivos en el fichero y lo que ocupan
+        final Set<BodyState> residents = new HashSet<>();
+        long liveBytes;
+        boolean compacting;
+
+        private ColdSegment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        static ColdSegment open(Path path, int id) {
+            try {
+                return new ColdSegment(id, path, FileChannel.open(path,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            } catch (IOException e) {
+                throw new PersistenceException("Cannot create cold segment " + path, e);
+            }
+        }
+
+        long append(byte[] bytes) {
+            long offset = size;
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    size += channel.write(buffer, size);
+                }
+            } catch (IOException e) {
+                size = offset;
+                throw new PersistenceException("Cannot write cold segment " + path, e);
+            }
+            return offset;
+        }
+
+        byte[] read(long offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new PersistenceException("Truncated cold segment " + path);
+                    }
+                }
+            } catch (IOException e) {
+                throw new PersistenceException("Cannot read cold segment " + path, e);
+            }
+            return bytes;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // se borra a continuación
+            }
+        }
+    }
+
+    /**
+     * Nivel y datos de un cuerpo (se bloquea al cambiarlo de nivel)
+     */
+    private static final class BodyState {
+        // Hot | Warm | Cold; null una vez descartado (se cambia con el cuerpo bloqueado)
+        volatile Object payload;
+        volatile boolean referenced;
+        volatile boolean freed;
+        // Anillos en los que está (bits de ClockRing; guardado por ringLock)
+        int rings;
+    }
+
+    /**
+     * Anillo del reloj de un nivel
+     */
+    private static final class ClockRing {
+        final ArrayDeque<BodyState> entries = new ArrayDeque<>();
+        final Class<?> tier;
+        final int bit;
+
+        ClockRing(Class<?> tier, int bit) {
+            this.tier = tier;
+            this.bit = bit;
+        }
+
+        // El cuerpo ya no está en este nivel
+        boolean stale(BodyState body) {
+            return body.freed || !tier.isInstance(body.payload);
+        }
+    }
+
+    /**
+     * Handle de un cuerpo; su contenido cambia de nivel sin que el
+     * documento lo note
+     */
+    static final class TieredBody implements StoredBody {
+
+        private static final VarHandle RETIRED;
+
+        static {
+            try {
+                RETIRED = MethodHandles.lookup().findVarHandle(TieredBody.class, "retired", boolean.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final TieredBodyStore store;
+        private final BodyState state;
+
+        // Retirado: ya tiene un Cleaner registrado
+        private volatile boolean retired;
+
+        private TieredBody(TieredBodyStore store, BodyState state) {
+            this.store = store;
+            this.state = state;
+        }
+
+        @Override
+        public String content() {
+            return store.read(this, 0);
+        }
+
+        @Override
+        public String header() {
+            return store.read(this, 1);
+        }
+
+        @Override
+        public String footer() {
+            return store.read(this, 2);
+        }
+    }
+}
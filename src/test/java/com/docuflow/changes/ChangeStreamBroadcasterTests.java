@@ -0,0 +1,136 @@
+package com.docuflow.changes;
+
+import com.docuflow.config.ChangeStreamProperties;
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeStreamBroadcasterTests {
+
+	@Test
+	void slowSubscriberDoesNotStallItsPartition() throws Exception {
+		ChangeStreamProperties properties = new ChangeStreamProperties();
+		properties.setDispatcherThreads(1);
+		properties.setPollIntervalMs(10);
+		properties.setSendTimeoutMs(300);
+		DocumentRepository repository = new DocumentRepository();
+		ChangeStreamBroadcaster broadcaster = new ChangeStreamBroadcaster(repository, properties);
+
+		// Cliente que no lee: el envío bloquea hasta el final del test
+		CountDownLatch release = new CountDownLatch(1);
+		SseEmitter stuck = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		AtomicInteger received = new AtomicInteger();
+		SseEmitter fast = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) {
+				received.incrementAndGet();
+			}
+		};
+
+		broadcaster.start();
+		try {
+			broadcaster.register(stuck, null);
+			broadcaster.register(fast, null);
+			for (int i = 0; i < 3; i++) {
+				repository.save(invoice());
+			}
+
+			// Misma partición: el rápido recibe todo aunque el otro siga bloqueado
+			await(() -> received.get() >= 3);
+			assertEquals(1, release.getCount());
+
+			// Pasado el plazo se desconecta al lento y el rápido sigue recibiendo
+			await(() -> broadcaster.getSubscriberCount() == 1);
+			repository.save(invoice());
+			await(() -> received.get() >= 4);
+		} finally {
+			release.countDown();
+			broadcaster.stop();
+		}
+	}
+
+	@Test
+	void lastEventIdFromAnotherRunGetsResync() throws Exception {
+		ChangeStreamProperties properties = new ChangeStreamProperties();
+		properties.setPollIntervalMs(10);
+		DocumentRepository repository = new DocumentRepository();
+		ChangeStreamBroadcaster broadcaster = new ChangeStreamBroadcaster(repository, properties);
+		ChangeFeed feed = repository.getChangeFeed();
+		for (int i = 0; i < 3; i++) {
+			repository.save(invoice());
+		}
+
+		broadcaster.start();
+		try {
+			// Misma época: reanuda tras la secuencia 1 y recibe 2 y 3
+			RecordingEmitter resumed = new RecordingEmitter();
+			broadcaster.register(resumed, feed.getEpoch() + "-1");
+			await(() -> resumed.frames.size() >= 2);
+			assertTrue(resumed.frames.get(0).contains("event:change\nid:" + feed.getEpoch() + "-2\n"));
+
+			// Secuencia válida aquí pero de otro arranque (o sin época): resync, nunca reanudar
+			for (String stale : List.of((feed.getEpoch() + 1) + "-1", "1")) {
+				RecordingEmitter restarted = new RecordingEmitter();
+				broadcaster.register(restarted, stale);
+				await(() -> !restarted.frames.isEmpty());
+				assertTrue(restarted.frames.get(0).contains("event:resync\nid:" + feed.getEpoch() + "-3\n"));
+				assertEquals(1, restarted.frames.size());
+			}
+
+			assertThrows(IllegalArgumentException.class, () -> broadcaster.register(new RecordingEmitter(), "abc"));
+		} finally {
+			broadcaster.stop();
+		}
+	}
+
+	/**
+	 * Guarda el texto de cada evento enviado
+	 */
+	private static final class RecordingEmitter extends SseEmitter {
+		final List<String> frames = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			StringBuilder frame = new StringBuilder();
+			builder.build().forEach(part -> frame.append(part.getData()));
+			frames.add(frame.toString());
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+			Thread.sleep(10);
+		}
+	}
+
+	private static Document invoice() {
+		Document document = new Invoice();
+		document.setTitle("Title");
+		document.setAuthor("Author");
+		document.setContent("Some content");
+		document.setType("invoice");
+		return document;
+	}
+}
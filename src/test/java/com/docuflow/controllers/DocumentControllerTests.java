@@ -0,0 +1,75 @@
+package com.docuflow.controllers;
+
+import com.docuflow.repositories.DocumentRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DocumentControllerTests {
+
+	private static final String REQUEST = """
+			{"documentName": "Puntual", "documentType": "INVOICE",
+			 "content": "Contenido efímero para exportar", "formatType": "PDF"}""";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private DocumentRepository repository;
+
+	@Test
+	void adHocExportsNeverTouchTheRepository() throws Exception {
+		long before = repository.count();
+
+		// Como trabajo: 202 y descarga cuando termina
+		String accepted = mvc.perform(post("/api/documents/export")
+						.contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		String statusUrl = JsonPath.read(accepted, "$.statusUrl");
+		String downloadUrl = JsonPath.read(accepted, "$.downloadUrl");
+		awaitCompleted(statusUrl);
+		String downloaded = mvc.perform(get(downloadUrl))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(downloaded.contains("Contenido efímero para exportar"));
+
+		// En streaming: el fichero en la respuesta
+		MvcResult started = mvc.perform(post("/api/documents/export/render")
+						.contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+				.andReturn();
+		String rendered = mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"Puntual.pdf\""))
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(rendered.contains("Contenido efímero para exportar"));
+
+		assertEquals(before, repository.count());
+	}
+
+	private void awaitCompleted(String statusUrl) throws Exception {
+		long deadline = System.currentTimeMillis() + 5_000;
+		String state;
+		do {
+			Thread.sleep(10);
+			state = JsonPath.read(mvc.perform(get(statusUrl)).andReturn().getResponse().getContentAsString(), "$.status");
+		} while (!"COMPLETED".equals(state) && !"FAILED".equals(state) && System.currentTimeMillis() < deadline);
+		assertEquals("COMPLETED", state);
+	}
+}
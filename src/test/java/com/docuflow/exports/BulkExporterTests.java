@@ -0,0 +1,52 @@
+package com.docuflow.exports;
+
+import com.docuflow.config.ExportProperties;
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import com.docuflow.models.PDFFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkExporterTests {
+
+	@Test
+	void writesEntriesInRequestOrderWhileRenderingInParallel() throws Exception {
+		ExportProperties properties = new ExportProperties();
+		properties.setBulkParallelism(3);
+		properties.setBulkWindow(4);
+		BulkExporter exporter = new BulkExporter(properties);
+		PDFFormat pdf = new PDFFormat();
+
+		List<Document> documents = new ArrayList<>();
+		for (long id = 200; id > 0; id--) {
+			documents.add(new Invoice(id, "Factura " + id, "Ana", "Importe " + "x".repeat((int) id), "INVOICE", "F-" + id, id));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomicInteger written = new AtomicInteger();
+		try {
+			exporter.writeZip(documents, pdf, out, written::incrementAndGet);
+		} finally {
+			exporter.stop();
+		}
+		assertEquals(200, written.get());
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (Document document : documents) {
+				ZipEntry entry = zip.getNextEntry();
+				assertEquals("document-" + document.getId() + ".pdf", entry.getName());
+				assertEquals(pdf.export(document), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+			assertNull(zip.getNextEntry());
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.docuflow.exports;
+
+import com.docuflow.config.ExportProperties;
+import com.docuflow.models.Document;
+import com.docuflow.models.DocumentFormat;
+import com.docuflow.models.Invoice;
+import com.docuflow.models.PDFFormat;
+import com.docuflow.models.WordFormat;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportCacheTests {
+
+	private final DocumentRepository repository = new DocumentRepository();
+
+	@Test
+	void servesCachedExportUntilDocumentChanges() throws IOException {
+		ExportCache cache = cache(new ExportProperties());
+		PDFFormat pdf = new PDFFormat();
+		Document invoice = repository.save(invoice("Primera versión"));
+
+		String first = streamed(cache, invoice, pdf);
+		assertEquals(first, streamed(cache, invoice, pdf));
+		assertEquals(1, cache.usage().getHits());
+		assertEquals(1, cache.usage().getMisses());
+
+		invoice.setContent("Segunda versión");
+		Document updated = repository.update(invoice.getId(), invoice);
+		assertEquals(0, cache.usage().getEntries());
+		assertTrue(streamed(cache, updated, pdf).contains("Segunda versión"));
+		assertTrue(streamed(cache, updated, pdf).contains("Segunda versión"));
+
+		repository.deleteById(updated.getId());
+		assertEquals(0, cache.usage().getBytes());
+		assertEquals(2, cache.usage().getInvalidations());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondEntryLimit() throws IOException {
+		ExportProperties properties = new ExportProperties();
+		properties.setCacheMaxEntries(2);
+		ExportCache cache = cache(properties);
+		WordFormat word = new WordFormat();
+		Document a = repository.save(invoice("A"));
+		Document b = repository.save(invoice("B"));
+		Document c = repository.save(invoice("C"));
+
+		streamed(cache, a, word);
+		streamed(cache, b, word);
+		streamed(cache, a, word); // a pasa a ser la más reciente
+		streamed(cache, c, word);
+
+		ExportCacheUsage usage = cache.usage();
+		assertEquals(2, usage.getEntries());
+		assertEquals(1, usage.getEvictions());
+		streamed(cache, a, word);
+		assertEquals(2, cache.usage().getHits());
+	}
+
+	@Test
+	void storesTextExportsCompressedOnceAndNegotiatesEncoding() throws IOException {
+		ExportCache cache = cache(new ExportProperties());
+		PDFFormat pdf = new PDFFormat();
+		Document invoice = repository.save(invoice("Línea repetida. ".repeat(200)));
+
+		String plain = streamed(cache, invoice, pdf);
+		CachedExport cached = cache.lookup(invoice, pdf);
+		assertTrue(cached.isCompressed());
+		assertEquals(ExportEncoding.GZIP, cached.encodingFor("gzip, deflate, br"));
+		assertNull(cached.encodingFor("identity"));
+		assertNull(cached.encodingFor("gzip;q=0"));
+
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		cache.write(cached, ExportEncoding.GZIP, gzip);
+		try (var in = ExportEncoding.GZIP.decompressing(new ByteArrayInputStream(gzip.toByteArray()))) {
+			assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		assertEquals(plain, streamed(cache, invoice, pdf)); // cliente sin gzip: se descomprime
+
+		ExportCacheUsage usage = cache.usage();
+		assertEquals(1, usage.getCompressedEntries());
+		assertTrue(usage.getCompressionRatio() > 5);
+		assertEquals(1, usage.getCompressedResponses());
+		assertEquals(1, usage.getDecompressedResponses());
+		assertTrue(usage.getSavedCompressionMillis() > 0);
+	}
+
+	private ExportCache cache(ExportProperties properties) {
+		ExportCache cache = new ExportCache(repository, properties);
+		cache.afterSingletonsInstantiated();
+		return cache;
+	}
+
+	private static String streamed(ExportCache cache, Document document, DocumentFormat format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cache.export(document, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static Invoice invoice(String content) {
+		Invoice invoice = new Invoice();
+		invoice.setTitle("Factura");
+		invoice.setAuthor("Ana");
+		invoice.setContent(content);
+		invoice.setType("INVOICE");
+		return invoice;
+	}
+}
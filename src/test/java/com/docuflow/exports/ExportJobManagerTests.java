@@ -0,0 +1,77 @@
+package com.docuflow.exports;
+
+import com.docuflow.config.ExportProperties;
+import com.docuflow.exceptions.ExportJobNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportJobManagerTests {
+
+	@TempDir
+	Path spool;
+
+	private ExportJobManager manager;
+
+	@AfterEach
+	void stop() {
+		manager.stop();
+	}
+
+	@Test
+	void runsJobsInBackgroundAndExpiresTheirFiles() throws Exception {
+		ExportProperties properties = new ExportProperties();
+		properties.setSpoolDirectory(spool.toString());
+		properties.setSpoolTtlMs(0);
+		manager = new ExportJobManager(properties);
+		manager.start();
+
+		ExportJob done = manager.submit("a.pdf", "PDF", "text/plain", 2, (out, job) -> {
+			for (String part : new String[] {"uno ", "dos"}) {
+				out.write(part.getBytes(StandardCharsets.UTF_8));
+				job.advance();
+			}
+		});
+		ExportJob failed = manager.submit("b.pdf", "PDF", "text/plain", 1, (out, job) -> {
+			out.write(1);
+			throw new IOException("disk full");
+		});
+		awaitFinished(done);
+		awaitFinished(failed);
+
+		assertEquals(ExportJobStatus.COMPLETED, done.getStatus());
+		assertEquals(1.0, done.getProgress());
+		assertEquals(7, done.getBytesWritten());
+		// El texto se guarda comprimido en el spool
+		assertEquals(ExportEncoding.GZIP, done.getEncoding());
+		try (var in = ExportEncoding.GZIP.decompressing(Files.newInputStream(done.getFile()))) {
+			assertEquals("uno dos", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		assertEquals(ExportJobStatus.FAILED, failed.getStatus());
+		assertEquals("disk full", failed.getError());
+		assertNull(failed.getFile());
+		try (var files = Files.list(spool)) {
+			assertEquals(1, files.count()); // sin ficheros a medias
+		}
+
+		manager.expire();
+		assertFalse(Files.exists(done.getFile()));
+		assertThrows(ExportJobNotFoundException.class, () -> manager.get(done.getId()));
+	}
+
+	private static void awaitFinished(ExportJob job) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(job.isFinished());
+	}
+}
@@ -0,0 +1,89 @@
+package com.docuflow.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentFormatTests {
+
+	@Test
+	void streamingExportMatchesStringExport() throws IOException {
+		ComplexDocument complex = new ComplexDocument(1L, "Informe", "Ana", "Contenido con ñ", "COMPLEX",
+				null, "Pie", List.of("Uno", "Dos"));
+		Invoice invoice = new Invoice(2L, "Factura", "Luis", "Detalle", "INVOICE", null, 12.5);
+
+		for (DocumentFormat format : List.of(new PDFFormat(), new WordFormat())) {
+			for (Document document : List.<Document>of(complex, invoice)) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				format.export(document, out);
+				assertEquals(format.export(document), out.toString(StandardCharsets.UTF_8));
+			}
+		}
+		assertTrue(complex.generateDocument().contains("Encabezado: N/A\n"));
+		assertTrue(invoice.generateDocument().contains("Invoice Number: null\nAmount: 12.5\n"));
+	}
+
+	@Test
+	void excelWritesOneSpreadsheetRowPerDocument() throws IOException {
+		List<Document> documents = new ArrayList<>();
+		for (long id = 1; id <= 3; id++) {
+			documents.add(new Invoice(id, "Factura", "Ana & Luis", "Línea <" + id + ">", "INVOICE", "F-" + id, id * 10.5));
+		}
+		documents.add(new Report(4L, "Informe", "Ana & Luis", "Resumen", "REPORT", "Q1"));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(4, new ExcelFormat().exportRows(documents.iterator(), out));
+
+		Map<String, String> parts = new HashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+				parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		assertTrue(parts.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+				"xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml", "xl/sharedStrings.xml")));
+
+		String sheet = parts.get("xl/worksheets/sheet1.xml");
+		assertEquals(5, sheet.split("<row ", -1).length - 1); // cabecera + 4 filas
+		assertTrue(sheet.contains("<c r=\"F2\"><v>10.5</v></c>"));
+		assertTrue(sheet.contains("<t xml:space=\"preserve\">Línea &lt;3&gt;</t>"));
+
+		// Tipo y autor se repiten: se guardan una vez en la tabla compartida; el título va en la celda
+		String strings = parts.get("xl/sharedStrings.xml");
+		assertEquals(1, strings.split("Ana &amp; Luis", -1).length - 1);
+		assertTrue(strings.contains("count=\"17\" uniqueCount=\"12\""));
+		assertTrue(sheet.contains("<c r=\"C2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">Factura</t>"));
+		assertFalse(strings.contains("Factura"));
+	}
+
+	@Test
+	void excelTruncatesLongCellsWithoutSplittingCharacters() throws IOException {
+		// El par suplente del emoji queda partido justo en el límite de 32.767 caracteres
+		String content = "x".repeat(32_766) + "😀 resto";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ExcelFormat().exportRows(List.of(new Report(1L, "Informe", "Ana", content, "REPORT", "Q1")).iterator(), out);
+
+		String sheet = null;
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+				if (entry.getName().equals("xl/worksheets/sheet1.xml")) {
+					sheet = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+				}
+			}
+		}
+		assertNotNull(sheet);
+		assertTrue(sheet.contains("x".repeat(32_766) + "</t>"));
+		assertFalse(sheet.contains("?</t>"));
+	}
+}
@@ -0,0 +1,95 @@
+package com.docuflow.persistence;
+
+import com.docuflow.config.PersistenceProperties;
+import com.docuflow.exceptions.ReadOnlyReplicaException;
+import com.docuflow.models.ComplexDocument;
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentPersistenceManagerTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversSnapshotAndLogTail() {
+		DocumentRepository repository = new DocumentRepository();
+		DocumentPersistenceManager manager = start(repository);
+
+		Document kept = repository.save(invoice("Kept"));
+		Document deleted = repository.save(invoice("Deleted"));
+		manager.snapshot();
+
+		kept.setTitle("Kept v2");
+		repository.update(kept.getId(), kept);
+		repository.deleteById(deleted.getId());
+		repository.save(new ComplexDocument(null, "Complex", "Ana", "Body", "COMPLEX",
+				"Header", "Footer", List.of("One", "Two")));
+		manager.stop();
+
+		DocumentRepository recovered = new DocumentRepository();
+		DocumentPersistenceManager restarted = start(recovered);
+
+		assertEquals(2, recovered.count());
+		assertEquals("Kept v2", recovered.findById(kept.getId()).orElseThrow().getTitle());
+		assertFalse(recovered.existsById(deleted.getId()));
+		ComplexDocument complex = (ComplexDocument) recovered.findById(3L).orElseThrow();
+		assertEquals(List.of("One", "Two"), complex.getSections());
+		assertEquals("Header", complex.getHeader());
+		// Tras reiniciar los IDs salen de un bloque nuevo, nunca por debajo de los recuperados
+		assertTrue(recovered.save(invoice("New")).getId() > 3L);
+		assertTrue(restarted.getLastRecovery().getEntriesReplayed() > 0);
+		restarted.stop();
+	}
+
+	@Test
+	void deleteAllSurvivesRestart() {
+		DocumentRepository repository = new DocumentRepository();
+		DocumentPersistenceManager manager = start(repository);
+		repository.save(invoice("One"));
+		repository.save(invoice("Two"));
+		manager.snapshot();
+		repository.save(invoice("Three"));
+
+		repository.deleteAll();
+		manager.stop();
+
+		DocumentRepository recovered = new DocumentRepository();
+		DocumentPersistenceManager restarted = start(recovered);
+		assertEquals(0, recovered.count());
+		restarted.stop();
+
+		// Una réplica no se vacía por su cuenta
+		recovered.setReadOnly(true);
+		assertThrows(ReadOnlyReplicaException.class, recovered::deleteAll);
+	}
+
+	private DocumentPersistenceManager start(DocumentRepository repository) {
+		PersistenceProperties properties = new PersistenceProperties();
+		properties.setEnabled(true);
+		properties.setDirectory(directory.toString());
+		properties.setFsync(FsyncPolicy.GROUP);
+		DocumentPersistenceManager manager = new DocumentPersistenceManager(repository, properties);
+		manager.start();
+		return manager;
+	}
+
+	private static Invoice invoice(String title) {
+		Invoice invoice = new Invoice();
+		invoice.setTitle(title);
+		invoice.setAuthor("Ana");
+		invoice.setContent("Invoice body");
+		invoice.setType("INVOICE");
+		invoice.setInvoiceNumber("F-1");
+		invoice.setAmount(10.5);
+		return invoice;
+	}
+}
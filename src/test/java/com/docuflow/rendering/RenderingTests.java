@@ -0,0 +1,96 @@
+package com.docuflow.rendering;
+
+import com.docuflow.models.ComplexDocument;
+import com.docuflow.models.Contract;
+import com.docuflow.models.Document;
+import com.docuflow.models.DocumentTemplate;
+import com.docuflow.models.Invoice;
+import com.docuflow.models.PDFFormat;
+import com.docuflow.models.Report;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderingTests {
+
+	@Test
+	void compiledPlansKeepTheDocumentLayouts() {
+		Invoice invoice = new Invoice(1L, "Factura", "Ana", "Detalle", "INVOICE", "F-1", 12.0);
+		invoice.setAmount(-3.25);
+		assertEquals("Invoice Document:\nInvoice Number: F-1\nAmount: -3.25\nAuthor: Ana\nContent: Detalle",
+				invoice.generateDocument());
+		invoice.setAmount(1500);
+		invoice.setInvoiceNumber(null);
+		assertEquals("Invoice Document:\nInvoice Number: null\nAmount: 1500.0\nAuthor: Ana\nContent: Detalle",
+				invoice.generateDocument());
+
+		assertEquals("Report Document:\nTitle: Informe\nAuthor: Luis\nSummary: Q1\nContent: Texto",
+				new Report(2L, "Informe", "Luis", "Texto", "REPORT", "Q1").generateDocument());
+
+		Contract contract = new Contract();
+		contract.setTitle("Contrato");
+		contract.setCompany("ACME");
+		assertEquals("Contract Document:\nTitle: Contrato\nAuthor: null\nCompany: ACME\nSignature: null\nContent: null",
+				contract.generateDocument());
+
+		DocumentTemplate template = new DocumentTemplate();
+		template.setTitle("Plantilla");
+		template.setContent("Cuerpo");
+		assertEquals("Documento generado desde la plantilla: Plantilla\nContenido: Cuerpo", template.generateDocument());
+
+		ComplexDocument complex = new ComplexDocument(3L, "Título", "Eva", "Contenido", "COMPLEX",
+				null, "Pie", new LinkedList<>(List.of("Uno", "Dos")));
+		assertEquals("=== Documento Complejo ===\nTítulo: Título\nAutor: Eva\nTipo: COMPLEX\nEncabezado: N/A\n"
+				+ "Contenido: Contenido\n\nSecciones:\n - Uno\n - Dos\n\nPie de página: Pie\n", complex.generateDocument());
+		complex.setSections(List.of());
+		assertEquals("=== Documento Complejo ===\nTítulo: Título\nAutor: Eva\nTipo: COMPLEX\nEncabezado: N/A\n"
+				+ "Contenido: Contenido\n\n\nPie de página: Pie\n", complex.generateDocument());
+	}
+
+	@Test
+	void encodesUtf8LikeTheJdkAndFlushesLargeDocuments() throws IOException {
+		String text = "ñ € 𝄞 \uD800 fin" + "x".repeat(20_000);
+		Report report = new Report(1L, text, "Ana", text, "REPORT", null);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PDFFormat().export(report, out);
+		assertArrayEquals(("PDF Export: " + report.generateDocument()).getBytes(StandardCharsets.UTF_8), out.toByteArray());
+		assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), new PDFFormat().export(report));
+	}
+
+	@Test
+	void streamingExportWritesInBoundedChunks() throws IOException {
+		Document invoice = new Invoice(1L, "Factura", "Ana", "Línea de detalle ".repeat(10_000), "INVOICE", "F-1", 99.0);
+		PDFFormat pdf = new PDFFormat();
+
+		// Nunca se materializa el documento (~180 KB): cada escritura cabe en el
+		// buffer, que en el pool mide como mucho 64 KiB
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		int[] writes = new int[2]; // número de escrituras y la mayor
+		OutputStream sink = new OutputStream() {
+			@Override
+			public void write(int b) {
+				write(new byte[] {(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				writes[0]++;
+				writes[1] = Math.max(writes[1], len);
+				received.write(b, off, len);
+			}
+		};
+		pdf.export(invoice, sink);
+
+		assertTrue(writes[0] >= 3);
+		assertTrue(writes[1] <= 64 * 1024, "largest write was " + writes[1] + " bytes");
+		assertArrayEquals(pdf.export(invoice).getBytes(StandardCharsets.UTF_8), received.toByteArray());
+	}
+}
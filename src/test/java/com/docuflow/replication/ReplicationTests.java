@@ -0,0 +1,162 @@
+package com.docuflow.replication;
+
+import com.docuflow.config.RepositoryProperties;
+import com.docuflow.config.ReplicationProperties;
+import com.docuflow.exceptions.ReadOnlyReplicaException;
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTests {
+
+	private final List<Runnable> cleanup = new ArrayList<>();
+
+	@AfterEach
+	void stopNodes() {
+		cleanup.forEach(Runnable::run);
+	}
+
+	@Test
+	void followersOnLoopbackApplyLeaderMutationsInOrder() {
+		DocumentRepository leaderRepository = new DocumentRepository();
+		ReplicationLeader leader = leader(leaderRepository);
+		DocumentRepository first = new DocumentRepository();
+		DocumentRepository second = new DocumentRepository();
+		ReplicationFollower firstFollower = follower(first, leader.getPort());
+		follower(second, leader.getPort());
+
+		Document kept = leaderRepository.save(invoice("Kept"));
+		Document deleted = leaderRepository.save(invoice("Deleted"));
+		Document copy = kept.copy();
+		copy.setTitle("Kept v2");
+		leaderRepository.compareAndSet(kept.getId(), kept, copy);
+		leaderRepository.deleteById(deleted.getId());
+
+		for (DocumentRepository replica : List.of(first, second)) {
+			await(() -> replica.count() == 1
+					&& replica.findById(kept.getId()).map(d -> d.getVersion() == 2).orElse(false));
+			assertEquals("Kept v2", replica.findById(kept.getId()).orElseThrow().getTitle());
+			assertFalse(replica.existsById(deleted.getId()));
+			assertThrows(ReadOnlyReplicaException.class, () -> replica.save(invoice("Rejected")));
+		}
+
+		await(() -> firstFollower.status().getLagEntries() == 0);
+		ReplicationStatus status = firstFollower.status();
+		assertTrue(status.isConnected());
+		assertEquals(leaderRepository.getChangeFeed().getLastSequence(), status.getAppliedSequence());
+		assertEquals(2, leader.status().getFollowers());
+	}
+
+	@Test
+	void replicasTagDocumentsWithTheLeaderETags() {
+		DocumentRepository leaderRepository = new DocumentRepository();
+		// Líder duradero y réplica en memoria: sin adoptar el prefijo del líder los ETag diferirían
+		leaderRepository.markDurable();
+		ReplicationLeader leader = leader(leaderRepository);
+		DocumentRepository replica = new DocumentRepository();
+		assertNotEquals(0, replica.getETagEpoch());
+		follower(replica, leader.getPort());
+
+		Document saved = leaderRepository.save(invoice("Tagged"));
+		Document copy = saved.copy();
+		copy.setTitle("Tagged v2");
+		leaderRepository.compareAndSet(saved.getId(), saved, copy);
+
+		await(() -> replica.findById(saved.getId()).map(d -> d.getVersion() == 2).orElse(false));
+		assertEquals(0, replica.getETagEpoch());
+		Document replicated = replica.findById(saved.getId()).orElseThrow();
+		assertEquals(leaderRepository.findById(saved.getId()).orElseThrow().getETag(), replicated.getETag());
+		assertEquals("\"2\"", replicated.getETag());
+	}
+
+	@Test
+	void followerThatFellBehindCatchesUpFromSnapshot() {
+		RepositoryProperties small = new RepositoryProperties();
+		small.setChangeFeedCapacity(8);
+		DocumentRepository leaderRepository = new DocumentRepository(small);
+		ReplicationLeader leader = leader(leaderRepository);
+
+		DocumentRepository replica = new DocumentRepository();
+		ReplicationFollower follower = follower(replica, leader.getPort());
+		Document stale = leaderRepository.save(invoice("Stale"));
+		await(() -> replica.existsById(stale.getId()));
+		follower.stop();
+
+		// Mientras la réplica está caída el anillo da varias vueltas
+		leaderRepository.deleteById(stale.getId());
+		for (int i = 0; i < 50; i++) {
+			leaderRepository.save(invoice("Invoice " + i));
+		}
+		assertFalse(leaderRepository.getChangeFeed().isAvailable(2));
+
+		ReplicationFollower restarted = follower(replica, leader.getPort());
+		await(() -> replica.count() == 50 && !replica.existsById(stale.getId()));
+		assertEquals(1, restarted.status().getSnapshots());
+
+		leaderRepository.save(invoice("After snapshot"));
+		await(() -> replica.count() == 51);
+		await(() -> restarted.status().getLagEntries() == 0);
+	}
+
+	private ReplicationLeader leader(DocumentRepository repository) {
+		ReplicationProperties properties = properties();
+		properties.setBindAddress("127.0.0.1");
+		properties.setPort(0);
+		ReplicationLeader leader = new ReplicationLeader(repository, properties);
+		leader.start();
+		cleanup.add(leader::stop);
+		return leader;
+	}
+
+	private ReplicationFollower follower(DocumentRepository repository, int leaderPort) {
+		ReplicationProperties properties = properties();
+		properties.setLeaderHost("127.0.0.1");
+		properties.setLeaderPort(leaderPort);
+		ReplicationFollower follower = new ReplicationFollower(repository, properties);
+		follower.start();
+		cleanup.add(follower::stop);
+		return follower;
+	}
+
+	private static ReplicationProperties properties() {
+		ReplicationProperties properties = new ReplicationProperties();
+		properties.setPollIntervalMs(5);
+		properties.setHeartbeatIntervalMs(100);
+		properties.setReconnectDelayMs(50);
+		return properties;
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Replica did not converge in time");
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted");
+			}
+		}
+	}
+
+	private static Invoice invoice(String title) {
+		Invoice invoice = new Invoice();
+		invoice.setTitle(title);
+		invoice.setAuthor("Ana");
+		invoice.setContent("Invoice body");
+		invoice.setType("INVOICE");
+		invoice.setInvoiceNumber("F-1");
+		invoice.setAmount(10.5);
+		return invoice;
+	}
+}
@@ -0,0 +1,524 @@
+package com.docuflow.repositories;
+
+import com.docuflow.changes.ChangeEvent;
+import com.docuflow.changes.ChangeFeed;
+import com.docuflow.changes.ChangeRead;
+import com.docuflow.config.RepositoryProperties;
+import com.docuflow.models.ComplexDocument;
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import com.docuflow.models.Report;
+import com.docuflow.storage.TierUsage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentRepositoryTests {
+
+	private final DocumentRepository repository = new DocumentRepository();
+
+	@Test
+	void findByTypeFollowsSaveUpdateAndDelete() {
+		Document invoice = repository.save(document(new Invoice(), "invoice"));
+		Document report = repository.save(document(new Report(), "REPORT"));
+
+		assertEquals(List.of(invoice), repository.findByType("INVOICE"));
+		assertEquals(List.of(report), repository.findByType(" report "));
+
+		invoice.setType("REPORT");
+		repository.update(invoice.getId(), invoice);
+		assertTrue(repository.findByType("INVOICE").isEmpty());
+		assertEquals(2, repository.findByType("REPORT").size());
+
+		repository.deleteById(report.getId());
+		assertEquals(List.of(invoice), repository.findByType("REPORT"));
+	}
+
+	@Test
+	void findPageWalksIdsInOrder() {
+		for (int i = 0; i < 5; i++) {
+			repository.save(document(new Invoice(), "INVOICE"));
+		}
+		repository.deleteById(3L);
+
+		DocumentSlice first = repository.findPage(null, 2);
+		assertEquals(List.of(1L, 2L), first.getDocuments().stream().map(Document::getId).toList());
+		assertTrue(first.hasMore());
+
+		DocumentSlice second = repository.findPageByType("invoice", first.getLastId(), 2);
+		assertEquals(List.of(4L, 5L), second.getDocuments().stream().map(Document::getId).toList());
+		assertFalse(second.hasMore());
+	}
+
+	@Test
+	void compareAndSetPublishesNewVersionOnlyFromCurrentInstance() {
+		Document original = repository.save(document(new Invoice(), "INVOICE"));
+		assertEquals(1, original.getVersion());
+
+		Document first = original.copy();
+		first.setTitle("First");
+		Document second = original.copy();
+		second.setTitle("Second");
+
+		assertTrue(repository.compareAndSet(original.getId(), original, first));
+		assertFalse(repository.compareAndSet(original.getId(), original, second));
+
+		Document stored = repository.findById(original.getId()).orElseThrow();
+		assertSame(first, stored);
+		assertEquals(2, stored.getVersion());
+		assertEquals("Title", original.getTitle());
+	}
+
+	@Test
+	void eTagsFollowVersionsAndModifications() {
+		// Motor en memoria: tras reiniciar se repiten IDs y versiones, así que el ETag lleva el arranque
+		long epoch = repository.getETagEpoch();
+		assertNotEquals(0, epoch);
+		String emptyList = repository.getListETag();
+		Document invoice = repository.save(document(new Invoice(), "INVOICE"));
+		assertEquals("\"" + epoch + "-1\"", invoice.getETag());
+		assertNotNull(invoice.getModifiedAt());
+
+		String savedList = repository.getListETag();
+		assertNotEquals(emptyList, savedList);
+		assertTrue(savedList.startsWith("W/"));
+
+		Document updated = invoice.copy();
+		updated.setTitle("Updated");
+		repository.update(invoice.getId(), updated);
+		assertEquals("\"" + epoch + "-2\"", updated.getETag());
+		assertEquals("\"" + epoch + "-2-pdf\"", updated.getETag("pdf"));
+		assertFalse(updated.getModifiedAt().isBefore(invoice.getModifiedAt()));
+		assertNotEquals(savedList, repository.getListETag());
+
+		String beforeRead = repository.getListETag();
+		repository.findAll();
+		assertEquals(beforeRead, repository.getListETag());
+
+		// Con almacenamiento duradero basta la versión
+		repository.markDurable();
+		assertEquals("\"1\"", repository.save(document(new Invoice(), "INVOICE")).getETag());
+	}
+
+	@Test
+	void offHeapBodiesAreDecodedOnReadAndReclaimed() throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setOffHeapBodies(true);
+		properties.setOffHeapChunkBytes(1024);
+		DocumentRepository offHeap = new DocumentRepository(properties);
+
+		Document complex = offHeap.save(new ComplexDocument(null, "Title", "Author", "Cuerpo ñ",
+				"COMPLEX", "Header", null, List.of()));
+		assertNotNull(complex.storedBody());
+		assertEquals("Cuerpo ñ", complex.getContent());
+		assertEquals("Header", complex.getHeader());
+		assertNull(complex.getFooter());
+
+		complex.setContent("x".repeat(4096));
+		offHeap.update(complex.getId(), complex);
+		assertEquals(4096, complex.getContent().length());
+		assertEquals("Header", complex.getHeader());
+		assertEquals(1, offHeap.getOffHeapUsage().getLiveBodies());
+
+		offHeap.deleteById(complex.getId());
+		assertEquals(0, offHeap.getOffHeapUsage().getLiveBodies());
+		// Quien aún tenga el documento puede leerlo; el hueco se libera después
+		assertEquals(4096, complex.getContent().length());
+		assertTrue(offHeap.getOffHeapUsage().getAllocatedBytes() > 0);
+
+		complex = null;
+		awaitReclaimed(() -> offHeap.getOffHeapUsage().getAllocatedBytes() == 0);
+		assertEquals(0, offHeap.getOffHeapUsage().getRetiredBodies());
+	}
+
+	@Test
+	void offHeapReadersKeepOldBodiesWhileWritersReplaceThem() throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setOffHeapBodies(true);
+		properties.setOffHeapChunkBytes(4096);
+		DocumentRepository offHeap = new DocumentRepository(properties);
+
+		readWhileReplacing(offHeap);
+		assertEquals(1, offHeap.getOffHeapUsage().getLiveBodies());
+		awaitReclaimed(() -> offHeap.getOffHeapUsage().getRetiredBodies() == 0);
+	}
+
+	@Test
+	void sparseColdSegmentsAreCompacted(@TempDir Path coldDir) throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setTieredBodies(true);
+		properties.setTierHotBudgetBytes(64);
+		properties.setTierWarmBudgetBytes(64);
+		properties.setTierSegmentSizeBytes(512);
+		properties.setTierColdDirectory(coldDir.toString());
+		DocumentRepository tiered = new DocumentRepository(properties);
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 24; i++) {
+			Document report = document(new Report(), "REPORT");
+			report.setContent("Documento " + i + " " + UUID.randomUUID() + UUID.randomUUID());
+			ids.add(tiered.save(report).getId());
+		}
+		tiered.demoteBodies();
+		long before = tiered.getTierUsage().getColdSegmentBytes();
+		assertTrue(tiered.getTierUsage().getColdSegments() > 2);
+
+		// Se conserva uno de cada cuatro: el resto de cada segmento queda muerto
+		for (int i = 0; i < ids.size(); i++) {
+			if (i % 4 != 0) {
+				tiered.deleteById(ids.get(i));
+			}
+		}
+		awaitReclaimed(() -> tiered.getTierUsage().getCompactedSegments() > 0
+				&& tiered.getTierUsage().getColdBodies() == 6);
+		assertTrue(tiered.getTierUsage().getColdSegmentBytes() < before / 2);
+
+		for (int i = 0; i < ids.size(); i += 4) {
+			assertTrue(tiered.findById(ids.get(i)).orElseThrow().getContent().startsWith("Documento " + i + " "));
+		}
+		tiered.close();
+	}
+
+	@Test
+	void tieredReadersKeepOldBodiesWhileWritersReplaceThem(@TempDir Path coldDir) throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setTieredBodies(true);
+		properties.setTierHotBudgetBytes(64);
+		properties.setTierWarmBudgetBytes(64);
+		properties.setTierColdDirectory(coldDir.toString());
+		DocumentRepository tiered = new DocumentRepository(properties);
+
+		readWhileReplacing(tiered);
+		tiered.deleteAll();
+		awaitReclaimed(() -> tiered.getTierUsage().getColdBodies() == 0);
+		tiered.close();
+	}
+
+	/**
+	 * Lectores que releen el mismo Document mientras un escritor lo
+	 * sustituye con compare-and-set: el cuerpo antiguo debe seguir legible
+	 */
+	private static void readWhileReplacing(DocumentRepository repository) throws Exception {
+		Document initial = document(new Report(), "REPORT");
+		initial.setContent("Version 0");
+		Long id = repository.save(initial).getId();
+		initial = null;
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 4; r++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while (running.get()) {
+						Document current = repository.findById(id).orElseThrow();
+						String content = current.getContent();
+						Thread.onSpinWait();
+						assertEquals(content, current.getContent());
+						assertTrue(content.startsWith("Version "), content);
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+
+		for (int i = 0; i < 2000 && failure.get() == null; i++) {
+			Document current = repository.findById(id).orElseThrow();
+			Document next = current.copy();
+			next.setContent(("Version " + i + " ").repeat(1 + i % 8));
+			repository.compareAndSet(id, current, next);
+		}
+		running.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertNull(failure.get());
+	}
+
+	@Test
+	void saveAllAssignsContiguousIdsInListOrder() {
+		repository.save(document(new Invoice(), "INVOICE"));
+
+		List<Document> batch = List.of(
+				document(new Invoice(), "INVOICE"),
+				document(new Report(), "REPORT"),
+				document(new Invoice(), "INVOICE"));
+		List<Document> saved = repository.saveAll(batch);
+
+		long first = saved.get(0).getId();
+		assertEquals(List.of(first, first + 1, first + 2), saved.stream().map(Document::getId).toList());
+		assertTrue(saved.stream().allMatch(d -> d.getVersion() == 1 && d.getCreatedAt() != null));
+		assertEquals(4, repository.count());
+		assertEquals(3, repository.findByType("INVOICE").size());
+		assertNotEquals(first, repository.save(document(new Invoice(), "INVOICE")).getId());
+	}
+
+	@Test
+	void concurrentSavesGetUniqueIdsAndPagesStayOrdered() throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setShards(4);
+		properties.setIdBlockSize(8);
+		DocumentRepository sharded = new DocumentRepository(properties);
+
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < 50; i++) {
+					sharded.save(document(new Invoice(), "INVOICE"));
+				}
+			});
+			writers[t].start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertEquals(200, sharded.count());
+		assertEquals(200, sharded.findByType("INVOICE").size());
+
+		List<Long> walked = new ArrayList<>();
+		Long after = null;
+		DocumentSlice page;
+		do {
+			page = sharded.findPage(after, 30);
+			page.getDocuments().forEach(d -> walked.add(d.getId()));
+			after = page.getLastId();
+		} while (page.hasMore());
+
+		assertEquals(200, walked.size());
+		assertEquals(walked.stream().sorted().toList(), walked);
+		assertEquals(200, walked.stream().distinct().count());
+	}
+
+	@Test
+	void snapshotKeepsStableViewWhileWritersContinue() {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setSnapshotReads(true);
+		properties.setOffHeapBodies(true);
+		properties.setOffHeapChunkBytes(1024);
+		DocumentRepository versioned = new DocumentRepository(properties);
+
+		Document kept = versioned.save(document(new Invoice(), "INVOICE"));
+		Document removed = versioned.save(document(new Report(), "REPORT"));
+
+		try (RepositorySnapshot snapshot = versioned.openSnapshot()) {
+			Document changed = kept.copy();
+			changed.setContent("Changed content");
+			assertTrue(versioned.compareAndSet(kept.getId(), kept, changed));
+			versioned.deleteById(removed.getId());
+			versioned.save(document(new Invoice(), "INVOICE"));
+
+			assertEquals(List.of(kept.getId(), removed.getId()),
+					snapshot.documents().map(Document::getId).toList());
+			assertEquals("Some content", snapshot.findById(kept.getId()).orElseThrow().getContent());
+			assertEquals(1, snapshot.documentsOfType("report").count());
+			assertEquals("Changed content", versioned.findById(kept.getId()).orElseThrow().getContent());
+			assertEquals(2, versioned.count());
+			assertTrue(versioned.getRetainedVersions() > 0);
+		}
+
+		assertEquals(0, versioned.getRetainedVersions());
+		assertEquals(0, versioned.getOpenSnapshots());
+		assertEquals(2, versioned.getOffHeapUsage().getLiveBodies());
+		try (RepositorySnapshot latest = versioned.openSnapshot()) {
+			assertEquals(2, latest.documents().count());
+		}
+	}
+
+	@Test
+	void queryUsesMostSelectiveIndexAndAppliesRemainingPredicates() {
+		for (int i = 0; i < 6; i++) {
+			Document invoice = document(new Invoice(), "INVOICE");
+			invoice.setAuthor(i < 2 ? "Ana" : "Luis");
+			invoice.setTitle(i % 2 == 0 ? "Factura " + i : "Recibo " + i);
+			repository.save(invoice);
+		}
+		Document report = document(new Report(), "REPORT");
+		report.setAuthor("ana");
+		report.setTitle("Facturación anual");
+		repository.save(report);
+
+		DocumentQuery byAuthorAndType = DocumentQuery.builder().type("invoice").author(" ANA ").build();
+		QueryPlan plan = repository.plan(byAuthorAndType);
+		assertEquals(QueryPlan.Driver.AUTHOR, plan.getDriver());
+		assertEquals(3, plan.getEstimatedCandidates());
+		assertEquals(List.of(1L, 2L), repository.query(byAuthorAndType, plan, null, 10)
+				.getDocuments().stream().map(Document::getId).toList());
+
+		DocumentQuery byPrefix = DocumentQuery.builder().titlePrefix("factura ").author("luis").build();
+		QueryPlan prefixPlan = repository.plan(byPrefix);
+		assertEquals(QueryPlan.Driver.TITLE_PREFIX, prefixPlan.getDriver());
+		DocumentSlice first = repository.query(byPrefix, prefixPlan, null, 1);
+		assertEquals(List.of(3L), first.getDocuments().stream().map(Document::getId).toList());
+		assertTrue(first.hasMore());
+		assertEquals(List.of(5L), repository.query(byPrefix, prefixPlan, first.getLastId(), 5)
+				.getDocuments().stream().map(Document::getId).toList());
+
+		report.setAuthor("Luis");
+		repository.update(report.getId(), report);
+		assertEquals(5, repository.plan(DocumentQuery.builder().author("luis").build()).getEstimatedCandidates());
+		assertEquals(QueryPlan.Driver.FULL_SCAN, repository.plan(DocumentQuery.builder().build()).getDriver());
+	}
+
+	@Test
+	void tieredBodiesDemoteUnderBudgetAndPromoteOnRead(@TempDir Path coldDir) throws Exception {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setTieredBodies(true);
+		properties.setTierHotBudgetBytes(4 * 1024);
+		properties.setTierWarmBudgetBytes(128);
+		properties.setTierColdDirectory(coldDir.toString());
+		DocumentRepository tiered = new DocumentRepository(properties);
+
+		List<Document> saved = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Document report = document(new Report(), "REPORT");
+			report.setContent(("Documento " + i + " ").repeat(100));
+			saved.add(tiered.save(report));
+		}
+		tiered.demoteBodies();
+
+		TierUsage usage = tiered.getTierUsage();
+		assertTrue(usage.getHotBytes() <= 4 * 1024);
+		assertTrue(usage.getColdBodies() > 0);
+		assertEquals(20, usage.getHotBodies() + usage.getWarmBodies() + usage.getColdBodies());
+
+		// Lectura transparente desde el nivel frío
+		assertEquals(("Documento 0 ").repeat(100), saved.get(0).getContent());
+		assertTrue(tiered.getTierUsage().getColdHits() + tiered.getTierUsage().getWarmHits() > 0);
+
+		tiered.deleteAll();
+		saved = null;
+		awaitReclaimed(() -> tiered.getTierUsage().getColdBodies() == 0);
+		tiered.close();
+	}
+
+	@Test
+	void dedupBodiesShareEqualTextAndReleaseOnUpdateAndDelete() {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setDedupBodies(true);
+		DocumentRepository dedup = new DocumentRepository(properties);
+
+		Document first = dedup.save(document(new Invoice(), "INVOICE"));
+		Document second = dedup.save(document(new Invoice(), "INVOICE"));
+		dedup.save(document(new Report(), "REPORT"));
+
+		assertEquals(3, dedup.getDedupUsage().getReferencedBodies());
+		assertEquals(1, dedup.getDedupUsage().getUniqueBodies());
+		assertEquals(3.0, dedup.getDedupUsage().getDedupRatio());
+		assertEquals(2 * dedup.getDedupUsage().getStoredBytes(), dedup.getDedupUsage().getBytesSaved());
+
+		Document changed = second.copy();
+		changed.setContent("Other content");
+		assertTrue(dedup.compareAndSet(second.getId(), second, changed));
+		assertEquals("Some content", first.getContent());
+		assertEquals(2, dedup.getDedupUsage().getUniqueBodies());
+
+		dedup.deleteById(changed.getId());
+		assertEquals(1, dedup.getDedupUsage().getUniqueBodies());
+		assertEquals(2, dedup.getDedupUsage().getReferencedBodies());
+
+		dedup.deleteAll();
+		assertEquals(0, dedup.getDedupUsage().getUniqueBodies());
+		assertEquals(0, dedup.getDedupUsage().getLogicalBytes());
+	}
+
+	@Test
+	void changeFeedNumbersMutationsAndSignalsResync() {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setChangeFeedCapacity(4);
+		DocumentRepository feedRepository = new DocumentRepository(properties);
+		ChangeFeed feed = feedRepository.getChangeFeed();
+
+		Document invoice = feedRepository.save(document(new Invoice(), "INVOICE"));
+		feedRepository.update(invoice.getId(), invoice);
+		feedRepository.deleteById(invoice.getId());
+
+		ChangeRead read = feed.read(1, 10);
+		assertFalse(read.isResyncRequired());
+		assertEquals(List.of(1L, 2L, 3L), read.getEvents().stream().map(ChangeEvent::getSequence).toList());
+		assertEquals(DocumentMutation.Type.UPDATE, read.getEvents().get(1).getType());
+		assertEquals(2, read.getEvents().get(1).getVersion());
+		assertEquals(DocumentMutation.Type.DELETE, read.getEvents().get(2).getType());
+
+		// Reanudar tras la secuencia 2 y estar al día
+		assertEquals(3L, feed.read(3, 10).getEvents().get(0).getSequence());
+		assertTrue(feed.read(4, 10).getEvents().isEmpty());
+
+		// El anillo da la vuelta: la secuencia 1 ya no está
+		for (int i = 0; i < 3; i++) {
+			feedRepository.save(document(new Report(), "REPORT"));
+		}
+		assertTrue(feed.read(1, 10).isResyncRequired());
+		assertEquals(4, feed.read(3, 10).getEvents().size());
+
+		// Vaciar publica un DELETE por documento, sin romper la secuencia
+		feedRepository.deleteAll();
+		ChangeRead cleared = feed.read(7, 10);
+		assertFalse(cleared.isResyncRequired());
+		assertEquals(List.of(7L, 8L, 9L), cleared.getEvents().stream().map(ChangeEvent::getSequence).toList());
+		assertTrue(cleared.getEvents().stream().allMatch(event -> event.getType() == DocumentMutation.Type.DELETE));
+		assertEquals(0, feedRepository.count());
+	}
+
+	@Test
+	void statsFollowTypeAndContentChanges() {
+		Document invoice = repository.save(document(new Invoice(), "INVOICE"));
+		repository.save(document(new Report(), "REPORT"));
+		repository.save(new ComplexDocument(null, "Complex", "Ana", "Señal", "COMPLEX",
+				"Header", "Footer", List.of("One")));
+
+		DocumentStats stats = repository.getStats();
+		assertEquals(3, stats.getTotalDocuments());
+		assertEquals(Map.of("COMPLEX", 1L, "INVOICE", 1L, "REPORT", 1L), stats.getByType());
+		assertEquals(Map.of("author", 2L, "ana", 1L), stats.getByAuthor());
+		assertEquals(Map.of("Factory Pattern", 2L, "Builder Pattern", 1L), stats.getByPattern());
+		assertEquals(2 * "Some content".length() + 6, stats.getContentBytes());
+
+		// Modificada in situ: se resta lo que aportaba antes
+		invoice.setType("REPORT");
+		invoice.setContent("Longer content here");
+		repository.update(invoice.getId(), invoice);
+		stats = repository.getStats();
+		assertEquals(Map.of("COMPLEX", 1L, "REPORT", 2L), stats.getByType());
+		assertEquals("Some content".length() + "Longer content here".length() + 6, stats.getContentBytes());
+
+		repository.deleteById(invoice.getId());
+		stats = repository.getStats();
+		assertEquals(2, stats.getTotalDocuments());
+		assertEquals(Map.of("COMPLEX", 1L, "REPORT", 1L), stats.getByType());
+
+		repository.deleteAll();
+		assertEquals(0, repository.getStats().getContentBytes());
+		assertTrue(repository.getStats().getByType().isEmpty());
+	}
+
+	// Los cuerpos retirados se liberan cuando el GC ve inalcanzable su handle
+	private static void awaitReclaimed(BooleanSupplier reclaimed) throws InterruptedException {
+		for (int i = 0; i < 100 && !reclaimed.getAsBoolean(); i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertTrue(reclaimed.getAsBoolean());
+	}
+
+	private static Document document(Document document, String type) {
+		document.setTitle("Title");
+		document.setAuthor("Author");
+		document.setContent("Some content");
+		document.setType(type);
+		return document;
+	}
+}
@@ -0,0 +1,197 @@
+package com.docuflow.repositories.engine;
+
+import com.docuflow.config.RepositoryProperties;
+import com.docuflow.models.ComplexDocument;
+import com.docuflow.models.Contract;
+import com.docuflow.models.Document;
+import com.docuflow.models.DocumentTemplate;
+import com.docuflow.models.Invoice;
+import com.docuflow.models.Report;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mismo contrato para todos los motores
+ */
+class StorageEngineTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void memoryEngineKeepsNoSecondCopy() {
+		try (DocumentStorageEngine engine = new InMemoryStorageEngine()) {
+			engine.put(invoice(1L, "Factura"));
+			engine.putAll(List.of(invoice(2L, "Otra")));
+			assertEquals(0, engine.count());
+			assertTrue(engine.get(1L).isEmpty());
+		}
+
+		DocumentRepository repository = new DocumentRepository();
+		Document saved = repository.save(invoice(null, "Factura"));
+		assertEquals("memory", repository.getEngineName());
+		assertEquals("Factura", repository.findById(saved.getId()).orElseThrow().getTitle());
+	}
+
+	@Test
+	void h2EngineRoundTripsEveryKind() {
+		try (DocumentStorageEngine engine = new H2StorageEngine(url("contract"), "sa", "", 2)) {
+			verifyContract(engine);
+		}
+	}
+
+	@Test
+	void repositoryReloadsFromH2AfterRestart() {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setEngine("h2");
+		properties.setH2Url(url("repository"));
+
+		DocumentRepository repository = new DocumentRepository(properties);
+		Document kept = repository.save(invoice(null, "Kept"));
+		Document deleted = repository.save(invoice(null, "Deleted"));
+		List<Document> batch = repository.saveAll(List.of(invoice(null, "Batch 1"), invoice(null, "Batch 2")));
+		kept.setTitle("Kept v2");
+		repository.update(kept.getId(), kept);
+		repository.deleteById(deleted.getId());
+		repository.close();
+
+		DocumentRepository reloaded = new DocumentRepository(properties);
+		assertEquals("h2", reloaded.getEngineName());
+		assertEquals(3, reloaded.count());
+		Document restored = reloaded.findById(kept.getId()).orElseThrow();
+		assertEquals("Kept v2", restored.getTitle());
+		assertEquals(2, restored.getVersion());
+		// Las versiones sobreviven al reinicio: el ETag es solo la versión
+		assertEquals("\"2\"", restored.getETag());
+		assertEquals("Batch 2", reloaded.findById(batch.get(1).getId()).orElseThrow().getTitle());
+		assertFalse(reloaded.existsById(deleted.getId()));
+		assertEquals(3, reloaded.findByType("INVOICE").size());
+		assertTrue(reloaded.save(invoice(null, "New")).getId() > batch.get(1).getId());
+		reloaded.close();
+	}
+
+	/**
+	 * Tiempos orientativos de cada motor (no es un benchmark JMH: sin
+	 * calentamiento ni forks; solo se publican, no se comparan)
+	 */
+	@Test
+	void engineTimings(TestReporter reporter) {
+		int documents = 2000;
+		try (DocumentStorageEngine memory = new InMemoryStorageEngine();
+			 DocumentStorageEngine h2 = new H2StorageEngine(url("timings"), "sa", "", 2)) {
+			for (DocumentStorageEngine engine : List.of(memory, h2)) {
+				long start = System.nanoTime();
+				for (long id = 1; id <= documents; id++) {
+					engine.put(invoice(id, "Factura " + id));
+				}
+				long putNanos = System.nanoTime() - start;
+
+				List<Document> batch = new ArrayList<>(documents);
+				for (long id = documents + 1; id <= 2L * documents; id++) {
+					batch.add(invoice(id, "Lote " + id));
+				}
+				start = System.nanoTime();
+				engine.putAll(batch);
+				long putAllNanos = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				for (long id = 1; id <= documents; id++) {
+					engine.get(id);
+				}
+				long getNanos = System.nanoTime() - start;
+
+				long[] loaded = {0};
+				start = System.nanoTime();
+				engine.forEach(document -> loaded[0]++);
+				long loadNanos = System.nanoTime() - start;
+
+				assertEquals(engine.count(), loaded[0]);
+				reporter.publishEntry(engine.name(), String.format(
+						"put %.1f µs/doc, putAll %.1f µs/doc, get %.1f µs/doc, load %d docs in %.1f ms",
+						putNanos / 1_000.0 / documents, putAllNanos / 1_000.0 / documents,
+						getNanos / 1_000.0 / documents, loaded[0], loadNanos / 1_000_000.0));
+				engine.clear();
+			}
+		}
+	}
+
+	@Test
+	void unknownEngineIsRejected() {
+		RepositoryProperties properties = new RepositoryProperties();
+		properties.setEngine("cassandra");
+		assertThrows(IllegalArgumentException.class, () -> new DocumentRepository(properties));
+	}
+
+	private static void verifyContract(DocumentStorageEngine engine) {
+		Invoice invoice = invoice(1L, "Factura");
+		ComplexDocument complex = new ComplexDocument(2L, "Complejo", "Ana", "Cuerpo", "COMPLEX",
+				"Encabezado", "Pie", List.of("Uno", "Dos"));
+		complex.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30));
+		DocumentTemplate template = new DocumentTemplate();
+		template.setId(3L);
+		template.setTitle("Plantilla");
+		template.setType("TEMPLATE");
+		template.setDescription("Base");
+		Contract contract = new Contract(4L, "Contrato", "Luis", "Cláusulas", "CONTRACT", "ACME", "L. Pérez");
+		Report report = new Report(5L, "Informe", "Eva", "Datos", "REPORT", "Resumen");
+
+		engine.put(invoice);
+		engine.putAll(List.of(complex, template, contract, report));
+		assertEquals(5, engine.count());
+
+		Invoice storedInvoice = (Invoice) engine.get(1L).orElseThrow();
+		assertEquals("F-1", storedInvoice.getInvoiceNumber());
+		assertEquals(10.5, storedInvoice.getAmount());
+		ComplexDocument storedComplex = (ComplexDocument) engine.get(2L).orElseThrow();
+		assertEquals(List.of("Uno", "Dos"), storedComplex.getSections());
+		assertEquals("Encabezado", storedComplex.getHeader());
+		assertEquals("Pie", storedComplex.getFooter());
+		assertEquals(complex.getCreatedAt(), storedComplex.getCreatedAt());
+		assertEquals("Base", ((DocumentTemplate) engine.get(3L).orElseThrow()).getDescription());
+		Contract storedContract = (Contract) engine.get(4L).orElseThrow();
+		assertEquals("ACME", storedContract.getCompany());
+		assertEquals("L. Pérez", storedContract.getSignature());
+		assertEquals("Cláusulas", storedContract.getContent());
+		Report storedReport = (Report) engine.get(5L).orElseThrow();
+		assertEquals("Resumen", storedReport.getSummary());
+		assertEquals("Eva", storedReport.getAuthor());
+
+		invoice.setTitle("Factura v2");
+		engine.put(invoice);
+		assertEquals("Factura v2", engine.get(1L).orElseThrow().getTitle());
+
+		engine.delete(2L);
+		assertTrue(engine.get(2L).isEmpty());
+		List<Long> ids = new ArrayList<>();
+		engine.forEach(document -> ids.add(document.getId()));
+		assertEquals(List.of(1L, 3L, 4L, 5L), ids.stream().sorted().toList());
+
+		engine.clear();
+		assertEquals(0, engine.count());
+	}
+
+	private String url(String name) {
+		return "jdbc:h2:file:" + directory.resolve(name).toAbsolutePath();
+	}
+
+	private static Invoice invoice(Long id, String title) {
+		Invoice invoice = new Invoice();
+		invoice.setId(id);
+		invoice.setTitle(title);
+		invoice.setAuthor("Ana");
+		invoice.setContent("Invoice body");
+		invoice.setType("INVOICE");
+		invoice.setInvoiceNumber("F-1");
+		invoice.setAmount(10.5);
+		return invoice;
+	}
+}
@@ -0,0 +1,94 @@
+package com.docuflow.search;
+
+import com.docuflow.models.Document;
+import com.docuflow.models.Report;
+import com.docuflow.repositories.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTests {
+
+	private final DocumentRepository repository = new DocumentRepository();
+	private final InvertedIndex index = new InvertedIndex(repository);
+
+	@BeforeEach
+	void setUp() {
+		index.afterSingletonsInstantiated();
+	}
+
+	@Test
+	void supportsAndOrAndPhraseQueries() {
+		Document a = repository.save(report("Informe anual", "Ventas del camión en enero"));
+		Document b = repository.save(report("Informe mensual", "Camión nuevo y ventas"));
+		Document c = repository.save(report("Contrato", "Firma del contrato laboral"));
+
+		assertEquals(List.of(a.getId(), b.getId()), ids("camion ventas"));
+		assertEquals(List.of(a.getId()), ids("\"ventas del camion\""));
+		assertEquals(3, index.search(SearchQuery.parse("informe OR contrato"), 10).getTotalMatches());
+
+		c.setContent("Texto sin relación");
+		repository.update(c.getId(), c);
+		assertTrue(ids("laboral").isEmpty());
+
+		repository.deleteById(a.getId());
+		assertEquals(List.of(b.getId()), ids("camion"));
+	}
+
+	@Test
+	void skipsAcrossBlocksAndPendingChanges() {
+		Map<Long, String> contents = new HashMap<>();
+		List<Long> saved = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			String content = "comun" + (i % 2 == 0 ? " par" : "") + (i % 3 == 0 ? " tres" : "");
+			Long id = repository.save(report("Doc " + i, content)).getId();
+			saved.add(id);
+			contents.put(id, content);
+		}
+		// Cambios sobre documentos ya consolidados: pasan por la capa pendiente
+		for (int i = 0; i < 1000; i += 12) {
+			repository.deleteById(saved.get(i));
+			contents.remove(saved.get(i));
+		}
+		for (int i = 6; i < 1000; i += 60) {
+			Document changed = repository.findById(saved.get(i)).orElseThrow();
+			changed.setContent("comun tres");
+			repository.update(changed.getId(), changed);
+			contents.put(changed.getId(), "comun tres");
+		}
+
+		SearchResult both = index.search(SearchQuery.parse("par tres"), 5);
+		assertEquals(count(contents, c -> c.contains("par") && c.contains("tres")), both.getTotalMatches());
+		assertEquals(5, both.getHits().size());
+		assertEquals(contents.size(), index.search(SearchQuery.parse("comun"), 3).getTotalMatches());
+		assertEquals(count(contents, c -> c.contains("par") || c.contains("tres")),
+				index.search(SearchQuery.parse("par OR tres"), 10).getTotalMatches());
+	}
+
+	private static long count(Map<Long, String> contents, Predicate<String> matches) {
+		return contents.values().stream().filter(matches).count();
+	}
+
+	private List<Long> ids(String query) {
+		return index.search(SearchQuery.parse(query), 10).getHits().stream()
+				.map(SearchHit::getDocumentId)
+				.sorted()
+				.toList();
+	}
+
+	private static Document report(String title, String content) {
+		Report report = new Report();
+		report.setTitle(title);
+		report.setAuthor("Ana");
+		report.setContent(content);
+		report.setType("REPORT");
+		return report;
+	}
+}
@@ -0,0 +1,42 @@
+package com.docuflow.storage;
+
+import com.docuflow.models.Document;
+import com.docuflow.models.Invoice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredBodyStoreTests {
+
+	@Test
+	void rewritingOneBodyKeepsTheRingBounded(@TempDir Path coldDir) throws Exception {
+		try (TieredBodyStore store = new TieredBodyStore(64 * 1024 * 1024, 1024 * 1024, coldDir, 1024 * 1024)) {
+			// Sin presión de memoria nadie saca entradas del anillo
+			for (int i = 0; i < 10_000; i++) {
+				store.store(1L, invoice("Version " + i));
+			}
+			for (int i = 0; i < 100 && store.usage().getHotBodies() > 1; i++) {
+				System.gc();
+				Thread.sleep(20);
+			}
+			assertEquals(1, store.usage().getHotBodies());
+
+			Document last = invoice("Last");
+			store.store(1L, last);
+			assertTrue(store.ringSize(true) < 100, "hot ring kept " + store.ringSize(true) + " entries");
+			assertEquals("Last", last.getContent());
+		}
+	}
+
+	private static Document invoice(String content) {
+		Document document = new Invoice();
+		document.setTitle("Title");
+		document.setAuthor("Author");
+		document.setContent(content);
+		document.setType("INVOICE");
+		return document;
+	}
+}